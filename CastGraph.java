@@ -0,0 +1,233 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Two-way index between films and their casts, filled in from the "Starring"
+ * line of each film page as it is read: film to stars, and star to films. Once
+ * a film has been seen, the films of any actor (or the actors an actor has
+ * starred with) are a lookup rather than a page fetch. The graph can be saved
+ * to a file so that it carries over between sessions.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class CastGraph {
+
+	private static final int MAGIC = 0x43415354; // "CAST"
+	private static final int VERSION = 1;
+
+	// link to film's page : stars of film
+	private final HashMap<String, List<String>> casts = new HashMap<String, List<String>>();
+	// star : links to films starring them
+	private final HashMap<String, LinkedHashSet<String>> films = new HashMap<String, LinkedHashSet<String>>();
+	private final File file;
+	private boolean changed;
+
+	/**
+	 * Constructor. Starts from the graph saved in file, if there is one.
+	 *
+	 * @param file
+	 *           Where graph is saved (null to keep it in memory only)
+	 */
+	public CastGraph(File file) {
+		this.file = file;
+		if (file != null && file.isFile()) {
+			try {
+				this.read();
+			} catch (IOException e) {
+				e.printStackTrace(); // starts empty; refilled as pages are read
+				this.casts.clear();
+				this.films.clear();
+			}
+		}
+	}
+
+	/**
+	 * Records the cast of a film, replacing any cast recorded before
+	 *
+	 * @param filmLink
+	 *           Relative link to film's page
+	 * @param stars
+	 *           Stars of film
+	 */
+	public synchronized void put(String filmLink, List<String> stars) {
+		List<String> old = this.casts.put(filmLink,
+				Collections.unmodifiableList(new ArrayList<String>(stars)));
+		if (old != null) {
+			for (String star : old) {
+				Set<String> starFilms = this.films.get(star);
+				if (starFilms != null) {
+					starFilms.remove(filmLink);
+					if (starFilms.isEmpty()) {
+						this.films.remove(star);
+					}
+				}
+			}
+		}
+
+		for (String star : stars) {
+			LinkedHashSet<String> starFilms = this.films.get(star);
+			if (starFilms == null) {
+				starFilms = new LinkedHashSet<String>();
+				this.films.put(star, starFilms);
+			}
+			starFilms.add(filmLink);
+		}
+		this.changed = true;
+	}
+
+	/**
+	 * Whether the cast of a film has been recorded
+	 *
+	 * @param filmLink
+	 *           Relative link to film's page
+	 * @return true if film has been seen
+	 */
+	public synchronized boolean hasFilm(String filmLink) {
+		return this.casts.containsKey(filmLink);
+	}
+
+	/**
+	 * Looks up the cast of a film
+	 *
+	 * @param filmLink
+	 *           Relative link to film's page
+	 * @return Stars of film, or null if film has not been seen
+	 */
+	public synchronized List<String> getCast(String filmLink) {
+		return this.casts.get(filmLink);
+	}
+
+	/**
+	 * Looks up the films of a star, among the films seen so far
+	 *
+	 * @param star
+	 *           Name of star, as on film pages
+	 * @return Links to films starring star (empty if none)
+	 */
+	public synchronized Set<String> getFilms(String star) {
+		LinkedHashSet<String> starFilms = this.films.get(star);
+		return starFilms == null ? new LinkedHashSet<String>()
+				: new LinkedHashSet<String>(starFilms);
+	}
+
+	/**
+	 * Looks up everyone who has starred alongside a star, among the films seen
+	 * so far
+	 *
+	 * @param star
+	 *           Name of star, as on film pages
+	 * @return Co-stars of star, each with the number of films they share
+	 */
+	public synchronized HashMap<String, Integer> getCoStars(String star) {
+		HashMap<String, Integer> coStars = new HashMap<String, Integer>();
+		LinkedHashSet<String> starFilms = this.films.get(star);
+		if (starFilms == null) {
+			return coStars;
+		}
+
+		for (String film : starFilms) {
+			for (String coStar : this.casts.get(film)) {
+				if (!coStar.equals(star)) {
+					Integer shared = coStars.get(coStar);
+					coStars.put(coStar, shared == null ? 1 : shared + 1);
+				}
+			}
+		}
+		return coStars;
+	}
+
+	/**
+	 * Number of films seen
+	 *
+	 * @return Size of this.casts
+	 */
+	public synchronized int size() {
+		return this.casts.size();
+	}
+
+	/**
+	 * Saves graph to its file, if it has changed since it was last saved
+	 *
+	 * @throws IOException
+	 *            if the file could not be written
+	 */
+	public synchronized void save() throws IOException {
+		if (this.file == null || !this.changed) {
+			return;
+		}
+
+		File temp = File.createTempFile("casts", ".tmp", this.file
+				.getAbsoluteFile().getParentFile());
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(temp)));
+		try {
+			out.writeInt(CastGraph.MAGIC);
+			out.writeInt(CastGraph.VERSION);
+			out.writeInt(this.casts.size());
+			for (Map.Entry<String, List<String>> e : this.casts.entrySet()) {
+				out.writeUTF(e.getKey());
+				out.writeInt(e.getValue().size());
+				for (String star : e.getValue()) {
+					out.writeUTF(star);
+				}
+			}
+		} finally {
+			out.close();
+		}
+
+		if (!temp.renameTo(this.file)) {
+			this.file.delete();
+			if (!temp.renameTo(this.file)) {
+				temp.delete();
+				throw new IOException("Could not write cast graph " + this.file);
+			}
+		}
+		this.changed = false;
+	}
+
+	/**
+	 * Returns String representation of graph size
+	 */
+	public synchronized String toString() {
+		return this.casts.size() + " films; " + this.films.size() + " stars";
+	}
+
+	private void read() throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(this.file)));
+		try {
+			if (in.readInt() != CastGraph.MAGIC
+					|| in.readInt() != CastGraph.VERSION) {
+				throw new IOException(this.file + " is not a cast graph");
+			}
+			int filmCount = in.readInt();
+			for (int f = 0; f < filmCount; f++) {
+				String filmLink = in.readUTF();
+				ArrayList<String> stars = new ArrayList<String>();
+				int starCount = in.readInt();
+				for (int s = 0; s < starCount; s++) {
+					stars.add(in.readUTF());
+				}
+				this.put(filmLink, stars);
+			}
+		} finally {
+			in.close();
+		}
+		this.changed = false;
+	}
+}
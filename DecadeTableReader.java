@@ -0,0 +1,391 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Streaming reader of the award tables on a category page (Best Picture,
+ * Original Screenplay/Best Actor, ...). Rows come out as each table row is
+ * read from the page stream, so only the row being read is ever held in
+ * memory, never the whole page. Rows are the same as those of
+ * WikipediaParser.getDecadeTableInfo.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class DecadeTableReader implements Iterator<HashedInfo> {
+
+	private static final Pattern digits = Pattern.compile("\\d+");
+
+	private final HtmlTokenizer tokenizer;
+	private final int indicator;
+	private final LinkedList<HashedInfo> ready = new LinkedList<HashedInfo>();
+	private boolean finished;
+
+	// depth of open tables; depth of the award table being read (0 if none)
+	private int tableDepth;
+	private int awardTableDepth;
+
+	// state of award table being read
+	private final ArrayList<String> attributes = new ArrayList<String>();
+	private WikipediaParser.TableColumns columns;
+	private String awardLink;
+	private int awardYear, calendarYear;
+	private String winner;
+	private boolean inCaption;
+	private int captionYearLinks;
+
+	// state of row being read
+	private boolean inRow;
+	private final ArrayList<String> headers = new ArrayList<String>();
+	private final ArrayList<String> values = new ArrayList<String>();
+	private String rowYearLink;
+	private int rowAwardYear;
+
+	// state of cell being read; cellType is "th", "td" or null
+	private String cellType;
+	private final StringBuilder cellText = new StringBuilder();
+	private final ArrayList<String> linkTexts = new ArrayList<String>();
+
+	// hyperlink being read, if any
+	private String linkTag;
+	private String linkHref;
+	private final StringBuilder linkText = new StringBuilder();
+
+	/**
+	 * Constructor. Values of rows are not pooled: a pool would hold every
+	 * value of the page for as long as it lives, which is what streaming
+	 * avoids.
+	 *
+	 * @param page
+	 *           Stream of category page; closed once all rows are read
+	 * @param indicator
+	 *           0 for table similar to Best Picture; 1 for table similar to
+	 *           Original Screenplay/Best Actor
+	 */
+	public DecadeTableReader(Reader page, int indicator) {
+		this.tokenizer = new HtmlTokenizer(page);
+		this.indicator = indicator;
+	}
+
+	/**
+	 * Reads the rows of page, handing each to handler as it is read, until
+	 * handler asks to stop
+	 *
+	 * @param page
+	 *           Stream of category page; closed once read or stopped
+	 * @param indicator
+	 *           0 for table similar to Best Picture; 1 for table similar to
+	 *           Original Screenplay/Best Actor
+	 * @param handler
+	 *           Receiver of rows
+	 * @return Number of rows handed to handler
+	 * @throws IOException
+	 *            if the page could not be read
+	 */
+	public static int read(Reader page, int indicator, RowHandler handler)
+			throws IOException {
+		DecadeTableReader reader = new DecadeTableReader(page, indicator);
+		int rows = 0;
+		try {
+			HashedInfo row;
+			while ((row = reader.nextRow()) != null) {
+				rows++;
+				if (!handler.row(row)) {
+					break;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		return rows;
+	}
+
+	/**
+	 * Reads page up to the end of the next row
+	 *
+	 * @return Next row, or null once the page has been read (the stream is then
+	 *         closed)
+	 * @throws IOException
+	 *            if the page could not be read
+	 */
+	public HashedInfo nextRow() throws IOException {
+		while (this.ready.isEmpty() && !this.finished) {
+			if (this.tokenizer.next()) {
+				this.handleToken();
+			} else {
+				this.finished = true;
+				this.tokenizer.close();
+			}
+		}
+		return this.ready.poll();
+	}
+
+	/**
+	 * Stops reading and closes the page stream
+	 *
+	 * @throws IOException
+	 *            if the stream could not be closed
+	 */
+	public void close() throws IOException {
+		this.finished = true;
+		this.ready.clear();
+		this.tokenizer.close();
+	}
+
+	/**
+	 * Whether another row is left
+	 *
+	 * @throws IllegalStateException
+	 *            if the page could not be read (the stream is then closed), so
+	 *            that rows are never cut short without the caller knowing
+	 */
+	public boolean hasNext() {
+		if (this.ready.isEmpty()) {
+			try {
+				HashedInfo row = this.nextRow();
+				if (row != null) {
+					this.ready.addFirst(row);
+				}
+			} catch (IOException e) {
+				try {
+					this.close();
+				} catch (IOException closing) {
+					// the read error is the one reported
+				}
+				throw new IllegalStateException("Could not read page", e);
+			}
+		}
+		return !this.ready.isEmpty();
+	}
+
+	/**
+	 * Returns next row
+	 */
+	public HashedInfo next() {
+		if (!this.hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return this.ready.poll();
+	}
+
+	/**
+	 * Not supported: rows are read-only
+	 */
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	private void handleToken() {
+		HtmlTokenizer t = this.tokenizer;
+
+		if (t.getType() == HtmlTokenizer.TEXT) {
+			this.handleText(t.getText());
+			return;
+		}
+
+		String tag = t.getTagName();
+		boolean start = t.getType() == HtmlTokenizer.START_TAG;
+
+		if (tag.equals("table")) {
+			if (start) {
+				this.tableDepth++;
+				if (this.awardTableDepth == 0 && this.isAwardTable()) {
+					this.beginTable();
+				}
+			} else if (this.tableDepth > 0) {
+				if (this.tableDepth == this.awardTableDepth) {
+					this.endRow();
+					this.awardTableDepth = 0;
+				}
+				this.tableDepth--;
+			}
+			return;
+		}
+
+		if (this.awardTableDepth == 0) {
+			return;
+		}
+		boolean ownLevel = this.tableDepth == this.awardTableDepth;
+
+		if (ownLevel && tag.equals("caption")) {
+			this.inCaption = start;
+		} else if (ownLevel && tag.equals("tr")) {
+			this.endRow();
+			this.inRow = start;
+		} else if (ownLevel && (tag.equals("td") || tag.equals("th"))) {
+			this.endCell();
+			if (start && this.inRow) {
+				this.cellType = tag;
+			}
+		} else if (start && t.getAttribute("href") != null
+				&& this.linkTag == null && !t.isSelfClosing()) {
+			this.linkTag = tag;
+			this.linkHref = t.getAttribute("href");
+			this.linkText.setLength(0);
+			if ("td".equals(this.cellType)) {
+				this.cellText.append(WikipediaParser.linkMarker);
+			}
+		} else if (!start && tag.equals(this.linkTag)) {
+			this.endLink();
+		} else if (start && tag.equals("br")) {
+			this.handleText(" ");
+		}
+	}
+
+	private void handleText(String text) {
+		if (this.awardTableDepth == 0) {
+			return;
+		}
+		String normalized = DecadeTableReader.normalize(text);
+		if (this.linkTag != null) {
+			WikipediaParser.appendCollapsed(normalized, this.linkText);
+		} else {
+			this.appendToCell(normalized);
+		}
+	}
+
+	private void appendToCell(String text) {
+		if (this.cellType != null) {
+			WikipediaParser.appendCollapsed(text, this.cellText);
+		}
+	}
+
+	// the award tables are tables with no attributes other than class (and
+	// width, for Best Picture-like tables)
+	private boolean isAwardTable() {
+		HtmlTokenizer t = this.tokenizer;
+		if (!"wikitable".equals(t.getAttribute("class"))) {
+			return false;
+		}
+		if (this.indicator == 0) {
+			return t.getAttributeCount() == 2
+					&& "width:100%;".equals(t.getAttribute("style"));
+		}
+		return t.getAttributeCount() == 1;
+	}
+
+	private void beginTable() {
+		this.awardTableDepth = this.tableDepth;
+		this.attributes.clear();
+		this.columns = null;
+		this.awardLink = "";
+		this.awardYear = 0;
+		this.calendarYear = 0;
+		this.winner = "1";
+		this.inCaption = false;
+		this.captionYearLinks = 0;
+		this.inRow = false;
+	}
+
+	private void endLink() {
+		String text = this.linkText.toString().trim();
+		String href = this.linkHref;
+		this.linkTag = null;
+
+		if ("td".equals(this.cellType)) {
+			this.linkTexts.add(text);
+		} else if ("th".equals(this.cellType)) {
+			WikipediaParser.appendCollapsed(text, this.cellText);
+		}
+		if (!DecadeTableReader.digits.matcher(text).find()) {
+			return;
+		}
+
+		if (this.inCaption && this.indicator == 0) {
+			// caption holds calendar year, then link to award ceremony
+			if (this.captionYearLinks == 0) {
+				this.calendarYear = DecadeTableReader.firstNumber(text);
+				if (String.valueOf(this.calendarYear).length() == 2) {
+					this.calendarYear += 1900;
+				}
+			} else if (this.captionYearLinks == 1) {
+				this.awardLink = href;
+				this.awardYear = DecadeTableReader.firstNumber(text);
+			}
+			this.captionYearLinks++;
+		} else if ("th".equals(this.cellType)) {
+			this.rowYearLink = href;
+			this.rowAwardYear = DecadeTableReader.firstNumber(text);
+		}
+	}
+
+	private void endCell() {
+		if (this.linkTag != null) {
+			this.endLink();
+		}
+		if ("th".equals(this.cellType)) {
+			this.headers.add(this.cellText.toString().trim());
+		} else if ("td".equals(this.cellType)) {
+			this.values.add(WikipediaParser.cellValue(this.linkTexts,
+					this.cellText));
+		}
+		this.cellType = null;
+		this.cellText.setLength(0);
+		this.linkTexts.clear();
+	}
+
+	private void endRow() {
+		this.endCell();
+		if (!this.inRow) {
+			return;
+		}
+		this.inRow = false;
+
+		if (this.values.size() == 0) {
+			// header row gives attribute names
+			if (this.attributes.size() == 0) {
+				this.attributes.addAll(this.headers);
+			}
+		} else {
+			// award for whole table is taken from year cell of first row
+			if (this.indicator == 1 && this.awardLink.equals("")
+					&& this.rowYearLink != null) {
+				this.awardLink = this.rowYearLink;
+				this.awardYear = this.rowAwardYear;
+			}
+			this.ready.add(this.buildRow());
+			this.winner = "0";
+		}
+
+		this.headers.clear();
+		this.values.clear();
+		this.rowYearLink = null;
+	}
+
+	private HashedInfo buildRow() {
+		this.columns = WikipediaParser.TableColumns.of(this.columns,
+				this.attributes, this.indicator);
+		return WikipediaParser.tableRow(this.columns, this.values, this.winner,
+				this.awardLink, this.awardYear, this.calendarYear, null);
+	}
+
+	// collapses runs of whitespace to a single space, as Jsoup does for text
+	private static String normalize(String text) {
+		StringBuilder out = new StringBuilder(text.length());
+		boolean lastWasSpace = false;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+				if (!lastWasSpace) {
+					out.append(' ');
+				}
+				lastWasSpace = true;
+			} else {
+				out.append(c);
+				lastWasSpace = false;
+			}
+		}
+		return out.toString();
+	}
+
+	private static int firstNumber(String text) {
+		Matcher m = DecadeTableReader.digits.matcher(text);
+		return m.find() ? Integer.parseInt(m.group()) : 0;
+	}
+}
@@ -0,0 +1,344 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.zip.GZIPInputStream;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+/**
+ * Settings for loading pages over the network: the site pages are loaded from
+ * (Wikipedia, a local mirror or caching proxy, or a test stand-in), request
+ * timeout, user agent, largest body read, compression, connection reuse, and
+ * the pool size, per-host spacing and retries of fetches.
+ *
+ * Setters return this config, so settings can be chained:
+ *
+ * <pre>
+ * new FetchConfig().setRootURL(&quot;http://localhost:8080&quot;).setTimeout(2000)
+ * </pre>
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class FetchConfig {
+
+	// defaults, overridable with -D flags on the command line
+	private static final String rootURLProperty = "wiki.root.url";
+	private static final String timeoutProperty = "wiki.fetch.timeoutMs";
+	private static final String userAgentProperty = "wiki.fetch.userAgent";
+	private static final String maxBodyProperty = "wiki.fetch.maxBodyKB";
+	private static final String gzipProperty = "wiki.fetch.gzip";
+	private static final String keepAliveProperty = "wiki.fetch.keepAlive";
+	private static final String concurrencyProperty = "wiki.fetch.threads";
+
+	private String rootURL = "http://en.wikipedia.org";
+	private int timeout = 10000;
+	private String userAgent = "WikipediaMovieAnalyzer/1.0 (Java "
+			+ System.getProperty("java.version") + ")";
+	private int maxBodySize = 8 * 1024 * 1024;
+	private boolean gzip = true;
+	private boolean keepAlive = true;
+	private int concurrency = 8;
+	private long hostInterval = 50;
+	private int attempts = 3;
+	private long backoff = 500;
+
+	/**
+	 * Settings given by system properties: wiki.root.url, wiki.fetch.timeoutMs,
+	 * wiki.fetch.userAgent, wiki.fetch.maxBodyKB, wiki.fetch.gzip,
+	 * wiki.fetch.keepAlive and wiki.fetch.threads. Any not set keep their
+	 * defaults.
+	 *
+	 * @return New config
+	 */
+	public static FetchConfig fromSystemProperties() {
+		FetchConfig config = new FetchConfig();
+		config.setRootURL(System.getProperty(FetchConfig.rootURLProperty,
+				config.rootURL));
+		config.timeout = Integer.getInteger(FetchConfig.timeoutProperty,
+				config.timeout);
+		config.userAgent = System.getProperty(FetchConfig.userAgentProperty,
+				config.userAgent);
+		config.maxBodySize = Integer.getInteger(FetchConfig.maxBodyProperty,
+				config.maxBodySize / 1024) * 1024;
+		config.gzip = Boolean.parseBoolean(System.getProperty(
+				FetchConfig.gzipProperty, String.valueOf(config.gzip)));
+		config.keepAlive = Boolean.parseBoolean(System.getProperty(
+				FetchConfig.keepAliveProperty, String.valueOf(config.keepAlive)));
+		config.concurrency = Integer.getInteger(FetchConfig.concurrencyProperty,
+				config.concurrency);
+		return config;
+	}
+
+	/**
+	 * Site pages are loaded from
+	 *
+	 * @param rootURL
+	 *           Scheme and host, without trailing slash (default
+	 *           http://en.wikipedia.org)
+	 * @return this
+	 */
+	public FetchConfig setRootURL(String rootURL) {
+		while (rootURL.endsWith("/")) {
+			rootURL = rootURL.substring(0, rootURL.length() - 1);
+		}
+		this.rootURL = rootURL;
+		return this;
+	}
+
+	/**
+	 * Time allowed to connect, and to wait for each read
+	 *
+	 * @param timeout
+	 *           Milliseconds (default 10000; 0 waits forever)
+	 * @return this
+	 */
+	public FetchConfig setTimeout(int timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * User-Agent header sent with every request
+	 *
+	 * @param userAgent
+	 *           Header value
+	 * @return this
+	 */
+	public FetchConfig setUserAgent(String userAgent) {
+		this.userAgent = userAgent;
+		return this;
+	}
+
+	/**
+	 * Largest response body read; longer bodies are cut off
+	 *
+	 * @param maxBodySize
+	 *           Bytes (default 8 MB; 0 for no limit)
+	 * @return this
+	 */
+	public FetchConfig setMaxBodySize(int maxBodySize) {
+		this.maxBodySize = maxBodySize;
+		return this;
+	}
+
+	/**
+	 * Whether responses are asked for gzip-compressed
+	 *
+	 * @param gzip
+	 *           true (default) to send Accept-Encoding: gzip
+	 * @return this
+	 */
+	public FetchConfig setGzip(boolean gzip) {
+		this.gzip = gzip;
+		return this;
+	}
+
+	/**
+	 * Whether connections are kept open and reused between requests to a host
+	 *
+	 * @param keepAlive
+	 *           true (default) to reuse connections; false to close each one
+	 *           after its response
+	 * @return this
+	 */
+	public FetchConfig setKeepAlive(boolean keepAlive) {
+		this.keepAlive = keepAlive;
+		return this;
+	}
+
+	/**
+	 * Number of fetches run at once
+	 *
+	 * @param concurrency
+	 *           Size of fetch thread pool (default 8)
+	 * @return this
+	 */
+	public FetchConfig setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+		return this;
+	}
+
+	/**
+	 * Spacing and retries of requests
+	 *
+	 * @param hostInterval
+	 *           Minimum milliseconds between two requests to one host (default
+	 *           50)
+	 * @param attempts
+	 *           Times a request is tried before giving up (default 3)
+	 * @param backoff
+	 *           Milliseconds before the first retry, doubled for each one after
+	 *           (default 500)
+	 * @return this
+	 */
+	public FetchConfig setRetries(long hostInterval, int attempts, long backoff) {
+		this.hostInterval = hostInterval;
+		this.attempts = attempts;
+		this.backoff = backoff;
+		return this;
+	}
+
+	/**
+	 * Accessor for site pages are loaded from
+	 *
+	 * @return this.rootURL
+	 */
+	public String getRootURL() {
+		return this.rootURL;
+	}
+
+	/**
+	 * Accessor for request timeout
+	 *
+	 * @return this.timeout, in milliseconds
+	 */
+	public int getTimeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * Accessor for User-Agent header
+	 *
+	 * @return this.userAgent
+	 */
+	public String getUserAgent() {
+		return this.userAgent;
+	}
+
+	/**
+	 * Accessor for largest body read
+	 *
+	 * @return this.maxBodySize, in bytes (0 for no limit)
+	 */
+	public int getMaxBodySize() {
+		return this.maxBodySize;
+	}
+
+	/**
+	 * Accessor for compression setting
+	 *
+	 * @return this.gzip
+	 */
+	public boolean isGzip() {
+		return this.gzip;
+	}
+
+	/**
+	 * Accessor for connection reuse setting
+	 *
+	 * @return this.keepAlive
+	 */
+	public boolean isKeepAlive() {
+		return this.keepAlive;
+	}
+
+	/**
+	 * Accessor for number of fetches run at once
+	 *
+	 * @return this.concurrency
+	 */
+	public int getConcurrency() {
+		return this.concurrency;
+	}
+
+	/**
+	 * Accessor for minimum spacing of requests to one host
+	 *
+	 * @return this.hostInterval, in milliseconds
+	 */
+	public long getHostInterval() {
+		return this.hostInterval;
+	}
+
+	/**
+	 * Accessor for tries per request
+	 *
+	 * @return this.attempts
+	 */
+	public int getAttempts() {
+		return this.attempts;
+	}
+
+	/**
+	 * Accessor for wait before first retry
+	 *
+	 * @return this.backoff, in milliseconds
+	 */
+	public long getBackoff() {
+		return this.backoff;
+	}
+
+	/**
+	 * Prepares a request with these settings
+	 *
+	 * @param url
+	 *           Absolute URL of page
+	 * @return Request ignoring HTTP errors and content type, so that status
+	 *         codes can be inspected
+	 */
+	public Connection connect(String url) {
+		Connection connection = Jsoup.connect(url).ignoreHttpErrors(true)
+				.ignoreContentType(true).timeout(this.timeout)
+				.maxBodySize(this.maxBodySize).userAgent(this.userAgent);
+		// jsoup asks for gzip unless told otherwise
+		connection.header("Accept-Encoding", this.gzip ? "gzip" : "identity");
+		if (!this.keepAlive) {
+			connection.header("Connection", "close");
+		}
+		return connection;
+	}
+
+	/**
+	 * Applies these settings to a plain connection (for pages streamed rather
+	 * than read whole)
+	 *
+	 * @param connection
+	 *           Connection not yet opened
+	 */
+	public void configure(HttpURLConnection connection) {
+		connection.setConnectTimeout(this.timeout);
+		connection.setReadTimeout(this.timeout);
+		connection.setRequestProperty("User-Agent", this.userAgent);
+		if (this.gzip) {
+			connection.setRequestProperty("Accept-Encoding", "gzip");
+		}
+		if (!this.keepAlive) {
+			connection.setRequestProperty("Connection", "close");
+		}
+	}
+
+	/**
+	 * Body of a response to a connection configured by these settings,
+	 * decompressed if it was sent gzipped
+	 *
+	 * @param connection
+	 *           Connection whose response code has been read
+	 * @return Stream of body (to be closed by the caller)
+	 * @throws IOException
+	 *            if the body can't be read
+	 */
+	public static InputStream body(HttpURLConnection connection)
+			throws IOException {
+		InputStream in = connection.getInputStream();
+		if ("gzip".equalsIgnoreCase(connection.getContentEncoding())) {
+			return new GZIPInputStream(in);
+		}
+		return in;
+	}
+
+	/**
+	 * Sizes the JVM's pool of kept-alive connections for this config's fetch
+	 * threads. The JVM reads this once, so it only has an effect before the
+	 * first connection is opened, and never overrides http.maxConnections set
+	 * on the command line.
+	 */
+	public void applyConnectionPool() {
+		if (this.keepAlive && System.getProperty("http.maxConnections") == null) {
+			System.setProperty("http.maxConnections",
+					String.valueOf(Math.max(5, this.concurrency)));
+		}
+	}
+}
@@ -0,0 +1,308 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.jsoup.Connection;
+
+/**
+ * Runs page fetches concurrently on a fixed-size pool of threads. Requests to
+ * any one host are spaced out by a minimum interval, and failed requests
+ * (I/O errors, HTTP 429 and 5xx responses) are retried with exponential
+ * backoff.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class FetchExecutor {
+
+	private final ExecutorService pool;
+	private final FetchConfig config;
+	private final long minHostInterval;
+	private final int maxAttempts;
+	private final long initialBackoff;
+
+	// host : earliest time (ms) the next request to that host may be sent
+	private final HashMap<String, Long> nextRequest = new HashMap<String, Long>();
+	// tasks submitted by invokeAll that have not finished
+	private final LinkedHashSet<Future<?>> inFlight = new LinkedHashSet<Future<?>>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param concurrency
+	 *           Maximum number of fetches in flight at once
+	 * @param minHostInterval
+	 *           Minimum milliseconds between two requests to the same host
+	 * @param maxAttempts
+	 *           Number of times a request is tried before giving up
+	 * @param initialBackoff
+	 *           Milliseconds to wait before the first retry; doubled for each
+	 *           retry after that
+	 */
+	public FetchExecutor(int concurrency, long minHostInterval,
+			int maxAttempts, long initialBackoff) {
+		this(new FetchConfig().setConcurrency(concurrency).setRetries(
+				minHostInterval, maxAttempts, initialBackoff));
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param config
+	 *           Pool size, per-host spacing and retries of fetches, and
+	 *           settings applied to pages opened as streams
+	 */
+	public FetchExecutor(FetchConfig config) {
+		this.pool = Executors.newFixedThreadPool(config.getConcurrency(),
+				new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "wiki-fetch");
+						t.setDaemon(true); // never keeps the application alive
+						return t;
+					}
+				});
+		this.config = config;
+		this.minHostInterval = config.getHostInterval();
+		this.maxAttempts = config.getAttempts();
+		this.initialBackoff = config.getBackoff();
+	}
+
+	/**
+	 * Runs a batch of tasks on the pool and waits for all of them
+	 *
+	 * @param tasks
+	 *           Tasks to be run
+	 * @return Results, in the same order as tasks. A task that failed has a
+	 *         null result (its exception is printed).
+	 * @throws CancellationException
+	 *            if the calling thread is interrupted while waiting (tasks
+	 *            still running are cancelled), or cancelAll was called
+	 */
+	public <T> ArrayList<T> invokeAll(List<? extends Callable<T>> tasks) {
+		return this.invokeAll(tasks, null);
+	}
+
+	/**
+	 * Runs a batch of tasks on the pool for one question and waits for all of
+	 * them
+	 *
+	 * @param tasks
+	 *           Tasks to be run
+	 * @param tracker
+	 *           Tracker of the question the tasks run for, which can cancel
+	 *           them (null for none)
+	 * @return Results, in the same order as tasks. A task that failed has a
+	 *         null result (its exception is printed).
+	 * @throws CancellationException
+	 *            if the calling thread is interrupted while waiting (tasks
+	 *            still running are cancelled), or the tracker or cancelAll
+	 *            cancelled the batch
+	 */
+	public <T> ArrayList<T> invokeAll(List<? extends Callable<T>> tasks,
+			FetchTracker tracker) {
+		ArrayList<Future<T>> futures = new ArrayList<Future<T>>();
+		synchronized (this.inFlight) {
+			for (Callable<T> task : tasks) {
+				Future<T> f = this.pool.submit(task);
+				futures.add(f);
+				this.inFlight.add(f);
+				if (tracker != null) {
+					tracker.track(f);
+				}
+			}
+		}
+
+		ArrayList<T> results = new ArrayList<T>();
+		try {
+			for (Future<T> f : futures) {
+				try {
+					results.add(f.get());
+				} catch (ExecutionException e) {
+					e.getCause().printStackTrace();
+					results.add(null);
+				}
+			}
+		} catch (InterruptedException e) {
+			for (Future<T> f : futures) {
+				f.cancel(true);
+			}
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Fetch batch interrupted");
+		} finally {
+			synchronized (this.inFlight) {
+				this.inFlight.removeAll(futures);
+			}
+			if (tracker != null) {
+				for (Future<T> f : futures) {
+					tracker.untrack(f);
+				}
+			}
+		}
+
+		return results;
+	}
+
+	/**
+	 * Sends request, waiting for its host's turn and retrying with backoff if
+	 * it fails
+	 *
+	 * @param connection
+	 *           Prepared request (should ignore HTTP errors, so that status
+	 *           codes can be inspected)
+	 * @return Response to the last attempt
+	 * @throws IOException
+	 *            if every attempt failed with an I/O error
+	 */
+	public Connection.Response execute(Connection connection)
+			throws IOException {
+		String host = connection.request().url().getHost();
+		long backoff = this.initialBackoff;
+
+		for (int attempt = 1;; attempt++) {
+			this.awaitTurn(host);
+			try {
+				Connection.Response response = connection.execute();
+				// a read can't be interrupted; drop its result once it ends
+				if (Thread.currentThread().isInterrupted()) {
+					throw new InterruptedIOException("Fetch cancelled");
+				}
+				if (!FetchExecutor.isRetryable(response.statusCode())
+						|| attempt >= this.maxAttempts) {
+					return response;
+				}
+			} catch (InterruptedIOException e) {
+				throw e;
+			} catch (IOException e) {
+				if (attempt >= this.maxAttempts) {
+					throw e;
+				}
+			}
+
+			FetchExecutor.sleep(backoff);
+			backoff *= 2;
+		}
+	}
+
+	/**
+	 * Requests a page for streaming, waiting for its host's turn and retrying
+	 * with backoff if the request fails. Unlike execute, the body is not read
+	 * into memory. The request is made with the timeout, headers and
+	 * compression of this executor's config, and is conditional if validators
+	 * of a stored copy are given.
+	 *
+	 * @param url
+	 *           URL of page to be requested
+	 * @param etag
+	 *           ETag of the stored copy (null for none)
+	 * @param lastModified
+	 *           Last-Modified of the stored copy (null for none)
+	 * @return Connection whose response is 200, with the body to be read by
+	 *         FetchConfig.body, or 304 if the stored copy is unchanged
+	 * @throws IOException
+	 *            if every attempt failed, or the server answered with an error
+	 */
+	public HttpURLConnection connect(URL url, String etag, String lastModified)
+			throws IOException {
+		long backoff = this.initialBackoff;
+
+		for (int attempt = 1;; attempt++) {
+			this.awaitTurn(url.getHost());
+			HttpURLConnection connection = (HttpURLConnection) url
+					.openConnection();
+			this.config.configure(connection);
+			if (etag != null) {
+				connection.setRequestProperty("If-None-Match", etag);
+			}
+			if (lastModified != null) {
+				connection.setRequestProperty("If-Modified-Since", lastModified);
+			}
+			int statusCode = -1;
+			try {
+				statusCode = connection.getResponseCode();
+			} catch (InterruptedIOException e) {
+				throw e;
+			} catch (IOException e) {
+				if (attempt >= this.maxAttempts) {
+					throw e;
+				}
+			}
+
+			if (statusCode == 200
+					|| (statusCode == 304 && (etag != null || lastModified != null))) {
+				return connection;
+			}
+			connection.disconnect();
+			if (statusCode != -1
+					&& (!FetchExecutor.isRetryable(statusCode)
+							|| attempt >= this.maxAttempts)) {
+				throw new IOException("HTTP " + statusCode + " fetching " + url);
+			}
+
+			FetchExecutor.sleep(backoff);
+			backoff *= 2;
+		}
+	}
+
+	/**
+	 * Cancels every batch task not yet finished, interrupting those running;
+	 * invokeAll calls waiting on them throw CancellationException
+	 */
+	public void cancelAll() {
+		synchronized (this.inFlight) {
+			for (Future<?> f : this.inFlight) {
+				f.cancel(true);
+			}
+			this.inFlight.clear();
+		}
+	}
+
+	/**
+	 * Stops the pool's threads once running fetches finish
+	 */
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	// reserves the next free slot for host and sleeps until it arrives
+	private void awaitTurn(String host) throws InterruptedIOException {
+		long wait;
+		synchronized (this.nextRequest) {
+			long now = System.currentTimeMillis();
+			Long next = this.nextRequest.get(host);
+			long slot = (next == null || next < now) ? now : next;
+
+			this.nextRequest.put(host, slot + this.minHostInterval);
+			wait = slot - now;
+		}
+
+		if (wait > 0) {
+			FetchExecutor.sleep(wait);
+		}
+	}
+
+	private static boolean isRetryable(int statusCode) {
+		return statusCode == 429 || statusCode >= 500;
+	}
+
+	private static void sleep(long millis) throws InterruptedIOException {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Fetch interrupted");
+		}
+	}
+}
@@ -0,0 +1,20 @@
+/**
+ * Receives progress of page loads as a question is answered
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public interface FetchProgress {
+
+	/**
+	 * Called each time a page load finishes, whether or not it succeeded. May be
+	 * called from any thread.
+	 *
+	 * @param fetched
+	 *           Number of pages loaded so far
+	 * @param total
+	 *           Number of pages asked for so far
+	 */
+	void pagesFetched(int fetched, int total);
+}
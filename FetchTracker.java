@@ -0,0 +1,155 @@
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Progress and cancellation of the page loads made for one question. A
+ * tracker is bound to the thread answering the question: pages that thread
+ * loads, and batches it hands to the fetch pool, are counted towards it, and
+ * cancel() aborts only those. Questions answered at the same time each have
+ * their own tracker, so one never reports into or cancels another.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class FetchTracker {
+
+	// tracker of the question the current thread is answering
+	private static final ThreadLocal<FetchTracker> bound = new ThreadLocal<FetchTracker>();
+
+	private final FetchProgress progress;
+	// guarded by this
+	private int requested;
+	private int fetched;
+	private boolean cancelled;
+	private final HashSet<Future<?>> inFlight = new HashSet<Future<?>>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param progress
+	 *           Receiver of pages fetched / pages asked for (null for none)
+	 */
+	public FetchTracker(FetchProgress progress) {
+		this.progress = progress;
+	}
+
+	/**
+	 * Tracker bound to the calling thread
+	 *
+	 * @return Tracker, or null if none is bound
+	 */
+	public static FetchTracker current() {
+		return FetchTracker.bound.get();
+	}
+
+	/**
+	 * Counts page loads made on the calling thread towards this tracker, until
+	 * unbind is called
+	 */
+	public void bind() {
+		FetchTracker.bound.set(this);
+	}
+
+	/**
+	 * Stops counting page loads made on the calling thread
+	 */
+	public static void unbind() {
+		FetchTracker.bound.remove();
+	}
+
+	/**
+	 * Wraps a task handed to another thread, so that it runs under the tracker
+	 * of the calling thread
+	 *
+	 * @param task
+	 *           Task to be run
+	 * @return Task bound to the caller's tracker (task itself if none is bound)
+	 */
+	public static <T> Callable<T> inherit(final Callable<T> task) {
+		final FetchTracker tracker = FetchTracker.current();
+		if (tracker == null) {
+			return task;
+		}
+		return new Callable<T>() {
+			public T call() throws Exception {
+				FetchTracker outer = FetchTracker.current();
+				tracker.bind();
+				try {
+					return task.call();
+				} finally {
+					FetchTracker.bound.set(outer);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Counts pages asked for
+	 *
+	 * @param pages
+	 *           Number of page loads started
+	 */
+	public synchronized void pagesRequested(int pages) {
+		this.requested += pages;
+	}
+
+	/**
+	 * Counts a finished page load, whether or not it succeeded, and reports
+	 * it. Reports are made one at a time so that counts never go backwards.
+	 */
+	public synchronized void pageDone() {
+		this.fetched++;
+		if (this.progress != null) {
+			this.progress.pagesFetched(this.fetched, this.requested);
+		}
+	}
+
+	/**
+	 * Registers a fetch running for this tracker's question
+	 *
+	 * @param fetch
+	 *           Fetch submitted to the pool
+	 * @return false (and the fetch is cancelled) if the tracker has been
+	 *         cancelled
+	 */
+	public synchronized boolean track(Future<?> fetch) {
+		if (this.cancelled) {
+			fetch.cancel(true);
+			return false;
+		}
+		this.inFlight.add(fetch);
+		return true;
+	}
+
+	/**
+	 * Forgets a fetch that has finished
+	 *
+	 * @param fetch
+	 *           Fetch registered with track
+	 */
+	public synchronized void untrack(Future<?> fetch) {
+		this.inFlight.remove(fetch);
+	}
+
+	/**
+	 * Cancels this question's fetches in flight, interrupting those running,
+	 * and any it submits from now on. The thread answering the question should
+	 * also be interrupted.
+	 */
+	public synchronized void cancel() {
+		this.cancelled = true;
+		for (Future<?> f : this.inFlight) {
+			f.cancel(true);
+		}
+		this.inFlight.clear();
+	}
+
+	/**
+	 * @return true once cancel has been called
+	 */
+	public synchronized boolean isCancelled() {
+		return this.cancelled;
+	}
+}
@@ -0,0 +1,106 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rows grouped by key in a single pass. Groups are numbered in order of first
+ * appearance; each keeps a running value (a count of its rows, or a sum) in a
+ * StringIntMap, without boxing, and its rows in row order. NominationQuery
+ * groups rows through it.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class Grouping {
+
+	// group key : value
+	private final StringIntMap values = new StringIntMap();
+	// rows of each group, by number of group
+	private final ArrayList<ArrayList<HashedInfo>> groupRows = new ArrayList<ArrayList<HashedInfo>>();
+
+	/**
+	 * Adds a row to the group of its key, creating the group if it is new
+	 *
+	 * @param key
+	 *           Key of row's group
+	 * @param row
+	 *           Row to be added
+	 * @param value
+	 *           Added to the group's value (1 to count rows)
+	 * @return Number of row's group
+	 */
+	public int add(String key, HashedInfo row, int value) {
+		int g = this.group(key);
+		this.values.incrementAt(g, value);
+		this.groupRows.get(g).add(row);
+		return g;
+	}
+
+	/**
+	 * Appends the groups of rows that came after those added so far, e.g. when
+	 * rows are grouped in chunks. Groups new to this grouping are numbered
+	 * after its own, in the order later numbers them.
+	 *
+	 * @param later
+	 *           Grouping of later rows
+	 */
+	public void addAll(Grouping later) {
+		for (int lg = 0; lg < later.size(); lg++) {
+			int g = this.group(later.getKey(lg));
+			this.values.incrementAt(g, later.getValue(lg));
+			this.groupRows.get(g).addAll(later.groupRows.get(lg));
+		}
+	}
+
+	/**
+	 * Number of groups
+	 *
+	 * @return Number of distinct keys
+	 */
+	public int size() {
+		return this.values.size();
+	}
+
+	/**
+	 * Accessor for the key of a group
+	 *
+	 * @param group
+	 *           Number of group
+	 * @return Key of group
+	 */
+	public String getKey(int group) {
+		return this.values.keyAt(group);
+	}
+
+	/**
+	 * Accessor for the value of a group
+	 *
+	 * @param group
+	 *           Number of group
+	 * @return Count or sum of group
+	 */
+	public int getValue(int group) {
+		return this.values.valueAt(group);
+	}
+
+	/**
+	 * Accessor for the rows of a group
+	 *
+	 * @param group
+	 *           Number of group
+	 * @return Rows of group, in the order they were added
+	 */
+	public List<HashedInfo> getRows(int group) {
+		return Collections.unmodifiableList(this.groupRows.get(group));
+	}
+
+	// number of key's group, created if new
+	private int group(String key) {
+		int g = this.values.add(key);
+		if (g == this.groupRows.size()) {
+			this.groupRows.add(new ArrayList<HashedInfo>());
+		}
+		return g;
+	}
+}
@@ -1,44 +1,148 @@
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
- * Wrapper for HashMap<String,String> Object
- * 
+ * Row of search results: values held by position in a shared RowSchema, with
+ * a read-only Map view for lookup by key
+ *
  * @author Chae Jubb
  * @version 1.0
- * 
+ *
  */
 public class HashedInfo {
 
-	private final HashMap<String, String> infoHash;
+	private final RowSchema schema;
+	private final String[] values;
+	private Map<String, String> view;
 
 	/**
-	 * Constructor. Creates object identical to parameter and stores as instance
-	 * variable of this object
-	 * 
+	 * Constructor. Takes values from the given map, which is not kept.
+	 *
 	 * @param hash
-	 *           the HashMap<String,String> to be wrapped
+	 *           Map of column name to value
 	 */
-	public HashedInfo(HashMap<String, String> hash) {
-		this.infoHash = new HashMap<String, String>();
-		this.infoHash.putAll(hash);
+	public HashedInfo(Map<String, String> hash) {
+		ArrayList<String> columns = new ArrayList<String>(hash.size());
+		this.values = new String[hash.size()];
+		for (Map.Entry<String, String> e : hash.entrySet()) {
+			this.values[columns.size()] = e.getValue();
+			columns.add(e.getKey());
+		}
+		this.schema = RowSchema.of(columns);
 	}
 
 	/**
-	 * Accessor for HashMap Object
-	 * 
-	 * @return HashMap Object wrapped by this class
+	 * Constructor
+	 *
+	 * @param schema
+	 *           Columns of row
+	 * @param values
+	 *           Value of each column, by position in schema. The array is kept,
+	 *           not copied, so must not be altered afterwards.
 	 */
-	public HashMap<String, String> getHasher() {
-		return this.infoHash;
+	public HashedInfo(RowSchema schema, String[] values) {
+		if (values.length != schema.size()) {
+			throw new IllegalArgumentException(values.length
+					+ " values for columns " + schema);
+		}
+		this.schema = schema;
+		this.values = values;
 	}
 
 	/**
-	 * Accessor for String representation of HashMap
-	 * 
-	 * @return String representation of HashMap Object wrapped by this class
+	 * Looks up a value by column name
+	 *
+	 * @param key
+	 *           Column name
+	 * @return Value, or null if row has no such column
+	 */
+	public String get(String key) {
+		int index = this.schema.indexOf(key);
+		return index == -1 ? null : this.values[index];
+	}
+
+	/**
+	 * Accessor for columns of row
+	 *
+	 * @return this.schema
+	 */
+	public RowSchema getSchema() {
+		return this.schema;
+	}
+
+	/**
+	 * Accessor for Map view of row
+	 *
+	 * @return Read-only Map of column name to value, backed by this row
+	 */
+	public Map<String, String> getHasher() {
+		if (this.view == null) {
+			this.view = new RowView();
+		}
+		return this.view;
+	}
+
+	/**
+	 * Accessor for String representation of row
+	 *
+	 * @return String representation of Map view of row
 	 */
 	public String toString() {
-		return this.infoHash.toString();
+		return this.getHasher().toString();
 	}
 
+	// read-only Map over schema and values; lookups index straight into values
+	private class RowView extends AbstractMap<String, String> {
+
+		public String get(Object key) {
+			return key instanceof String ? HashedInfo.this.get((String) key)
+					: null;
+		}
+
+		public boolean containsKey(Object key) {
+			return key instanceof String
+					&& HashedInfo.this.schema.indexOf((String) key) != -1;
+		}
+
+		public int size() {
+			return HashedInfo.this.values.length;
+		}
+
+		public Set<Map.Entry<String, String>> entrySet() {
+			return new AbstractSet<Map.Entry<String, String>>() {
+				public int size() {
+					return HashedInfo.this.values.length;
+				}
+
+				public Iterator<Map.Entry<String, String>> iterator() {
+					return new Iterator<Map.Entry<String, String>>() {
+						private int next = 0;
+
+						public boolean hasNext() {
+							return this.next < HashedInfo.this.values.length;
+						}
+
+						public Map.Entry<String, String> next() {
+							if (!this.hasNext()) {
+								throw new NoSuchElementException();
+							}
+							int i = this.next++;
+							return new AbstractMap.SimpleImmutableEntry<String, String>(
+									HashedInfo.this.schema.getColumn(i),
+									HashedInfo.this.values[i]);
+						}
+
+						public void remove() {
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+			};
+		}
+	}
 }
@@ -0,0 +1,328 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+import org.jsoup.parser.Parser;
+
+/**
+ * Pull-based HTML tokenizer. Reads a page from a character stream one tag or
+ * run of text at a time, so that a page can be scanned without ever holding
+ * all of it (or a tree built from it) in memory. Comments, doctypes and the
+ * contents of script and style elements are skipped; entities in text and
+ * attribute values are decoded.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class HtmlTokenizer {
+
+	/** Token type of an opening (or self-closing) tag */
+	public static final int START_TAG = 1;
+	/** Token type of a closing tag */
+	public static final int END_TAG = 2;
+	/** Token type of a run of text between tags */
+	public static final int TEXT = 3;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	private final Reader in;
+	private final char[] buffer = new char[HtmlTokenizer.BUFFER_SIZE];
+	private int position;
+	private int limit;
+
+	private int type;
+	private String tagName;
+	private boolean selfClosing;
+	private final ArrayList<String> attributeNames = new ArrayList<String>();
+	private final ArrayList<String> attributeValues = new ArrayList<String>();
+	private final StringBuilder text = new StringBuilder();
+
+	// set after the start tag of an element whose contents are skipped
+	private String rawTextElement;
+
+	/**
+	 * Constructor
+	 *
+	 * @param in
+	 *           Stream of page to be read; read only as far as tokens are asked
+	 *           for
+	 */
+	public HtmlTokenizer(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * Advances to the next token
+	 *
+	 * @return false once the end of the page is reached
+	 * @throws IOException
+	 *            if the page could not be read
+	 */
+	public boolean next() throws IOException {
+		if (this.rawTextElement != null) {
+			String element = this.rawTextElement;
+			this.rawTextElement = null;
+			this.skipPast("</" + element);
+			this.skipPast(">");
+			this.setTag(END_TAG, element);
+			return true;
+		}
+
+		this.text.setLength(0);
+		int c;
+		while ((c = this.read()) != -1) {
+			if (c != '<') {
+				this.text.append((char) c);
+				continue;
+			}
+
+			int peek = this.peek();
+			boolean startsTag = peek == '/' || peek == '!' || peek == '?'
+					|| Character.isLetter(peek);
+			if (!startsTag) {
+				this.text.append('<');
+			} else if (this.text.length() != 0) {
+				// text before this tag is a token of its own
+				this.position--;
+				return this.emitText();
+			} else if (peek == '!' || peek == '?') {
+				this.skipMarkup();
+			} else {
+				this.readTag();
+				return true;
+			}
+		}
+
+		if (this.text.length() != 0) {
+			return this.emitText();
+		}
+		this.type = 0;
+		return false;
+	}
+
+	/**
+	 * Accessor for type of current token
+	 *
+	 * @return START_TAG, END_TAG or TEXT
+	 */
+	public int getType() {
+		return this.type;
+	}
+
+	/**
+	 * Accessor for name of current tag
+	 *
+	 * @return Lower-case tag name, or null if current token is text
+	 */
+	public String getTagName() {
+		return this.type == TEXT ? null : this.tagName;
+	}
+
+	/**
+	 * Whether current start tag closes itself (e.g. &lt;br /&gt;)
+	 *
+	 * @return true if tag ends with "/&gt;"
+	 */
+	public boolean isSelfClosing() {
+		return this.selfClosing;
+	}
+
+	/**
+	 * Returns value of an attribute of the current start tag
+	 *
+	 * @param name
+	 *           Lower-case attribute name
+	 * @return Decoded value ("" for attributes without one), or null if the tag
+	 *         has no such attribute
+	 */
+	public String getAttribute(String name) {
+		int i = this.attributeNames.indexOf(name);
+		return i == -1 ? null : this.attributeValues.get(i);
+	}
+
+	/**
+	 * Accessor for number of attributes of the current start tag
+	 *
+	 * @return Number of attributes
+	 */
+	public int getAttributeCount() {
+		return this.attributeNames.size();
+	}
+
+	/**
+	 * Accessor for current run of text
+	 *
+	 * @return Decoded text, with whitespace as in the page, or null if current
+	 *         token is a tag
+	 */
+	public String getText() {
+		return this.type == TEXT ? this.text.toString() : null;
+	}
+
+	/**
+	 * Closes the underlying stream
+	 *
+	 * @throws IOException
+	 *            if the stream could not be closed
+	 */
+	public void close() throws IOException {
+		this.in.close();
+	}
+
+	private boolean emitText() {
+		this.type = TEXT;
+		if (this.text.indexOf("&") != -1) {
+			String decoded = Parser.unescapeEntities(this.text.toString(), false);
+			this.text.setLength(0);
+			this.text.append(decoded);
+		}
+		return true;
+	}
+
+	private void setTag(int tagType, String name) {
+		this.type = tagType;
+		this.tagName = name;
+		this.selfClosing = false;
+		this.attributeNames.clear();
+		this.attributeValues.clear();
+	}
+
+	// reads the rest of a tag, after its '<'
+	private void readTag() throws IOException {
+		boolean closing = this.peek() == '/';
+		if (closing) {
+			this.read();
+		}
+
+		StringBuilder token = new StringBuilder();
+		int c = this.readName(token);
+		this.setTag(closing ? END_TAG : START_TAG, token.toString()
+				.toLowerCase());
+
+		while (c != -1 && c != '>') {
+			if (c == '/') {
+				this.selfClosing = this.peek() == '>';
+				c = this.read();
+				continue;
+			}
+			if (HtmlTokenizer.isSpace(c)) {
+				c = this.read();
+				continue;
+			}
+
+			// attribute name, then optional value
+			token.setLength(0);
+			token.append((char) c);
+			c = this.readName(token);
+			String name = token.toString().toLowerCase();
+			while (HtmlTokenizer.isSpace(c)) {
+				c = this.read();
+			}
+
+			String value = "";
+			if (c == '=') {
+				c = this.read();
+				while (HtmlTokenizer.isSpace(c)) {
+					c = this.read();
+				}
+
+				token.setLength(0);
+				if (c == '"' || c == '\'') {
+					int quote = c;
+					while ((c = this.read()) != -1 && c != quote) {
+						token.append((char) c);
+					}
+					c = this.read();
+				} else {
+					while (c != -1 && c != '>' && !HtmlTokenizer.isSpace(c)) {
+						token.append((char) c);
+						c = this.read();
+					}
+				}
+				value = token.indexOf("&") == -1 ? token.toString() : Parser
+						.unescapeEntities(token.toString(), true);
+			}
+
+			if (!closing && !this.attributeNames.contains(name)) {
+				this.attributeNames.add(name);
+				this.attributeValues.add(value);
+			}
+		}
+
+		if (!closing
+				&& !this.selfClosing
+				&& (this.tagName.equals("script") || this.tagName.equals("style"))) {
+			this.rawTextElement = this.tagName;
+		}
+	}
+
+	// appends characters up to whitespace, '=', '/' or '>'; returns the
+	// character that ended the name
+	private int readName(StringBuilder name) throws IOException {
+		int c;
+		while ((c = this.read()) != -1 && !HtmlTokenizer.isSpace(c) && c != '='
+				&& c != '>' && (c != '/' || name.length() == 0)) {
+			name.append((char) c);
+		}
+		return c;
+	}
+
+	// skips comments, doctypes and processing instructions
+	private void skipMarkup() throws IOException {
+		if (this.read() == '!' && this.peek() == '-') {
+			this.skipPast("-->");
+		} else {
+			this.skipPast(">");
+		}
+	}
+
+	// reads up to and including the next (case-insensitive) occurrence of
+	// target
+	private void skipPast(String target) throws IOException {
+		int matched = 0, c;
+		while (matched < target.length() && (c = this.read()) != -1) {
+			if (Character.toLowerCase((char) c) == target.charAt(matched)) {
+				matched++;
+			} else {
+				matched = (Character.toLowerCase((char) c) == target.charAt(0)) ? 1
+						: 0;
+			}
+		}
+	}
+
+	private int read() throws IOException {
+		if (this.position == this.limit && !this.fill()) {
+			return -1;
+		}
+		return this.buffer[this.position++];
+	}
+
+	private int peek() throws IOException {
+		if (this.position == this.limit && !this.fill()) {
+			return -1;
+		}
+		return this.buffer[this.position];
+	}
+
+	// refills buffer, keeping the last character read so that it can be
+	// stepped back over
+	private boolean fill() throws IOException {
+		int keep = 0;
+		if (this.limit > 0) {
+			this.buffer[0] = this.buffer[this.limit - 1];
+			keep = 1;
+		}
+		int read = this.in.read(this.buffer, keep, this.buffer.length - keep);
+		if (read <= 0) {
+			return false;
+		}
+		this.position = keep;
+		this.limit = keep + read;
+		return true;
+	}
+
+	private static boolean isSpace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+	}
+}
@@ -0,0 +1,158 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded, least-recently-used cache. Each entry carries a weight
+ * (roughly its size in bytes) and the least recently used entries are evicted
+ * once the total weight goes over the limit. Safe for use from multiple
+ * threads.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ * @param <K>
+ *           key type
+ * @param <V>
+ *           value type
+ */
+public class LRUCache<K, V> {
+
+	private final LinkedHashMap<K, V> values;
+	private final LinkedHashMap<K, Long> weights;
+	private final long maxWeight;
+	private long totalWeight;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Constructor
+	 *
+	 * @param maxWeight
+	 *           Maximum total weight held before least recently used entries
+	 *           are evicted
+	 */
+	public LRUCache(long maxWeight) {
+		this.values = new LinkedHashMap<K, V>(16, 0.75f, true);
+		this.weights = new LinkedHashMap<K, Long>();
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * Looks up a value, marking it as most recently used
+	 *
+	 * @param key
+	 *           Key to be looked up
+	 * @return stored value, or null if not present
+	 */
+	public synchronized V get(K key) {
+		V value = this.values.get(key);
+		if (value == null) {
+			this.misses++;
+		} else {
+			this.hits++;
+		}
+		return value;
+	}
+
+	/**
+	 * Stores a value, evicting least recently used entries as needed. Values
+	 * heavier than the whole cache are not stored.
+	 *
+	 * @param key
+	 *           Key to store value under
+	 * @param value
+	 *           Value to be stored
+	 * @param weight
+	 *           Approximate size of value in bytes
+	 */
+	public synchronized void put(K key, V value, long weight) {
+		this.remove(key);
+		if (weight > this.maxWeight) {
+			return;
+		}
+
+		this.values.put(key, value);
+		this.weights.put(key, weight);
+		this.totalWeight += weight;
+
+		// values iterates from least to most recently used
+		Iterator<Map.Entry<K, V>> eldest = this.values.entrySet().iterator();
+		while (this.totalWeight > this.maxWeight && eldest.hasNext()) {
+			K eldestKey = eldest.next().getKey();
+			eldest.remove();
+			this.totalWeight -= this.weights.remove(eldestKey);
+			this.evictions++;
+		}
+	}
+
+	/**
+	 * Removes a value if present
+	 *
+	 * @param key
+	 *           Key of value to be removed
+	 */
+	public synchronized void remove(K key) {
+		Long weight = this.weights.remove(key);
+		if (weight != null) {
+			this.values.remove(key);
+			this.totalWeight -= weight;
+		}
+	}
+
+	/**
+	 * Removes every value
+	 */
+	public synchronized void clear() {
+		this.values.clear();
+		this.weights.clear();
+		this.totalWeight = 0;
+	}
+
+	/**
+	 * Accessor for number of lookups that found a value
+	 *
+	 * @return this.hits
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Accessor for number of lookups that found nothing
+	 *
+	 * @return this.misses
+	 */
+	public synchronized long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Accessor for number of values evicted to stay under the weight limit
+	 *
+	 * @return this.evictions
+	 */
+	public synchronized long getEvictions() {
+		return this.evictions;
+	}
+
+	/**
+	 * Accessor for total weight currently held
+	 *
+	 * @return this.totalWeight
+	 */
+	public synchronized long getWeight() {
+		return this.totalWeight;
+	}
+
+	/**
+	 * Returns String representation of cache statistics
+	 */
+	public synchronized String toString() {
+		return "entries: " + this.values.size() + "; weight: " + this.totalWeight
+				+ "/" + this.maxWeight + "; hits: " + this.hits + "; misses: "
+				+ this.misses + "; evictions: " + this.evictions;
+	}
+}
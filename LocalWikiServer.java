@@ -0,0 +1,234 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stand-in for Wikipedia on localhost, replaying saved pages (a fixtures
+ * directory with an index.properties of URL=file, as read by PageCache.seed).
+ * Each response is held back by a fixed latency plus random jitter, to mimic
+ * the real site, and every request is counted, by path, along with the bytes
+ * sent (compressed, for clients that accept gzip). Pages not saved are
+ * answered with 404.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class LocalWikiServer {
+
+	// path (e.g. /wiki/Portal:Academy_Award) : saved page
+	private final HashMap<String, byte[]> pages = new HashMap<String, byte[]>();
+	private final long latency;
+	private final long jitter;
+	private final Random random = new Random();
+
+	private HttpServer server;
+	private ExecutorService threads;
+
+	// path : number of requests, since last reset
+	private final TreeMap<String, Integer> requests = new TreeMap<String, Integer>();
+	private long bytesSent;
+	private String lastUserAgent;
+
+	/**
+	 * Constructor. Loads the saved pages; call start() to begin serving them.
+	 *
+	 * @param fixtures
+	 *           Directory of saved pages and their index.properties
+	 * @param latency
+	 *           Milliseconds each response is held back
+	 * @param jitter
+	 *           Up to this many more milliseconds, at random, per response
+	 * @throws IOException
+	 *            if the pages can't be read
+	 */
+	public LocalWikiServer(File fixtures, long latency, long jitter)
+			throws IOException {
+		this.latency = latency;
+		this.jitter = jitter;
+
+		Properties index = new Properties();
+		InputStream in = new FileInputStream(new File(fixtures, "index.properties"));
+		try {
+			index.load(in);
+		} finally {
+			in.close();
+		}
+		for (String url : index.stringPropertyNames()) {
+			this.pages.put(URI.create(url).getRawPath(), LocalWikiServer
+					.readFully(new File(fixtures, index.getProperty(url))));
+		}
+	}
+
+	/**
+	 * Starts serving on a free port of localhost
+	 *
+	 * @throws IOException
+	 *            if the server can't be started
+	 */
+	public synchronized void start() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		this.server.createContext("/", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				LocalWikiServer.this.serve(exchange);
+			}
+		});
+		this.threads = Executors.newCachedThreadPool();
+		this.server.setExecutor(this.threads);
+		this.server.start();
+	}
+
+	/**
+	 * Stops serving
+	 */
+	public synchronized void stop() {
+		if (this.server != null) {
+			this.server.stop(0);
+			this.threads.shutdownNow();
+			this.server = null;
+		}
+	}
+
+	/**
+	 * Root URL of the stand-in site, to be used in place of
+	 * http://en.wikipedia.org
+	 *
+	 * @return e.g. http://localhost:51234
+	 */
+	public synchronized String getRootURL() {
+		return "http://localhost:" + this.server.getAddress().getPort();
+	}
+
+	/**
+	 * Starts counting requests and bytes from zero
+	 */
+	public synchronized void reset() {
+		this.requests.clear();
+		this.bytesSent = 0;
+	}
+
+	/**
+	 * Number of requests since last reset
+	 *
+	 * @return Requests, over all paths
+	 */
+	public synchronized int getRequestCount() {
+		int count = 0;
+		for (int n : this.requests.values()) {
+			count += n;
+		}
+		return count;
+	}
+
+	/**
+	 * Requests since last reset, by path
+	 *
+	 * @return Copy of path : number of requests
+	 */
+	public synchronized TreeMap<String, Integer> getRequests() {
+		return new TreeMap<String, Integer>(this.requests);
+	}
+
+	/**
+	 * User-Agent header of the latest request
+	 *
+	 * @return this.lastUserAgent, or null if none was sent
+	 */
+	public synchronized String getLastUserAgent() {
+		return this.lastUserAgent;
+	}
+
+	/**
+	 * Bytes of response bodies sent since last reset
+	 *
+	 * @return this.bytesSent
+	 */
+	public synchronized long getBytesSent() {
+		return this.bytesSent;
+	}
+
+	private void serve(HttpExchange exchange) throws IOException {
+		String path = exchange.getRequestURI().getRawPath();
+		long delay;
+		synchronized (this) {
+			Integer seen = this.requests.get(path);
+			this.requests.put(path, seen == null ? 1 : seen + 1);
+			this.lastUserAgent = exchange.getRequestHeaders().getFirst("User-Agent");
+			delay = this.latency
+					+ (this.jitter > 0 ? (long) (this.random.nextDouble() * this.jitter)
+							: 0);
+		}
+
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			exchange.close();
+			return;
+		}
+
+		byte[] page = this.pages.get(path);
+		int status = 200;
+		if (page == null) {
+			status = 404;
+			page = ("<html><body>No saved page for " + path + "</body></html>")
+					.getBytes("UTF-8");
+		}
+
+		exchange.getResponseHeaders().set("Content-Type",
+				"text/html; charset=UTF-8");
+		String accepted = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if (accepted != null && accepted.contains("gzip")) {
+			page = LocalWikiServer.gzip(page);
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		}
+		exchange.sendResponseHeaders(status, page.length);
+		OutputStream body = exchange.getResponseBody();
+		try {
+			body.write(page);
+		} finally {
+			body.close();
+		}
+		synchronized (this) {
+			this.bytesSent += page.length;
+		}
+	}
+
+	private static byte[] gzip(byte[] page) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		GZIPOutputStream zipped = new GZIPOutputStream(out);
+		zipped.write(page);
+		zipped.close();
+		return out.toByteArray();
+	}
+
+	private static byte[] readFully(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values (call times, page sizes, row
+ * counts). Values are counted in power-of-two buckets, so recording one is a
+ * few atomic increments with no allocation, and percentiles are exact to
+ * within a factor of two.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class MetricHistogram implements MetricHistogramMBean {
+
+	// bucket b holds values in [2^(b-1), 2^b); bucket 0 holds 0
+	private static final int buckets = 64;
+
+	private final String name;
+	private final String unit;
+	private final AtomicLongArray counts = new AtomicLongArray(
+			MetricHistogram.buckets);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Constructor
+	 *
+	 * @param name
+	 *           Name shown in the metrics log line and JMX
+	 * @param unit
+	 *           Unit values are recorded in
+	 */
+	public MetricHistogram(String name, String unit) {
+		this.name = name;
+		this.unit = unit;
+	}
+
+	/**
+	 * Records a value, if metrics are enabled
+	 *
+	 * @param value
+	 *           Value to be recorded (negative values are counted as 0)
+	 */
+	public void record(long value) {
+		if (!ParserMetrics.isEnabled()) {
+			return;
+		}
+		value = Math.max(0, value);
+		this.counts.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+		this.count.incrementAndGet();
+		this.total.addAndGet(value);
+
+		long seen = this.max.get();
+		while (value > seen && !this.max.compareAndSet(seen, value)) {
+			seen = this.max.get();
+		}
+	}
+
+	/**
+	 * Records the time since start, in microseconds
+	 *
+	 * @param start
+	 *           Value returned by ParserMetrics.start() (0, when metrics were
+	 *           disabled, records nothing)
+	 */
+	public void stop(long start) {
+		if (start != 0) {
+			this.record((System.nanoTime() - start) / 1000);
+		}
+	}
+
+	/**
+	 * Accessor for name
+	 *
+	 * @return this.name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	public String getUnit() {
+		return this.unit;
+	}
+
+	public long getCount() {
+		return this.count.get();
+	}
+
+	public long getTotal() {
+		return this.total.get();
+	}
+
+	public double getMean() {
+		long n = this.count.get();
+		return n == 0 ? 0 : (double) this.total.get() / n;
+	}
+
+	public long getMax() {
+		return this.max.get();
+	}
+
+	public long getP50() {
+		return this.percentile(0.50);
+	}
+
+	public long getP90() {
+		return this.percentile(0.90);
+	}
+
+	public long getP99() {
+		return this.percentile(0.99);
+	}
+
+	/**
+	 * Upper bound of the bucket holding the given percentile
+	 *
+	 * @param p
+	 *           Fraction of values, e.g. 0.99
+	 * @return Value at most a factor of two above the percentile (never above
+	 *         the largest value recorded), or 0 if nothing is recorded
+	 */
+	public long percentile(double p) {
+		long n = 0;
+		for (int b = 0; b < MetricHistogram.buckets; b++) {
+			n += this.counts.get(b);
+		}
+		long rank = (long) Math.ceil(p * n);
+		long seen = 0;
+		for (int b = 0; b < MetricHistogram.buckets; b++) {
+			seen += this.counts.get(b);
+			if (seen >= rank && seen > 0) {
+				long upper = (b == 0) ? 0 : (b >= 63 ? Long.MAX_VALUE
+						: (1L << b) - 1);
+				return Math.min(upper, this.max.get());
+			}
+		}
+		return 0;
+	}
+
+	public void reset() {
+		for (int b = 0; b < MetricHistogram.buckets; b++) {
+			this.counts.set(b, 0);
+		}
+		this.count.set(0);
+		this.total.set(0);
+		this.max.set(0);
+	}
+
+	/**
+	 * @return e.g. "fetch n=12 mean=3400 p99<=8191 max=7912 us"
+	 */
+	public String toString() {
+		return String.format("%s n=%d mean=%.0f p99<=%d max=%d %s", this.name,
+				this.getCount(), this.getMean(), this.getP99(), this.getMax(),
+				this.unit);
+	}
+}
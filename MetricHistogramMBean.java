@@ -0,0 +1,54 @@
+/**
+ * Management interface of a MetricHistogram, as seen in JConsole / VisualVM
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public interface MetricHistogramMBean {
+
+	/**
+	 * @return Unit values are recorded in (e.g. us, bytes, rows)
+	 */
+	String getUnit();
+
+	/**
+	 * @return Number of values recorded
+	 */
+	long getCount();
+
+	/**
+	 * @return Sum of values recorded
+	 */
+	long getTotal();
+
+	/**
+	 * @return Mean of values recorded
+	 */
+	double getMean();
+
+	/**
+	 * @return Largest value recorded
+	 */
+	long getMax();
+
+	/**
+	 * @return Median, to within a factor of two
+	 */
+	long getP50();
+
+	/**
+	 * @return 90th percentile, to within a factor of two
+	 */
+	long getP90();
+
+	/**
+	 * @return 99th percentile, to within a factor of two
+	 */
+	long getP99();
+
+	/**
+	 * Forgets values recorded so far
+	 */
+	void reset();
+}
@@ -1,6 +1,22 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * Outside point of interaction with WikipediaParser class. Methods return in
@@ -13,13 +29,95 @@ import java.util.Iterator;
  */
 public class MovieInterpreter {
 
-	private WikipediaParser parser;
+	// years covered by the "quad threat" question (last is exclusive), and
+	// number of years searched at once
+	private static final int firstQuadYear = 1934;
+	private static final int lastQuadYear = 2013;
+	private static final int questionConcurrency = 8;
+
+	// film pages fetched at once while searching casts
+	private static final int starringBatch = 16;
+
+	// columns searched by bestLeadingActor
+	private static final List<String> roleColumns = Arrays.asList("Role",
+			"Role(s)");
+
+	// reads every row, for questions that only count them
+	private static final RowHandler everyRow = new RowHandler() {
+		public boolean row(HashedInfo row) {
+			return true;
+		}
+	};
+
+	// -D flag turning search terms into regular expressions
+	private static final String regexProperty = "wiki.query.regex";
+
+	private NominationSource parser;
+	private final ExecutorService questionPool;
+	private final TrigramIndex textIndex = new TrigramIndex();
+	private volatile boolean regexQueries = Boolean
+			.getBoolean(MovieInterpreter.regexProperty);
 
 	/**
-	 * Constructor. Creates association with WikipediaParser class.
+	 * Constructor. Creates association with WikipediaParser class, or, if the
+	 * wiki.store system property names a store built by NominationStore, answers
+	 * from that store without going to Wikipedia.
 	 */
 	public MovieInterpreter() {
-		parser = new WikipediaParser();
+		this(MovieInterpreter.defaultSource());
+	}
+
+	/**
+	 * Constructor. Answers questions from the given source.
+	 *
+	 * @param source
+	 *           Source of nomination data, e.g. a loaded NominationStore
+	 */
+	public MovieInterpreter(NominationSource source) {
+		parser = source;
+		questionPool = Executors.newFixedThreadPool(
+				MovieInterpreter.questionConcurrency, new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "wiki-question");
+						t.setDaemon(true); // never keeps the application alive
+						return t;
+					}
+				});
+	}
+
+	/**
+	 * Sets how search terms (film titles, roles, column values) are read. By
+	 * default they are literal text, found anywhere in a value; the
+	 * wiki.query.regex system property sets the initial mode.
+	 * 
+	 * @param regexQueries
+	 *           true to read search terms as regular expressions
+	 */
+	public void setRegexQueries(boolean regexQueries) {
+		this.regexQueries = regexQueries;
+	}
+
+	/**
+	 * Stops the threads questions (and their page loads) run on, once those
+	 * running finish. The interpreter can't be used afterwards.
+	 */
+	public void shutdown() {
+		this.questionPool.shutdown();
+		if (this.parser instanceof WikipediaParser) {
+			((WikipediaParser) this.parser).shutdown();
+		}
+	}
+
+	private static NominationSource defaultSource() {
+		String store = System.getProperty("wiki.store");
+		if (store != null) {
+			try {
+				return NominationStore.load(new File(store));
+			} catch (IOException e) {
+				e.printStackTrace(); // fall back to live pages
+			}
+		}
+		return new WikipediaParser();
 	}
 
 	/**
@@ -36,21 +134,29 @@ public class MovieInterpreter {
 	 *         movie. Title located at "Film".
 	 */
 	public ArrayList<HashedInfo> bestPictureSearch(String key, String value) {
-		ArrayList<HashedInfo> allNoms = this.parser.getDecadeTableInfo(
-				"Best_Picture", 0);
-		ArrayList<HashedInfo> searchResult = new ArrayList<HashedInfo>();
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("bestPictureSearch");
+		try {
+			ArrayList<HashedInfo> allNoms = this.parser.getDecadeTableInfo(
+					"Best_Picture", 0);
+			if (!this.regexQueries) {
+				this.textIndex.update("decade:Best_Picture", allNoms);
+				return this.textIndex.search("decade:Best_Picture", key, value);
+			}
 
-		for (HashedInfo m : allNoms) {
+			ArrayList<HashedInfo> searchResult = new ArrayList<HashedInfo>();
+			QueryMatcher query = QueryMatcher.compile(value, true);
 
-			String tempKey = m.getHasher().get(key);
-			if (tempKey != null) {
-				if (tempKey.matches(".*" + value + ".*")) {
+			for (HashedInfo m : allNoms) {
+				if (query.matches(m.get(key))) {
 					searchResult.add(m);
 				}
 			}
-		}
 
-		return searchResult;
+			return searchResult;
+		} finally {
+			timing.end();
+		}
 	}
 
 	/**
@@ -62,22 +168,31 @@ public class MovieInterpreter {
 	 * @return String array of writers. Each writer is entry in array.
 	 */
 	public String[] originalScreenplayWriters(String title) {
-		ArrayList<HashedInfo> allNoms = this.parser.getDecadeTableInfo(
-				"Original_Screenplay", 1);
-		title = title.trim();
-		String tempWriters;
-		for (HashedInfo m : allNoms) {
-			HashMap<String, String> tempHash = m.getHasher();
-			if (tempHash.get("Film") != null) {
-				if (tempHash.get("Film").matches(".*" + title + ".*")) {
-					tempWriters = tempHash.get("Screenwriter(s)");
-					return tempWriters.split(", ");
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("originalScreenplayWriters");
+		try {
+			final QueryMatcher query = QueryMatcher.compile(title.trim(),
+					this.regexQueries);
+			final HashedInfo[] found = new HashedInfo[1];
+			// the rest of the page is not read once the film is found
+			this.scanDecadeTable("Original_Screenplay", 1, new RowHandler() {
+				public boolean row(HashedInfo m) {
+					if (query.matches(m.get("Film"))) {
+						found[0] = m;
+						return false;
+					}
+					return true;
 				}
+			});
+			if (found[0] != null) {
+				return found[0].get("Screenwriter(s)").split(", ");
 			}
-		}
 
-		String[] toReturn = { "Film Not Found" };
-		return toReturn;
+			String[] toReturn = { "Film Not Found" };
+			return toReturn;
+		} finally {
+			timing.end();
+		}
 	}
 
 	/**
@@ -90,36 +205,41 @@ public class MovieInterpreter {
 	 * @return ArrayList of Strings of actors playing specified role.
 	 */
 	public ArrayList<String> bestLeadingActor(String playing) {
-		ArrayList<HashedInfo> allNoms = this.parser.getDecadeTableInfo(
-				"Best_Actor", 1);
-		ArrayList<String> searchResult = new ArrayList<String>();
-		String toAdd;
-
-		for (HashedInfo m : allNoms) {
-			HashMap<String, String> tempHash = m.getHasher();
-			toAdd = tempHash.get("Actor");
-
-			if (tempHash.get("Role") != null) {
-
-				if (tempHash.get("Role").matches(".*" + playing + ".*")) {
-					if (!searchResult.contains(toAdd)) {
-						searchResult.add(toAdd);
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("bestLeadingActor");
+		try {
+			ArrayList<HashedInfo> allNoms = this.parser.getDecadeTableInfo(
+					"Best_Actor", 1);
+			ArrayList<String> searchResult = new ArrayList<String>();
+			String toAdd;
+
+			// role column is titled either Role or Role(s)
+			ArrayList<HashedInfo> matches;
+			if (this.regexQueries) {
+				QueryMatcher query = QueryMatcher.compile(playing, true);
+				matches = new ArrayList<HashedInfo>();
+				for (HashedInfo m : allNoms) {
+					if (query.matches(m.get("Role")) || query.matches(m.get("Role(s)"))) {
+						matches.add(m);
 					}
 				}
+			} else {
+				this.textIndex.update("decade:Best_Actor", allNoms);
+				matches = this.textIndex.searchAny("decade:Best_Actor",
+						MovieInterpreter.roleColumns, playing);
 			}
 
-			// check alternate formatting of role column
-			if (tempHash.get("Role(s)") != null) {
-
-				if (tempHash.get("Role(s)").matches(".*" + playing + ".*")) {
-					if (!searchResult.contains(toAdd)) {
-						searchResult.add(toAdd);
-					}
+			for (HashedInfo m : matches) {
+				toAdd = m.get("Actor");
+				if (!searchResult.contains(toAdd)) {
+					searchResult.add(toAdd);
 				}
 			}
-		}
 
-		return searchResult;
+			return searchResult;
+		} finally {
+			timing.end();
+		}
 	}
 
 	/**
@@ -134,12 +254,18 @@ public class MovieInterpreter {
 	 *         misc. information
 	 */
 	public ArrayList<HashedInfo> getCategoryYearInfo(String category, int year) {
-		ArrayList<Person> allNoms = this.parser.getCategoryYearInfo(
-				category.trim(), year, 0);
-		ArrayList<HashedInfo> searchResults = this.parser.getAgeAtTime(allNoms,
-				year);
-
-		return searchResults;
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("getCategoryYearInfo");
+		try {
+			ArrayList<Person> allNoms = this.parser.getCategoryYearInfo(
+					category.trim(), year, 0);
+			ArrayList<HashedInfo> searchResults = this.parser.getAgeAtTime(allNoms,
+					year);
+
+			return searchResults;
+		} finally {
+			timing.end();
+		}
 	}
 
 	/**
@@ -150,124 +276,183 @@ public class MovieInterpreter {
 	 *         Strings of those movies nomimated
 	 */
 	public Object[] getMaxForeignWins() {
-		ArrayList<HashedInfo> allNoms = this.parser.getForeignLanguageInfo();
-		HashMap<String, Integer> winCount = new HashMap<String, Integer>();
-		String country;
-		int currentNumber;
-
-		// populate winCount Hash
-		for (HashedInfo h : allNoms) {
-			country = h.getHasher().get("Submitting country").trim();
-
-			if (winCount.containsKey(country)) {
-				currentNumber = winCount.get(country);
-				currentNumber++;
-
-				winCount.remove(country);
-				winCount.put(country, currentNumber);
-			} else {
-				winCount.put(country, 1);
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("getMaxForeignWins");
+		try {
+			ArrayList<HashedInfo> allNoms = this.parser.getForeignLanguageInfo();
+			ArrayList<NominationQuery.Group> top = NominationQuery.from(allNoms)
+					.groupBy("Submitting country").count().top(1).run();
+
+			// ties go to the country nominated first
+			String maxCountry = "";
+			int currentMax = 0;
+			ArrayList<String> maxMovies = new ArrayList<String>();
+			if (!top.isEmpty()) {
+				maxCountry = top.get(0).getKey();
+				currentMax = top.get(0).getValue();
+				maxMovies = top.get(0).getValues("Film title used in nomination");
 			}
-		}
 
-		// find winner
-		int currentMax = 0;
-		int count;
-		String key;
-		String maxCountry = "";
-		Iterator<String> it = winCount.keySet().iterator();
-		while (it.hasNext()) {
-			key = it.next();
+			Object[] toReturn = { maxCountry, currentMax, maxMovies };
 
-			count = winCount.get(key);
-
-			if (count > currentMax) {
-				maxCountry = key;
-				currentMax = count;
-			}
+			return toReturn;
+		} finally {
+			timing.end();
 		}
-
-		// search list of noms for country that matches max country
-		ArrayList<String> maxMovies = new ArrayList<String>();
-
-		for (HashedInfo h : allNoms) {
-
-			if (h.getHasher().get("Submitting country").equals(maxCountry)) {
-				maxMovies.add(h.getHasher().get("Film title used in nomination"));
-			}
-		}
-
-		Object[] toReturn = { maxCountry, currentMax, maxMovies };
-
-		return toReturn;
 	}
 
 	/**
 	 * Searches for movies nominated for Best Picture, Best Director, Best
 	 * Leading Actor, and Best Leading Actress along with the total number of
-	 * wins for that movie
+	 * wins for that movie. Years are searched concurrently.
 	 * 
 	 * @return HashMap of movies where the name of the movie is a key for the
 	 *         number of awards it won
 	 */
 	public HashMap<String, Integer> getQuadThreat() {
-		HashMap<String, Integer> toReturn = new HashMap<String, Integer>();
-		String tempMovie = "";
-
-		int winCount;
-		ArrayList<Person> match = new ArrayList<Person>();
-		ArrayList<Person> temp;
+		final HashMap<String, Integer> toReturn = new HashMap<String, Integer>();
+		this.getQuadThreat(new ResultListener<Map.Entry<String, Integer>>() {
+			public boolean result(Map.Entry<String, Integer> movie) {
+				toReturn.put(movie.getKey(), movie.getValue());
+				return true;
+			}
+		});
+		return toReturn;
+	}
 
-		for (int i = 1934; i < 2013; i++) {
+	/**
+	 * Searches for movies nominated for Best Picture, Best Director, Best
+	 * Leading Actor, and Best Leading Actress, passing each on with its number
+	 * of wins as soon as its year has been searched. Years are searched
+	 * concurrently, so movies arrive in no particular order.
+	 * 
+	 * @param listener
+	 *           Receiver of movies (name : number of awards won), called on
+	 *           this thread; returning false cancels the years still running
+	 */
+	public void getQuadThreat(ResultListener<Map.Entry<String, Integer>> listener) {
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("getQuadThreat");
+		try {
+			CompletionService<HashMap<String, Integer>> years = new ExecutorCompletionService<HashMap<String, Integer>>(
+					this.questionPool);
+			ArrayList<Future<HashMap<String, Integer>>> futures = new ArrayList<Future<HashMap<String, Integer>>>();
+
+			for (int i = MovieInterpreter.firstQuadYear; i < MovieInterpreter.lastQuadYear; i++) {
+				final int year = i;
+				// pages loaded for the year count towards this question
+				futures.add(years.submit(FetchTracker
+						.inherit(new Callable<HashMap<String, Integer>>() {
+							public HashMap<String, Integer> call() {
+								return MovieInterpreter.this.getQuadThreat(year);
+							}
+						})));
+			}
 
-			match = this.parser.getCategoryYearInfo(this.getProperBestPicture(i),
-					i, 1);
+			try {
+				for (int done = 0; done < futures.size(); done++) {
+					HashMap<String, Integer> winCounts;
+					try {
+						winCounts = years.take().get();
+					} catch (ExecutionException e) {
+						e.getCause().printStackTrace(); // skip years that fail
+						continue;
+					}
 
-			String[] categories = { "Best Actor", "Best Actress", "Best Director" };
-			Person p1;
-			int size;
+					for (Map.Entry<String, Integer> movie : winCounts.entrySet()) {
+						if (!listener.result(new AbstractMap.SimpleImmutableEntry<String, Integer>(
+								movie))) {
+							return;
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new CancellationException("Quad threat search interrupted");
+			} finally {
+				// years still running are no longer wanted
+				for (Future<HashMap<String, Integer>> f : futures) {
+					f.cancel(true);
+				}
+			}
+		} finally {
+			timing.end();
+		}
+	}
 
-			for (String s : categories) {
-				temp = this.parser.getCategoryYearInfo(s, i, 1);
+	/**
+	 * Searches a single year for movies nominated for Best Picture, Best
+	 * Director, Best Leading Actor, and Best Leading Actress along with the
+	 * total number of wins for that movie
+	 * 
+	 * @param year
+	 *           Year to be searched
+	 * @return HashMap of movies where the name of the movie is a key for the
+	 *         number of awards it won
+	 */
+	private HashMap<String, Integer> getQuadThreat(int year) {
+		String bestPicture = this.getProperBestPicture(year);
+		String[] categories = { bestPicture, "Best Actor", "Best Actress",
+				"Best Director" };
+
+		// year page is loaded once for all four categories
+		HashMap<String, ArrayList<Person>> nominees = this.parser
+				.getCategoryYearInfo(categories, year, 1);
+		if (nominees == null) {
+			return new HashMap<String, Integer>();
+		}
 
-				size = match.size();
+		ArrayList<Person> match = new ArrayList<Person>(nominees.get(bestPicture));
+		ArrayList<Person> temp;
+		String tempMovie;
+		Person p1;
+		int size;
 
-				BPMatchLoop: for (int j = 0; j < size; j++) {
-					p1 = match.get(j);
+		for (int c = 1; c < categories.length; c++) {
+			temp = nominees.get(categories[c]);
 
-					for (Person p2 : temp) {
+			size = match.size();
 
-						// find correct placement of movie
-						if (p2.getMovie().trim() != "") {
-							tempMovie = p2.getMovie();
-						} else {
-							tempMovie = p2.getName();
-						}
+			BPMatchLoop: for (int j = 0; j < size; j++) {
+				p1 = match.get(j);
 
-						if (tempMovie.equals(p1.getName())) {
-							continue BPMatchLoop;
-						}
+				for (Person p2 : temp) {
 
+					// find correct placement of movie
+					if (!p2.getMovie().trim().equals("")) {
+						tempMovie = p2.getMovie();
+					} else {
+						tempMovie = p2.getName();
 					}
 
-					// get rid of those movies not still in contention
-					match.remove(p1);
-					size--;
-					j--;
+					if (tempMovie.equals(p1.getName())) {
+						continue BPMatchLoop;
+					}
 
 				}
 
+				// get rid of those movies not still in contention
+				match.remove(p1);
+				size--;
+				j--;
+
 			}
-			// only to this point with match containing those nom'ed for all four
-			// categories
-			for (Person p : match) {
-				winCount = this.parser.getNumberOfWins(p.getName(),
-						String.valueOf(i));
-				toReturn.put(tempMovie, winCount);
-			}
+
 		}
 
-		return toReturn;
+		// only to this point with match containing those nom'ed for all four
+		// categories
+		ArrayList<String> movies = new ArrayList<String>();
+		for (Person p : match) {
+			movies.add(p.getName());
+		}
+
+		HashMap<String, Integer> winCounts = this.parser.getNumberOfWins(movies,
+				String.valueOf(year));
+		if (winCounts == null) {
+			return new HashMap<String, Integer>();
+		}
+		return winCounts;
 	}
 
 	/**
@@ -279,60 +464,24 @@ public class MovieInterpreter {
 	 *         name=director, movie=csv string of movies nominated
 	 */
 	public ArrayList<Person> bestDirectorThreshold(int count) {
-		ArrayList<HashedInfo> allNoms = this.parser
-				.getCategoryInfoWinNom("Best_Director");
-
-		ArrayList<Person> searchResults = new ArrayList<Person>();
-		HashMap<String, Integer> runningCount = new HashMap<String, Integer>();
-		int tempCount;
-		String personName;
-
-		// create HashMap of directors and their nomCounts
-		for (HashedInfo h : allNoms) {
-			personName = h.getHasher().get("person").trim();
-
-			if (runningCount.containsKey(personName)) {
-				tempCount = runningCount.get(personName);
-				runningCount.remove(personName);
-
-				tempCount++;
-				runningCount.put(personName, tempCount);
-
-			} else {
-				runningCount.put(personName, 1);
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("bestDirectorThreshold");
+		try {
+			ArrayList<HashedInfo> allNoms = this.parser
+					.getCategoryInfoWinNom("Best_Director");
+
+			ArrayList<Person> searchResults = new ArrayList<Person>();
+
+			// directors in order of first nomination; movies comma-separated
+			for (NominationQuery.Group g : NominationQuery.from(allNoms)
+					.groupBy("person").count().having(count).run()) {
+				searchResults.add(new Person(g.getKey(), "", g.join("movie", ", "), ""));
 			}
-		}
-
-		Iterator<String> directors = runningCount.keySet().iterator();
-		int nomCount;
-		String tempDirector;
-		String movies = "";
-
-		// creates ArrayList<Person> from HashMap created above
-		while (directors.hasNext()) {
-			tempDirector = directors.next();
-			nomCount = runningCount.get(tempDirector);
-
-			if (nomCount >= count) {
-				for (HashedInfo h : allNoms) {
-
-					// if director directed this movie, add it to a movies string
-					if (h.getHasher().get("person").equals(tempDirector)) {
-						// make list of movies comma-separated
-						if (!movies.equals("")) {
-							movies += ", ";
-						}
-						movies += h.getHasher().get("movie");
-					}
 
-				}
-
-				searchResults.add(new Person(tempDirector, "", movies, ""));
-				movies = "";
-			}
+			return searchResults;
+		} finally {
+			timing.end();
 		}
-
-		return searchResults;
 	}
 
 	/**
@@ -346,30 +495,120 @@ public class MovieInterpreter {
 	 * @return ArrayList of Strings of the movies meeting requirements
 	 */
 	public ArrayList<String> getCategoryStarring(String category, String person) {
-		ArrayList<HashedInfo> allNoms = this.parser
-				.getCategoryInfoWinNom(category);
-		ArrayList<String> queryResponse = new ArrayList<String>();
-
-		if (category.matches(".*Best_Picture.*")
-				|| category.matches(".*Best_Animated_Feature.*")) {
-			for (HashedInfo h : allNoms) {
-				// here, I use "person" information to match convention of the
-				// pre-dash entity being person, post-dash as movie (on wiki page)
-				if (this.parser.getStarring(h.getHasher().get("personLink"))
-						.contains(person.trim())) {
-					queryResponse.add(h.getHasher().get("person"));
-				}
+		final ArrayList<String> queryResponse = new ArrayList<String>();
+		this.getCategoryStarring(category, person, new ResultListener<String>() {
+			public boolean result(String movie) {
+				queryResponse.add(movie);
+				return true;
 			}
-		} else {
-			for (HashedInfo h : allNoms) {
-				if (this.parser.getStarring(h.getHasher().get("movieLink"))
-						.contains(person.trim())) {
-					queryResponse.add(h.getHasher().get("movie"));
+		});
+		return queryResponse;
+	}
+
+	/**
+	 * Searches for movies nominated in specified category that stared a
+	 * specified actor or actress, passing each on as soon as it is found
+	 * 
+	 * @param category
+	 *           Category to be searched
+	 * @param person
+	 *           Person to be searched for
+	 * @param listener
+	 *           Receiver of movies, in nomination order; returning false stops
+	 *           the search before any more film pages are fetched
+	 */
+	public void getCategoryStarring(String category, String person,
+			ResultListener<String> listener) {
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("getCategoryStarring");
+		try {
+			ArrayList<HashedInfo> allNoms = this.parser
+					.getCategoryInfoWinNom(category);
+			String star = person.trim();
+
+			// here, I use "person" information to match convention of the
+			// pre-dash entity being person, post-dash as movie (on wiki page)
+			String linkKey = MovieInterpreter.movieKey(category) + "Link";
+			String movieKey = MovieInterpreter.movieKey(category);
+
+			// films already in the cast graph are a lookup; the rest are fetched a
+			// batch at a time (concurrently), when the search reaches them
+			CastGraph castGraph = this.parser.getCastGraph();
+			HashSet<String> tried = new HashSet<String>();
+			for (int r = 0; r < allNoms.size(); r++) {
+				String link = allNoms.get(r).get(linkKey);
+				if (link == null) {
+					continue;
+				}
+
+				if (!castGraph.hasFilm(link) && !tried.contains(link)) {
+					ArrayList<String> batch = new ArrayList<String>();
+					for (int n = r; n < allNoms.size()
+							&& batch.size() < MovieInterpreter.starringBatch; n++) {
+						String next = allNoms.get(n).get(linkKey);
+						if (next != null && !castGraph.hasFilm(next) && tried.add(next)) {
+							batch.add(next);
+						}
+					}
+					this.parser.getStarring(batch);
+				}
+
+				List<String> cast = castGraph.getCast(link);
+				if (cast != null && cast.contains(star)) {
+					if (!listener.result(allNoms.get(r).get(movieKey))) {
+						return;
+					}
 				}
 			}
+		} finally {
+			timing.end();
 		}
+	}
 
-		return queryResponse;
+	/**
+	 * Key under which a category's win-nom rows hold the movie
+	 *
+	 * @param category
+	 *           Category of rows
+	 * @return "person" for categories whose rows are movie first (Best Picture
+	 *         and Best Animated Feature); "movie" otherwise
+	 */
+	static String movieKey(String category) {
+		if (category.contains("Best_Picture")
+				|| category.contains("Best_Animated_Feature")) {
+			return "person";
+		}
+		return "movie";
+	}
+
+	/**
+	 * Finds the production companies with the most Best Picture wins in each
+	 * decade
+	 * 
+	 * @param k
+	 *           Number of companies returned per decade
+	 * @return Groups keyed "decade / company", valued by number of wins; by
+	 *         decade, most wins first
+	 */
+	public ArrayList<NominationQuery.Group> bestPictureStudiosByDecade(int k) {
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("bestPictureStudiosByDecade");
+		try {
+			ArrayList<HashedInfo> allNoms = this.parser.getDecadeTableInfo(
+					"Best_Picture", 0);
+
+			return NominationQuery
+					.from(allNoms)
+					.where("winner", "1")
+					.groupBy(
+							NominationQuery.compound(
+									NominationQuery.decade("calendarYear"),
+									NominationQuery.column("Production company(s)")))
+					.count().top(k, NominationQuery.decade("calendarYear"))
+					.run(this.questionPool);
+		} finally {
+			timing.end();
+		}
 	}
 
 	/**
@@ -378,10 +617,14 @@ public class MovieInterpreter {
 	 * @return Number of Best Picture nominees
 	 */
 	public String getBestPictureCount() {
-		ArrayList<HashedInfo> allNoms = this.parser.getDecadeTableInfo(
-				"Best_Picture", 0);
-
-		return String.valueOf(allNoms.size());
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("getBestPictureCount");
+		try {
+			return String.valueOf(this.scanDecadeTable("Best_Picture", 0,
+					MovieInterpreter.everyRow));
+		} finally {
+			timing.end();
+		}
 	}
 
 	/**
@@ -390,12 +633,43 @@ public class MovieInterpreter {
 	 * @return Number of Best Acotr nominees
 	 */
 	public String getBestActorCount() {
-		ArrayList<HashedInfo> allNoms = this.parser.getDecadeTableInfo(
-				"Best_Actor", 1);
-
-		return String.valueOf(allNoms.size());
+		ParserMetrics.Question timing = ParserMetrics
+				.beginQuestion("getBestActorCount");
+		try {
+			return String.valueOf(this.scanDecadeTable("Best_Actor", 1,
+					MovieInterpreter.everyRow));
+		} finally {
+			timing.end();
+		}
 	}
 	
+	/**
+	 * Hands the rows of a decade table to handler as they are read (see
+	 * NominationSource.scanDecadeTable)
+	 * 
+	 * @param category
+	 *           Category to be read
+	 * @param indicator
+	 *           0 for table similar to Best Picture; 1 for table similar to
+	 *           Original Screenplay/Best Actor
+	 * @param handler
+	 *           Receiver of rows
+	 * @return Number of rows handed to handler
+	 * @throws CancellationException
+	 *            if the question was cancelled while the table was read
+	 */
+	private int scanDecadeTable(String category, int indicator,
+			RowHandler handler) {
+		try {
+			return this.parser.scanDecadeTable(category, indicator, handler);
+		} catch (InterruptedIOException e) {
+			throw new CancellationException("Reading " + category
+					+ " cancelled");
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not read " + category, e);
+		}
+	}
+
 	/**
 	 * Returns proper string representation of Best Picture award according at
 	 * input year
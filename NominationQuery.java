@@ -0,0 +1,524 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Aggregation query over parsed nomination rows: filter, group by, count or
+ * sum, keep groups over a threshold, and keep the top groups (overall or
+ * within a partition). Questions that need nothing but the rows already
+ * scraped are written as a query rather than as a new hand-written loop, e.g.
+ *
+ * <pre>
+ * NominationQuery.from(rows).where(&quot;winner&quot;, &quot;1&quot;)
+ * 		.groupBy(NominationQuery.column(&quot;Production company(s)&quot;)).count()
+ * 		.top(3).run();
+ * </pre>
+ *
+ * Rows are grouped in a single pass through a Grouping, which numbers groups
+ * in order of first appearance and keeps their values without boxing. A query
+ * can also be run over an ExecutorService: rows are split into contiguous
+ * chunks, grouped concurrently, and merged in chunk order, so results are the
+ * same as when run on one thread.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class NominationQuery {
+
+	/**
+	 * Key of the single group of a query that is not grouped
+	 */
+	public static final String ALL = "all";
+
+	// fewest rows per chunk worth handing to another thread
+	private static final int minChunkRows = 4096;
+
+	/**
+	 * Test applied to each row before grouping
+	 */
+	public interface Filter {
+
+		/**
+		 * @param row
+		 *           Row to be tested
+		 * @return true to keep row
+		 */
+		boolean accept(HashedInfo row);
+	}
+
+	/**
+	 * Group key of a row
+	 */
+	public interface Key {
+
+		/**
+		 * @param row
+		 *           Row to be grouped
+		 * @return Key of row's group, or null to leave row out
+		 */
+		String of(HashedInfo row);
+	}
+
+	private final List<HashedInfo> rows;
+	private final ArrayList<Filter> filters = new ArrayList<Filter>();
+	private Key key;
+	private String sumColumn; // null to count rows
+	private int minValue = Integer.MIN_VALUE;
+	private int topCount = -1; // -1 to keep every group
+	private Key topPartition;
+
+	private NominationQuery(List<HashedInfo> rows) {
+		this.rows = rows;
+	}
+
+	/**
+	 * Starts a query
+	 *
+	 * @param rows
+	 *           Rows to be queried
+	 * @return Query over rows, grouping every row together (under the key
+	 *         ALL) until groupBy is called
+	 */
+	public static NominationQuery from(List<HashedInfo> rows) {
+		return new NominationQuery(rows);
+	}
+
+	/**
+	 * Key that is the trimmed value of a column
+	 *
+	 * @param column
+	 *           Column to be read
+	 * @return Key (null for rows without the column)
+	 */
+	public static Key column(final String column) {
+		return new Key() {
+			public String of(HashedInfo row) {
+				String value = row.get(column);
+				return value == null ? null : value.trim();
+			}
+		};
+	}
+
+	/**
+	 * Key that is the decade of a year column, e.g. "1950s"
+	 *
+	 * @param column
+	 *           Column holding a year
+	 * @return Key (null for rows without a year)
+	 */
+	public static Key decade(final String column) {
+		return new Key() {
+			public String of(HashedInfo row) {
+				String value = row.get(column);
+				try {
+					return value == null ? null : (Integer.parseInt(value.trim()) / 10 * 10)
+							+ "s";
+				} catch (NumberFormatException e) {
+					return null;
+				}
+			}
+		};
+	}
+
+	/**
+	 * Key joining other keys, e.g. decade and studio
+	 *
+	 * @param keys
+	 *           Keys to be joined
+	 * @return Key whose value is the values of keys separated by " / " (null if
+	 *         any is null)
+	 */
+	public static Key compound(final Key... keys) {
+		return new Key() {
+			public String of(HashedInfo row) {
+				StringBuilder joined = new StringBuilder();
+				for (Key k : keys) {
+					String value = k.of(row);
+					if (value == null) {
+						return null;
+					}
+					if (joined.length() > 0) {
+						joined.append(" / ");
+					}
+					joined.append(value);
+				}
+				return joined.toString();
+			}
+		};
+	}
+
+	/**
+	 * Keeps only rows passing a filter
+	 *
+	 * @param filter
+	 *           Test applied to each row
+	 * @return this
+	 */
+	public NominationQuery where(Filter filter) {
+		this.filters.add(filter);
+		return this;
+	}
+
+	/**
+	 * Keeps only rows whose value in a column matches
+	 *
+	 * @param column
+	 *           Column to be tested
+	 * @param matcher
+	 *           Compiled search term
+	 * @return this
+	 */
+	public NominationQuery where(final String column, final QueryMatcher matcher) {
+		return this.where(new Filter() {
+			public boolean accept(HashedInfo row) {
+				return matcher.matches(row.get(column));
+			}
+		});
+	}
+
+	/**
+	 * Keeps only rows whose trimmed value in a column equals value
+	 *
+	 * @param column
+	 *           Column to be tested
+	 * @param value
+	 *           Value wanted
+	 * @return this
+	 */
+	public NominationQuery where(final String column, final String value) {
+		return this.where(new Filter() {
+			public boolean accept(HashedInfo row) {
+				String v = row.get(column);
+				return v != null && v.trim().equals(value);
+			}
+		});
+	}
+
+	/**
+	 * Groups rows by the trimmed value of a column
+	 *
+	 * @param column
+	 *           Column whose value is the group key
+	 * @return this
+	 */
+	public NominationQuery groupBy(String column) {
+		return this.groupBy(NominationQuery.column(column));
+	}
+
+	/**
+	 * Groups rows by a key
+	 *
+	 * @param key
+	 *           Group key of each row
+	 * @return this
+	 */
+	public NominationQuery groupBy(Key key) {
+		this.key = key;
+		return this;
+	}
+
+	/**
+	 * Makes the value of each group its number of rows (the default)
+	 *
+	 * @return this
+	 */
+	public NominationQuery count() {
+		this.sumColumn = null;
+		return this;
+	}
+
+	/**
+	 * Makes the value of each group the sum of a whole-number column; values
+	 * that are not whole numbers count as 0
+	 *
+	 * @param column
+	 *           Column to be summed
+	 * @return this
+	 */
+	public NominationQuery sum(String column) {
+		this.sumColumn = column;
+		return this;
+	}
+
+	/**
+	 * Keeps only groups whose value is at least a threshold
+	 *
+	 * @param minValue
+	 *           Smallest value kept
+	 * @return this
+	 */
+	public NominationQuery having(int minValue) {
+		this.minValue = minValue;
+		return this;
+	}
+
+	/**
+	 * Keeps only the groups with the highest values; ties go to the group seen
+	 * first
+	 *
+	 * @param k
+	 *           Number of groups kept
+	 * @return this
+	 */
+	public NominationQuery top(int k) {
+		this.topCount = k;
+		this.topPartition = null;
+		return this;
+	}
+
+	/**
+	 * Keeps only the groups with the highest values within each partition, e.g.
+	 * the top studios of each decade
+	 *
+	 * @param k
+	 *           Number of groups kept per partition
+	 * @param partition
+	 *           Partition of a group, read from its first row
+	 * @return this
+	 */
+	public NominationQuery top(int k, Key partition) {
+		this.topCount = k;
+		this.topPartition = partition;
+		return this;
+	}
+
+	/**
+	 * Runs query on this thread
+	 *
+	 * @return Groups kept: in order of first appearance, or, if top was called,
+	 *         highest value first (by partition, in order of first appearance)
+	 */
+	public ArrayList<Group> run() {
+		return this.finish(this.groupRange(0, this.rows.size()));
+	}
+
+	/**
+	 * Runs query with rows split among the threads of a pool. Gives the same
+	 * result as run().
+	 *
+	 * @param pool
+	 *           Threads to group rows on
+	 * @return Groups kept, as for run()
+	 * @throws CancellationException
+	 *            if interrupted while waiting for the pool
+	 */
+	public ArrayList<Group> run(ExecutorService pool) {
+		int chunks = Math.min(Runtime.getRuntime().availableProcessors(),
+				this.rows.size() / NominationQuery.minChunkRows);
+		if (chunks < 2) {
+			return this.run();
+		}
+
+		ArrayList<Callable<Grouping>> tasks = new ArrayList<Callable<Grouping>>();
+		for (int c = 0; c < chunks; c++) {
+			final int from = (int) ((long) this.rows.size() * c / chunks);
+			final int to = (int) ((long) this.rows.size() * (c + 1) / chunks);
+			tasks.add(new Callable<Grouping>() {
+				public Grouping call() {
+					return NominationQuery.this.groupRange(from, to);
+				}
+			});
+		}
+
+		Grouping merged = null;
+		try {
+			for (Future<Grouping> f : pool.invokeAll(tasks)) {
+				Grouping chunk = f.get();
+				if (merged == null) {
+					merged = chunk;
+				} else {
+					merged.addAll(chunk);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Query interrupted");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+		return this.finish(merged);
+	}
+
+	// filters and groups rows [from, to)
+	private Grouping groupRange(int from, int to) {
+		Grouping grouping = new Grouping();
+		for (int r = from; r < to; r++) {
+			HashedInfo row = this.rows.get(r);
+			boolean keep = true;
+			for (int f = 0; keep && f < this.filters.size(); f++) {
+				keep = this.filters.get(f).accept(row);
+			}
+			if (!keep) {
+				continue;
+			}
+
+			String groupKey = (this.key == null) ? NominationQuery.ALL : this.key
+					.of(row);
+			if (groupKey == null) {
+				continue;
+			}
+			grouping.add(groupKey, row, this.valueOf(row));
+		}
+		return grouping;
+	}
+
+	private int valueOf(HashedInfo row) {
+		if (this.sumColumn == null) {
+			return 1;
+		}
+		String value = row.get(this.sumColumn);
+		try {
+			return value == null ? 0 : Integer.parseInt(value.trim());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	// applies having and top to grouped rows
+	private ArrayList<Group> finish(Grouping grouping) {
+		ArrayList<Group> kept = new ArrayList<Group>();
+		for (int g = 0; g < grouping.size(); g++) {
+			if (grouping.getValue(g) >= this.minValue) {
+				kept.add(new Group(g, grouping.getKey(g), grouping.getValue(g),
+						grouping.getRows(g)));
+			}
+		}
+		if (this.topCount < 0) {
+			return kept;
+		}
+
+		// one bounded heap per partition; the weakest group kept is on top
+		LinkedHashMap<String, PriorityQueue<Group>> heaps = new LinkedHashMap<String, PriorityQueue<Group>>();
+		for (Group group : kept) {
+			String part = (this.topPartition == null) ? "" : this.topPartition
+					.of(group.rows.get(0));
+			PriorityQueue<Group> heap = heaps.get(part);
+			if (heap == null) {
+				heap = new PriorityQueue<Group>(Math.max(1, this.topCount) + 1,
+						Collections.reverseOrder());
+				heaps.put(part, heap);
+			}
+			heap.add(group);
+			if (heap.size() > this.topCount) {
+				heap.poll();
+			}
+		}
+
+		ArrayList<Group> top = new ArrayList<Group>();
+		for (PriorityQueue<Group> heap : heaps.values()) {
+			ArrayList<Group> best = new ArrayList<Group>(heap);
+			Collections.sort(best);
+			top.addAll(best);
+		}
+		return top;
+	}
+
+	/**
+	 * One group of a query's result
+	 */
+	public static class Group implements Comparable<Group> {
+
+		private final int order; // number of group by first appearance
+		private final String key;
+		private final int value;
+		private final List<HashedInfo> rows;
+
+		private Group(int order, String key, int value, List<HashedInfo> rows) {
+			this.order = order;
+			this.key = key;
+			this.value = value;
+			this.rows = rows;
+		}
+
+		/**
+		 * Accessor for key
+		 *
+		 * @return Group key
+		 */
+		public String getKey() {
+			return this.key;
+		}
+
+		/**
+		 * Accessor for value
+		 *
+		 * @return Count or sum of group
+		 */
+		public int getValue() {
+			return this.value;
+		}
+
+		/**
+		 * Accessor for rows
+		 *
+		 * @return Rows of group, in row order
+		 */
+		public List<HashedInfo> getRows() {
+			return this.rows;
+		}
+
+		/**
+		 * Lists the values of a column over the rows of group
+		 *
+		 * @param column
+		 *           Column whose values are listed
+		 * @return Values, in row order
+		 */
+		public ArrayList<String> getValues(String column) {
+			ArrayList<String> values = new ArrayList<String>(this.rows.size());
+			for (HashedInfo row : this.rows) {
+				values.add(row.get(column));
+			}
+			return values;
+		}
+
+		/**
+		 * Joins the values of a column over the rows of group
+		 *
+		 * @param column
+		 *           Column whose values are joined
+		 * @param separator
+		 *           Text put between values
+		 * @return Values, in row order, separated by separator
+		 */
+		public String join(String column, String separator) {
+			StringBuilder joined = new StringBuilder();
+			for (HashedInfo row : this.rows) {
+				if (joined.length() > 0) {
+					joined.append(separator);
+				}
+				joined.append(row.get(column));
+			}
+			return joined.toString();
+		}
+
+		/**
+		 * Orders groups by value, highest first, then by first appearance
+		 */
+		public int compareTo(Group other) {
+			if (this.value != other.value) {
+				return this.value > other.value ? -1 : 1;
+			}
+			return this.order < other.order ? -1 : (this.order == other.order ? 0
+					: 1);
+		}
+
+		/**
+		 * Returns String representation of key and value
+		 */
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+}
@@ -0,0 +1,347 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Compact, read-only copy of a parsed award table, saved to disk after a
+ * scrape and memory-mapped on load, so that a table can be brought back
+ * without re-parsing its page and without holding it on the heap.
+ *
+ * The table is stored by column: every distinct key and value of the rows is
+ * written once to a sorted string dictionary, and each column (Film, person,
+ * awardYear, winner, ...) is an array of dictionary codes, one per row (-1
+ * where a row has no such key). Strings are only decoded from the mapped file
+ * when asked for.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class NominationSnapshot {
+
+	private static final int MAGIC = 0x4e534e50; // "NSNP"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 5 * 4;
+	private static final String CHARSET = "UTF-8";
+
+	private final ByteBuffer buffer;
+	private final int rowCount;
+	private final int columnCount;
+	private final int stringCount;
+	private final int cellsStart;
+	private final int offsetsStart;
+	private final int stringsStart;
+
+	// column name : index of column
+	private final HashMap<String, Integer> columns = new HashMap<String, Integer>();
+	private final String[] columnNames;
+	// strings decoded so far, by code
+	private final String[] decoded;
+
+	private NominationSnapshot(ByteBuffer buffer) throws IOException {
+		this.buffer = buffer;
+		if (buffer.limit() < NominationSnapshot.HEADER_BYTES
+				|| buffer.getInt(0) != NominationSnapshot.MAGIC
+				|| buffer.getInt(4) != NominationSnapshot.VERSION) {
+			throw new IOException("Not a nomination snapshot");
+		}
+		this.rowCount = buffer.getInt(8);
+		this.columnCount = buffer.getInt(12);
+		this.stringCount = buffer.getInt(16);
+
+		this.cellsStart = NominationSnapshot.HEADER_BYTES + 4 * this.columnCount;
+		this.offsetsStart = this.cellsStart + 4 * this.columnCount
+				* this.rowCount;
+		this.stringsStart = this.offsetsStart + 4 * (this.stringCount + 1);
+		if (this.rowCount < 0 || this.columnCount < 0 || this.stringCount < 0
+				|| this.stringsStart > buffer.limit()) {
+			throw new IOException("Truncated nomination snapshot");
+		}
+
+		this.decoded = new String[this.stringCount];
+		this.columnNames = new String[this.columnCount];
+		for (int c = 0; c < this.columnCount; c++) {
+			this.columnNames[c] = this.string(buffer
+					.getInt(NominationSnapshot.HEADER_BYTES + 4 * c));
+			this.columns.put(this.columnNames[c], c);
+		}
+	}
+
+	/**
+	 * Writes a table as a snapshot, replacing file only once fully written
+	 *
+	 * @param rows
+	 *           Rows of table
+	 * @param file
+	 *           Where snapshot is written
+	 * @throws IOException
+	 *            if the snapshot could not be written
+	 */
+	public static void write(List<HashedInfo> rows, File file)
+			throws IOException {
+		// columns in order of first appearance; dictionary sorted, so that
+		// values can be looked up by binary search
+		ArrayList<String> columnNames = new ArrayList<String>();
+		TreeSet<String> dictionary = new TreeSet<String>();
+		for (HashedInfo h : rows) {
+			for (Map.Entry<String, String> e : h.getHasher().entrySet()) {
+				if (!columnNames.contains(e.getKey())) {
+					columnNames.add(e.getKey());
+				}
+				dictionary.add(e.getKey());
+				if (e.getValue() != null) {
+					dictionary.add(e.getValue());
+				}
+			}
+		}
+
+		HashMap<String, Integer> codes = new HashMap<String, Integer>();
+		for (String s : dictionary) {
+			codes.put(s, codes.size());
+		}
+
+		File temp = File.createTempFile("snapshot", ".tmp", file
+				.getAbsoluteFile().getParentFile());
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(temp)));
+		try {
+			out.writeInt(NominationSnapshot.MAGIC);
+			out.writeInt(NominationSnapshot.VERSION);
+			out.writeInt(rows.size());
+			out.writeInt(columnNames.size());
+			out.writeInt(dictionary.size());
+
+			for (String column : columnNames) {
+				out.writeInt(codes.get(column));
+			}
+			for (String column : columnNames) {
+				for (HashedInfo h : rows) {
+					String value = h.getHasher().get(column);
+					out.writeInt(value == null ? -1 : codes.get(value));
+				}
+			}
+
+			ArrayList<byte[]> encoded = new ArrayList<byte[]>(dictionary.size());
+			int offset = 0;
+			for (String s : dictionary) {
+				byte[] bytes = s.getBytes(NominationSnapshot.CHARSET);
+				encoded.add(bytes);
+				out.writeInt(offset);
+				offset += bytes.length;
+			}
+			out.writeInt(offset);
+			for (byte[] bytes : encoded) {
+				out.write(bytes);
+			}
+		} finally {
+			out.close();
+		}
+
+		if (!temp.renameTo(file)) {
+			file.delete();
+			if (!temp.renameTo(file)) {
+				temp.delete();
+				throw new IOException("Could not write snapshot " + file);
+			}
+		}
+	}
+
+	/**
+	 * Maps a snapshot written by write() into memory
+	 *
+	 * @param file
+	 *           Snapshot file
+	 * @return The snapshot
+	 * @throws IOException
+	 *            if the file could not be read or is not a snapshot
+	 */
+	public static NominationSnapshot load(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			// mapping stays valid once the file is closed
+			MappedByteBuffer mapped = raf.getChannel().map(
+					FileChannel.MapMode.READ_ONLY, 0, raf.length());
+			return new NominationSnapshot(mapped);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Number of rows in table
+	 *
+	 * @return this.rowCount
+	 */
+	public int size() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Names of the columns of the table
+	 *
+	 * @return Column names, in the order they were first seen
+	 */
+	public ArrayList<String> getColumns() {
+		ArrayList<String> toReturn = new ArrayList<String>();
+		for (String name : this.columnNames) {
+			toReturn.add(name);
+		}
+		return toReturn;
+	}
+
+	/**
+	 * Dictionary code of a cell, which can be compared with codeOf() without
+	 * decoding any string
+	 *
+	 * @param row
+	 *           Index of row
+	 * @param column
+	 *           Name of column
+	 * @return Code of cell's value, or -1 if row has no such column
+	 */
+	public int code(int row, String column) {
+		Integer c = this.columns.get(column);
+		if (c == null || row < 0 || row >= this.rowCount) {
+			return -1;
+		}
+		return this.buffer.getInt(this.cellsStart + 4 * (c * this.rowCount + row));
+	}
+
+	/**
+	 * Value of a cell
+	 *
+	 * @param row
+	 *           Index of row
+	 * @param column
+	 *           Name of column
+	 * @return Value, or null if row has no such column
+	 */
+	public String get(int row, String column) {
+		int code = this.code(row, column);
+		return code == -1 ? null : this.string(code);
+	}
+
+	/**
+	 * Looks up the dictionary code of a value
+	 *
+	 * @param value
+	 *           Value to be looked up
+	 * @return Code of value, or -1 if no cell holds it
+	 */
+	public int codeOf(String value) {
+		int low = 0, high = this.stringCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int compared = this.string(mid).compareTo(value);
+			if (compared < 0) {
+				low = mid + 1;
+			} else if (compared > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Decodes a row
+	 *
+	 * @param row
+	 *           Index of row
+	 * @return Row, as it was written
+	 */
+	public HashedInfo getRow(int row) {
+		ArrayList<String> present = new ArrayList<String>(this.columnCount);
+		String[] values = this.decodeRow(row, present);
+		return new HashedInfo(RowSchema.of(present), values);
+	}
+
+	/**
+	 * Decodes every row, once
+	 *
+	 * @return Rows, as they were written
+	 */
+	public ArrayList<HashedInfo> toList() {
+		final ArrayList<HashedInfo> rows = new ArrayList<HashedInfo>(
+				this.rowCount);
+		this.read(new RowHandler() {
+			public boolean row(HashedInfo row) {
+				return rows.add(row);
+			}
+		});
+		return rows;
+	}
+
+	/**
+	 * Decodes rows in order, handing each to handler, until handler asks to
+	 * stop. Rows of a table mostly share their columns, so a schema is only
+	 * looked up when the columns change from one row to the next.
+	 *
+	 * @param handler
+	 *           Receiver of rows
+	 * @return Number of rows handed to handler
+	 */
+	public int read(RowHandler handler) {
+		ArrayList<String> lastPresent = null;
+		RowSchema schema = null;
+		for (int r = 0; r < this.rowCount; r++) {
+			ArrayList<String> present = new ArrayList<String>(this.columnCount);
+			String[] values = this.decodeRow(r, present);
+			if (!present.equals(lastPresent)) {
+				schema = RowSchema.of(present);
+				lastPresent = present;
+			}
+			if (!handler.row(new HashedInfo(schema, values))) {
+				return r + 1;
+			}
+		}
+		return this.rowCount;
+	}
+
+	// values of a row's cells, adding the names of its columns to present
+	private String[] decodeRow(int row, ArrayList<String> present) {
+		ArrayList<String> values = new ArrayList<String>(this.columnCount);
+		for (int c = 0; c < this.columnCount; c++) {
+			int code = this.buffer.getInt(this.cellsStart + 4
+					* (c * this.rowCount + row));
+			if (code != -1) {
+				present.add(this.columnNames[c]);
+				values.add(this.string(code));
+			}
+		}
+		return values.toArray(new String[values.size()]);
+	}
+
+	// decodes string from mapped file on first use
+	private String string(int code) {
+		String s = this.decoded[code];
+		if (s == null) {
+			int start = this.buffer.getInt(this.offsetsStart + 4 * code);
+			int end = this.buffer.getInt(this.offsetsStart + 4 * (code + 1));
+			byte[] bytes = new byte[end - start];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = this.buffer.get(this.stringsStart + start + i);
+			}
+			try {
+				s = new String(bytes, NominationSnapshot.CHARSET);
+			} catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e); // UTF-8 always supported
+			}
+			this.decoded[code] = s;
+		}
+		return s;
+	}
+}
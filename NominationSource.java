@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Source of nomination data that MovieInterpreter answers questions from:
+ * either live Wikipedia pages (WikipediaParser) or a local store built from
+ * them (NominationStore)
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public interface NominationSource {
+
+	/**
+	 * Gets nominees in a category whose page has one table per year (Best
+	 * Picture) or per decade (Original Screenplay/Best Actor)
+	 *
+	 * @param category
+	 *           Category to be searched
+	 * @param indicator
+	 *           0 for table similar to Best Picture; 1 for table similar to
+	 *           Original Screenplay/Best Actor
+	 * @return ArrayList of HashedInfo wrappers for each nominee
+	 */
+	ArrayList<HashedInfo> getDecadeTableInfo(String category, int indicator);
+
+	/**
+	 * Hands the nominees of a category whose page has one table per year or
+	 * per decade to handler one at a time, without building the table in
+	 * memory where it can be avoided. Suited to questions that count the rows
+	 * or stop at the first match.
+	 *
+	 * @param category
+	 *           Category to be searched
+	 * @param indicator
+	 *           0 for table similar to Best Picture; 1 for table similar to
+	 *           Original Screenplay/Best Actor
+	 * @param handler
+	 *           Receiver of rows, in page order; reading stops once it returns
+	 *           false
+	 * @return Number of rows handed to handler
+	 * @throws IOException
+	 *            if the table could not be read (InterruptedIOException if the
+	 *            read was cancelled)
+	 */
+	int scanDecadeTable(String category, int indicator, RowHandler handler)
+			throws IOException;
+
+	/**
+	 * Gets nominees in a category whose tables are in the year-win-noms format
+	 * (See Best Director for example)
+	 *
+	 * @param category
+	 *           Category to be searched
+	 * @return ArrayList of HashedInfo wrappers for each nominee
+	 */
+	ArrayList<HashedInfo> getCategoryInfoWinNom(String category);
+
+	/**
+	 * Gets nominations for Foreign Language award
+	 *
+	 * @return ArrayList of HashedInfo wrappers for each nominee
+	 */
+	ArrayList<HashedInfo> getForeignLanguageInfo();
+
+	/**
+	 * Returns nominees for a category in a specific Academy Awards year
+	 *
+	 * @param category
+	 *           Category to be searched
+	 * @param year
+	 *           Year to be searched
+	 * @param indicator
+	 *           0 for Person more important; 1 for Movie more important
+	 * @return ArrayList of nominees
+	 */
+	ArrayList<Person> getCategoryYearInfo(String category, int year,
+			int indicator);
+
+	/**
+	 * Returns nominees for each of the given categories in a specific Academy
+	 * Awards year
+	 *
+	 * @param categories
+	 *           Categories to be searched
+	 * @param year
+	 *           Year to be searched
+	 * @param indicator
+	 *           0 for Person more important; 1 for Movie more important
+	 * @return HashMap of category to nominees in that category, or null if the
+	 *         year is not available
+	 */
+	HashMap<String, ArrayList<Person>> getCategoryYearInfo(String[] categories,
+			int year, int indicator);
+
+	/**
+	 * Returns age of specified people in a certain year
+	 *
+	 * @param people
+	 *           People whose ages are to be calculated
+	 * @param year
+	 *           Reference year
+	 * @return ArrayList of HashedInfo, where the "Age" key holds the age at the
+	 *         given year for the "Name" key. People whose age is not available
+	 *         are left out.
+	 */
+	ArrayList<HashedInfo> getAgeAtTime(ArrayList<Person> people, int year);
+
+	/**
+	 * Gets the number of wins for each of the given movies in a year
+	 *
+	 * @param movies
+	 *           Movies whose win counts are to be calculated
+	 * @param year
+	 *           Year movies won awards
+	 * @return HashMap of movie to number of wins, or null if the year is not
+	 *         available
+	 */
+	HashMap<String, Integer> getNumberOfWins(List<String> movies, String year);
+
+	/**
+	 * Finds stars of each of the given movies
+	 *
+	 * @param movieLinks
+	 *           Relative links to movies of which stars are to be extracted
+	 * @return ArrayList of stars for each movie, in the same order as
+	 *         movieLinks. Entries for unavailable movies are null.
+	 */
+	ArrayList<ArrayList<String>> getStarring(List<String> movieLinks);
+
+	/**
+	 * Accessor for index of film casts (film to stars and star to films). Casts
+	 * found by getStarring are recorded in it.
+	 *
+	 * @return Cast graph of this source
+	 */
+	CastGraph getCastGraph();
+}
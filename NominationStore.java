@@ -0,0 +1,508 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Local store of everything MovieInterpreter's questions need, scraped from
+ * Wikipedia once by ingest() and saved to a single file. Loaded stores answer
+ * from memory without any network access, through indexes on category (award
+ * tables), year (ceremony pages), person (ages) and film (casts).
+ *
+ * Run as a program to build a store: java NominationStore [file]
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class NominationStore implements NominationSource {
+
+	/** Default file of a store */
+	public static final String defaultFile = "nominations.db";
+
+	private static final int MAGIC = 0x574b4e53; // "WKNS"
+	private static final int VERSION = 1;
+
+	// what ingest scrapes: award tables (as category, indicator), categories
+	// whose nominees' ages are kept, categories whose films' casts are kept
+	private static final String[][] decadeTables = {
+			{ "Best_Picture", "0" }, { "Original_Screenplay", "1" },
+			{ "Best_Actor", "1" } };
+	// every category question 7 searches in year-win-noms form
+	private static final String[] winNomTables = { "Best_Director",
+			"Best_Animated_Feature", "Best_Actor", "Best_Actress",
+			"Best_Supporting_Actor", "Best_Supporting_Actress" };
+	private static final String[] ageCategories = { "Best Actress" };
+	private static final int firstYear = 1927;
+	private static final int lastYear = 2013; // exclusive
+
+	// category : rows of its award table, keyed as in WikipediaParser
+	private final Map<String, ArrayList<HashedInfo>> tables;
+	// year : nominees of every category that year
+	private final Map<Integer, YearPage> years;
+	// link to person's page : age in ingestYear
+	private final Map<String, Integer> ages;
+	// link to film's page : stars of film
+	private final Map<String, ArrayList<String>> casts;
+	private final int ingestYear;
+	private final CastGraph castGraph = new CastGraph(null);
+
+	private NominationStore(Map<String, ArrayList<HashedInfo>> tables,
+			Map<Integer, YearPage> years, Map<String, Integer> ages,
+			Map<String, ArrayList<String>> casts, int ingestYear) {
+		this.tables = Collections.unmodifiableMap(tables);
+		this.years = Collections.unmodifiableMap(years);
+		this.ages = Collections.unmodifiableMap(ages);
+		this.casts = Collections.unmodifiableMap(casts);
+		this.ingestYear = ingestYear;
+		for (Map.Entry<String, ArrayList<String>> c : casts.entrySet()) {
+			this.castGraph.put(c.getKey(), c.getValue());
+		}
+	}
+
+	/**
+	 * Builds a store in file: runs parser's extractors across every category
+	 * and year the questions ask about
+	 *
+	 * @param args
+	 *           Optional path of store file (default nominations.db)
+	 * @throws IOException
+	 *            if the store could not be written
+	 */
+	public static void main(String[] args) throws IOException {
+		File file = new File(args.length > 0 ? args[0]
+				: NominationStore.defaultFile);
+		long start = System.currentTimeMillis();
+		NominationStore store = NominationStore.ingest(new WikipediaParser(),
+				file);
+		System.out.println("Wrote " + file + " in "
+				+ (System.currentTimeMillis() - start) + "ms: " + store);
+	}
+
+	/**
+	 * Scrapes everything the questions need through parser and saves it
+	 *
+	 * @param parser
+	 *           Parser to be scraped through
+	 * @param file
+	 *           Where store is saved
+	 * @return The new store
+	 * @throws IOException
+	 *            if the store could not be written
+	 */
+	public static NominationStore ingest(WikipediaParser parser, File file)
+			throws IOException {
+		LinkedHashMap<String, ArrayList<HashedInfo>> tables = new LinkedHashMap<String, ArrayList<HashedInfo>>();
+		HashMap<Integer, YearPage> years = new HashMap<Integer, YearPage>();
+		HashMap<String, Integer> ages = new HashMap<String, Integer>();
+		HashMap<String, ArrayList<String>> casts = new HashMap<String, ArrayList<String>>();
+		// year : why its ceremony page was left out
+		TreeMap<Integer, String> skippedYears = new TreeMap<Integer, String>();
+		int ingestYear = Calendar.getInstance().get(Calendar.YEAR);
+
+		for (String[] table : NominationStore.decadeTables) {
+			int indicator = Integer.parseInt(table[1]);
+			tables.put(NominationStore.decadeKey(table[0], indicator),
+					parser.getDecadeTableInfo(table[0], indicator));
+		}
+		for (String category : NominationStore.winNomTables) {
+			ArrayList<HashedInfo> noms;
+			try {
+				noms = parser.getCategoryInfoWinNom(category);
+			} catch (RuntimeException e) {
+				// left out of the store, so asking for it is an error
+				System.err.println(category + " left out: " + e);
+				continue;
+			}
+			if (noms.isEmpty()) {
+				System.err.println(category + " left out: page could not be read");
+				continue;
+			}
+			tables.put(NominationStore.winNomKey(category), noms);
+			int unread = NominationStore.ingestCasts(parser, category, noms, casts);
+			if (unread > 0) {
+				System.err.println(category + ": " + unread
+						+ " film pages could not be read; their casts are left out");
+			}
+		}
+		tables.put(NominationStore.foreignKey, parser.getForeignLanguageInfo());
+
+		for (int year = NominationStore.firstYear; year < NominationStore.lastYear; year++) {
+			YearPage page;
+			try {
+				page = parser.getYearPage(year);
+			} catch (IOException e) {
+				skippedYears.put(year, e.getMessage()); // e.g. no ceremony page
+				continue;
+			} catch (RuntimeException e) {
+				skippedYears.put(year, e.toString());
+				continue;
+			}
+			years.put(year, page);
+
+			for (String category : NominationStore.ageCategories) {
+				NominationStore.ingestAges(parser,
+						page.getNominees(category, 0), ingestYear, ages);
+			}
+		}
+
+		for (Map.Entry<Integer, String> skipped : skippedYears.entrySet()) {
+			System.err.println("Year " + skipped.getKey() + " left out: "
+					+ skipped.getValue());
+		}
+
+		NominationStore store = new NominationStore(tables, years, ages, casts,
+				ingestYear);
+		store.save(file);
+		return store;
+	}
+
+	/**
+	 * Loads a store saved by ingest()
+	 *
+	 * @param file
+	 *           Store file
+	 * @return The store
+	 * @throws IOException
+	 *            if the file could not be read or is not a store
+	 */
+	public static NominationStore load(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new FileInputStream(file)));
+		try {
+			if (in.readInt() != NominationStore.MAGIC
+					|| in.readInt() != NominationStore.VERSION) {
+				throw new IOException(file + " is not a nomination store");
+			}
+			int ingestYear = in.readInt();
+
+			// values repeated across rows are read into one copy
+			StringPool strings = new StringPool();
+			LinkedHashMap<String, ArrayList<HashedInfo>> tables = new LinkedHashMap<String, ArrayList<HashedInfo>>();
+			int count = in.readInt();
+			for (int t = 0; t < count; t++) {
+				String key = in.readUTF();
+				int rowCount = in.readInt();
+				ArrayList<HashedInfo> rows = new ArrayList<HashedInfo>(rowCount);
+				ArrayList<String> columns = new ArrayList<String>();
+				for (int r = 0; r < rowCount; r++) {
+					String[] values = new String[in.readInt()];
+					for (int e = 0; e < values.length; e++) {
+						columns.add(in.readUTF());
+						values[e] = strings.intern(NominationStore.readString(in));
+					}
+					rows.add(new HashedInfo(RowSchema.of(columns), values));
+					columns.clear();
+				}
+				tables.put(key, rows);
+			}
+
+			HashMap<Integer, YearPage> years = new HashMap<Integer, YearPage>();
+			count = in.readInt();
+			for (int y = 0; y < count; y++) {
+				int year = in.readInt();
+				years.put(year, YearPage.read(in));
+			}
+
+			HashMap<String, Integer> ages = new HashMap<String, Integer>();
+			count = in.readInt();
+			for (int a = 0; a < count; a++) {
+				String link = in.readUTF();
+				ages.put(link, in.readInt());
+			}
+
+			HashMap<String, ArrayList<String>> casts = new HashMap<String, ArrayList<String>>();
+			count = in.readInt();
+			for (int c = 0; c < count; c++) {
+				String link = in.readUTF();
+				int starCount = in.readInt();
+				ArrayList<String> stars = new ArrayList<String>(starCount);
+				for (int s = 0; s < starCount; s++) {
+					stars.add(in.readUTF());
+				}
+				casts.put(link, stars);
+			}
+
+			return new NominationStore(tables, years, ages, casts, ingestYear);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Saves store to file, replacing it only once fully written
+	 *
+	 * @param file
+	 *           Where store is saved
+	 * @throws IOException
+	 *            if the store could not be written
+	 */
+	public void save(File file) throws IOException {
+		File temp = File.createTempFile("store", ".tmp", file.getAbsoluteFile()
+				.getParentFile());
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(temp)));
+		try {
+			out.writeInt(NominationStore.MAGIC);
+			out.writeInt(NominationStore.VERSION);
+			out.writeInt(this.ingestYear);
+
+			out.writeInt(this.tables.size());
+			for (Map.Entry<String, ArrayList<HashedInfo>> t : this.tables
+					.entrySet()) {
+				out.writeUTF(t.getKey());
+				out.writeInt(t.getValue().size());
+				for (HashedInfo h : t.getValue()) {
+					out.writeInt(h.getHasher().size());
+					for (Map.Entry<String, String> e : h.getHasher().entrySet()) {
+						out.writeUTF(e.getKey());
+						NominationStore.writeString(out, e.getValue());
+					}
+				}
+			}
+
+			out.writeInt(this.years.size());
+			for (Map.Entry<Integer, YearPage> y : this.years.entrySet()) {
+				out.writeInt(y.getKey());
+				y.getValue().write(out);
+			}
+
+			out.writeInt(this.ages.size());
+			for (Map.Entry<String, Integer> a : this.ages.entrySet()) {
+				out.writeUTF(a.getKey());
+				out.writeInt(a.getValue());
+			}
+
+			out.writeInt(this.casts.size());
+			for (Map.Entry<String, ArrayList<String>> c : this.casts.entrySet()) {
+				out.writeUTF(c.getKey());
+				out.writeInt(c.getValue().size());
+				for (String star : c.getValue()) {
+					out.writeUTF(star);
+				}
+			}
+		} finally {
+			out.close();
+		}
+
+		if (!temp.renameTo(file)) {
+			file.delete();
+			if (!temp.renameTo(file)) {
+				temp.delete();
+				throw new IOException("Could not write store " + file);
+			}
+		}
+	}
+
+	public ArrayList<HashedInfo> getDecadeTableInfo(String category,
+			int indicator) {
+		return this.table(NominationStore.decadeKey(category, indicator));
+	}
+
+	public int scanDecadeTable(String category, int indicator,
+			RowHandler handler) {
+		int rows = 0;
+		for (HashedInfo h : this.table(NominationStore.decadeKey(category,
+				indicator))) {
+			rows++;
+			if (!handler.row(h)) {
+				break;
+			}
+		}
+		return rows;
+	}
+
+	public ArrayList<HashedInfo> getCategoryInfoWinNom(String category) {
+		return this.table(NominationStore.winNomKey(category));
+	}
+
+	public ArrayList<HashedInfo> getForeignLanguageInfo() {
+		return this.table(NominationStore.foreignKey);
+	}
+
+	public ArrayList<Person> getCategoryYearInfo(String category, int year,
+			int indicator) {
+		YearPage page = this.years.get(year);
+		if (page == null) {
+			return new ArrayList<Person>();
+		}
+		return page.getNominees(category, indicator);
+	}
+
+	public HashMap<String, ArrayList<Person>> getCategoryYearInfo(
+			String[] categories, int year, int indicator) {
+		YearPage page = this.years.get(year);
+		if (page == null) {
+			return null;
+		}
+
+		HashMap<String, ArrayList<Person>> nominees = new HashMap<String, ArrayList<Person>>();
+		for (String category : categories) {
+			nominees.put(category, page.getNominees(category, indicator));
+		}
+		return nominees;
+	}
+
+	public ArrayList<HashedInfo> getAgeAtTime(ArrayList<Person> people,
+			int year) {
+		ArrayList<HashedInfo> toReturn = new ArrayList<HashedInfo>();
+		for (Person p : people) {
+			Integer age = this.ages.get(p.getLink());
+			if (age == null) {
+				continue; // person's page had no age, as with live pages
+			}
+
+			toReturn.add(new HashedInfo(WikipediaParser.ageSchema, new String[] {
+					String.valueOf(age + year - this.ingestYear), p.getName(),
+					p.getMovie() }));
+		}
+		return toReturn;
+	}
+
+	public HashMap<String, Integer> getNumberOfWins(List<String> movies,
+			String year) {
+		YearPage page = this.years.get(Integer.parseInt(year));
+		if (page == null) {
+			return null;
+		}
+
+		return page.getNumberOfWins(movies);
+	}
+
+	public ArrayList<ArrayList<String>> getStarring(List<String> movieLinks) {
+		ArrayList<ArrayList<String>> starring = new ArrayList<ArrayList<String>>();
+		for (String link : movieLinks) {
+			ArrayList<String> stars = this.casts.get(link);
+			starring.add(stars == null ? null : new ArrayList<String>(stars));
+		}
+		return starring;
+	}
+
+	public CastGraph getCastGraph() {
+		return this.castGraph;
+	}
+
+	/**
+	 * Returns String representation of store size
+	 */
+	public String toString() {
+		int rows = 0;
+		for (ArrayList<HashedInfo> t : this.tables.values()) {
+			rows += t.size();
+		}
+		return "tables: " + this.tables.size() + " (" + rows + " rows); years: "
+				+ this.years.size() + "; ages: " + this.ages.size() + "; casts: "
+				+ this.casts.size();
+	}
+
+	// copy, so that callers can't alter the store
+	private ArrayList<HashedInfo> table(String key) {
+		ArrayList<HashedInfo> rows = this.tables.get(key);
+		if (rows == null) {
+			throw new BadArgumentException("Not in store: " + key
+					+ " (answer from live pages, or add it to ingest)");
+		}
+		return new ArrayList<HashedInfo>(rows);
+	}
+
+	private static final String foreignKey = "foreign";
+
+	private static String decadeKey(String category, int indicator) {
+		return "decade:" + category + ":" + indicator;
+	}
+
+	private static String winNomKey(String category) {
+		return "winnom:" + category;
+	}
+
+	// keeps age (in ingestYear) of every nominee whose page could be read
+	private static void ingestAges(WikipediaParser parser,
+			ArrayList<Person> nominees, int ingestYear, Map<String, Integer> ages) {
+		for (Person p : nominees) {
+			if (ages.containsKey(p.getLink())) {
+				continue;
+			}
+
+			ArrayList<Person> one = new ArrayList<Person>();
+			one.add(p);
+			try {
+				ArrayList<HashedInfo> age = parser.getAgeAtTime(one, ingestYear);
+				if (age.size() == 1) {
+					ages.put(p.getLink(),
+							Integer.parseInt(age.get(0).getHasher().get("Age")));
+				}
+			} catch (RuntimeException e) {
+				// page has no Born line; left out
+			}
+		}
+	}
+
+	// keeps cast of every film nominated in category, fetched in one batch;
+	// returns the number of film pages that could not be read
+	private static int ingestCasts(WikipediaParser parser, String category,
+			ArrayList<HashedInfo> noms, Map<String, ArrayList<String>> casts) {
+		String movieKey = MovieInterpreter.movieKey(category);
+		ArrayList<String> movieLinks = new ArrayList<String>();
+		for (HashedInfo h : noms) {
+			String link = h.getHasher().get(movieKey + "Link");
+			if (link != null && !casts.containsKey(link)
+					&& !movieLinks.contains(link)) {
+				movieLinks.add(link);
+			}
+		}
+
+		// films with no cast listed come back empty; pages that failed, null
+		ArrayList<ArrayList<String>> starring = parser.getStarring(movieLinks);
+		int unread = 0;
+		for (int i = 0; i < movieLinks.size(); i++) {
+			if (starring.get(i) != null) {
+				casts.put(movieLinks.get(i), starring.get(i));
+			} else {
+				unread++;
+			}
+		}
+		return unread;
+	}
+
+	/**
+	 * Writes a String that may be null
+	 *
+	 * @param out
+	 *           Where String is written
+	 * @param s
+	 *           String to be written
+	 * @throws IOException
+	 *            if it could not be written
+	 */
+	static void writeString(DataOutputStream out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null) {
+			out.writeUTF(s);
+		}
+	}
+
+	/**
+	 * Reads a String written by writeString
+	 *
+	 * @param in
+	 *           Where String is read from
+	 * @return String, or null
+	 * @throws IOException
+	 *            if it could not be read
+	 */
+	static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
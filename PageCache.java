@@ -0,0 +1,588 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Persistent on-disk store of fetched pages. Page bodies are stored under the
+ * hash of their contents (so identical pages share one file) and each URL has
+ * a small metadata file recording which body it points at, along with the
+ * ETag/Last-Modified headers and fetch time used for revalidation.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class PageCache {
+
+	private static final String CHARSET = "UTF-8";
+
+	private final File directory;
+	private final File indexDirectory;
+	private final File objectDirectory;
+	private final File snapshotDirectory;
+	private final long timeToLive;
+
+	/**
+	 * Constructor
+	 *
+	 * @param directory
+	 *           Root directory of the cache; created if it does not exist
+	 * @param timeToLive
+	 *           Milliseconds a stored page is considered fresh without
+	 *           revalidation
+	 */
+	public PageCache(File directory, long timeToLive) {
+		this.directory = directory;
+		this.indexDirectory = new File(directory, "index");
+		this.objectDirectory = new File(directory, "objects");
+		this.snapshotDirectory = new File(directory, "snapshots");
+		this.timeToLive = timeToLive;
+
+		this.indexDirectory.mkdirs();
+		this.objectDirectory.mkdirs();
+		this.snapshotDirectory.mkdirs();
+	}
+
+	/**
+	 * Accessor for root directory of the cache
+	 *
+	 * @return this.directory
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Looks up the stored copy of a page
+	 *
+	 * @param url
+	 *           URL of page to be looked up
+	 * @return stored page, or null if the URL has never been stored (or its body
+	 *         has gone missing)
+	 */
+	public Entry lookup(String url) {
+		Properties meta = this.readProperties(this.indexFile(url));
+		if (meta == null) {
+			return null;
+		}
+
+		File body = new File(this.objectDirectory, meta.getProperty("content")
+				+ ".html");
+		if (!body.isFile()) {
+			return null;
+		}
+
+		try {
+			return new Entry(url, new String(readFully(body), CHARSET),
+					meta.getProperty("etag"), meta.getProperty("lastModified"),
+					Long.parseLong(meta.getProperty("fetched", "0")));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Opens the stored copy of a page as a stream, without reading it into
+	 * memory
+	 *
+	 * @param url
+	 *           URL of page to be opened
+	 * @param allowStale
+	 *           true to open the page even if it is older than the
+	 *           time-to-live
+	 * @return Stream of page (to be closed by the caller), or null if the URL
+	 *         has never been stored or the stored copy is stale
+	 */
+	public Reader open(String url, boolean allowStale) {
+		Properties meta = this.readProperties(this.indexFile(url));
+		if (meta == null) {
+			return null;
+		}
+
+		try {
+			long fetched = Long.parseLong(meta.getProperty("fetched", "0"));
+			if (!allowStale
+					&& System.currentTimeMillis() - fetched >= this.timeToLive) {
+				return null;
+			}
+			return new BufferedReader(new InputStreamReader(new FileInputStream(
+					new File(this.objectDirectory, meta.getProperty("content")
+							+ ".html")), CHARSET));
+		} catch (NumberFormatException e) {
+			return null;
+		} catch (IOException e) {
+			return null; // body has gone missing
+		}
+	}
+
+	/**
+	 * Stores a freshly fetched page
+	 *
+	 * @param url
+	 *           URL the page was fetched from
+	 * @param html
+	 *           Body of the page
+	 * @param etag
+	 *           ETag response header (may be null)
+	 * @param lastModified
+	 *           Last-Modified response header (may be null)
+	 * @return the stored page
+	 */
+	public Entry store(String url, String html, String etag,
+			String lastModified) throws IOException {
+		byte[] bytes = html.getBytes(CHARSET);
+		String contentHash = hash(bytes);
+
+		File body = new File(this.objectDirectory, contentHash + ".html");
+		if (!body.isFile()) {
+			this.writeAtomically(body, bytes);
+		}
+
+		Entry entry = new Entry(url, html, etag, lastModified,
+				System.currentTimeMillis());
+		this.writeIndex(entry, contentHash);
+		return entry;
+	}
+
+	/**
+	 * Stores a freshly fetched page as it is read from the network, without
+	 * holding the page in memory
+	 *
+	 * @param url
+	 *           URL the page was fetched from
+	 * @param body
+	 *           Stream of the body of the page; read to the end, not closed
+	 * @param etag
+	 *           ETag response header (may be null)
+	 * @param lastModified
+	 *           Last-Modified response header (may be null)
+	 * @throws IOException
+	 *            if the body could not be read or stored; nothing is stored
+	 */
+	public void store(String url, InputStream body, String etag,
+			String lastModified) throws IOException {
+		MessageDigest digest = digest();
+		File temp = File.createTempFile("object", ".tmp", this.objectDirectory);
+		boolean written = false;
+		OutputStream out = new FileOutputStream(temp);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = body.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+				out.write(buffer, 0, read);
+			}
+			written = true;
+		} finally {
+			out.close();
+			if (!written) {
+				temp.delete();
+			}
+		}
+
+		String contentHash = hex(digest.digest());
+		File stored = new File(this.objectDirectory, contentHash + ".html");
+		if (stored.isFile()) {
+			temp.delete();
+		} else {
+			this.replace(temp, stored);
+		}
+		this.writeIndex(new Entry(url, null, etag, lastModified,
+				System.currentTimeMillis()), contentHash);
+	}
+
+	/**
+	 * Looks up the headers of the stored copy of a page, without reading its
+	 * body
+	 *
+	 * @param url
+	 *           URL of page to be looked up
+	 * @return stored page, whose getHtml() is null; or null if the URL has never
+	 *         been stored
+	 */
+	public Entry lookupHeaders(String url) {
+		Properties meta = this.readProperties(this.indexFile(url));
+		if (meta == null) {
+			return null;
+		}
+		try {
+			return new Entry(url, null, meta.getProperty("etag"),
+					meta.getProperty("lastModified"), Long.parseLong(meta
+							.getProperty("fetched", "0")));
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Records that the stored copy of a page was revalidated against the
+	 * server (HTTP 304) and is fresh again, without reading its body
+	 *
+	 * @param url
+	 *           URL of page that was revalidated
+	 * @throws IOException
+	 *            if the page is not stored, or its record could not be written
+	 */
+	public void touch(String url) throws IOException {
+		File file = this.indexFile(url);
+		Properties meta = this.readProperties(file);
+		if (meta == null) {
+			throw new IOException("Page not stored: " + url);
+		}
+		meta.setProperty("fetched", String.valueOf(System.currentTimeMillis()));
+		this.writeProperties(meta, file);
+	}
+
+	/**
+	 * Records that a stored page was revalidated against the server (HTTP 304)
+	 * and is fresh again
+	 *
+	 * @param entry
+	 *           Page that was revalidated
+	 * @return the page with its fetch time reset
+	 */
+	public Entry touch(Entry entry) throws IOException {
+		Entry touched = new Entry(entry.getUrl(), entry.getHtml(),
+				entry.getEtag(), entry.getLastModified(), System.currentTimeMillis());
+		this.writeIndex(touched, hash(entry.getHtml().getBytes(CHARSET)));
+		return touched;
+	}
+
+	/**
+	 * Whether a stored page can be served without revalidation
+	 *
+	 * @param entry
+	 *           Stored page
+	 * @return true if the page is younger than the time-to-live
+	 */
+	public boolean isFresh(Entry entry) {
+		return System.currentTimeMillis() - entry.getFetched() < this.timeToLive;
+	}
+
+	/**
+	 * Stores saved pages, e.g. test fixtures, so that they can be served
+	 * offline. The directory must hold an index.properties file mapping each
+	 * page's URL to the name of its file in that directory. Saved table
+	 * snapshots are dropped, since they may have been parsed from older pages.
+	 *
+	 * @param directory
+	 *           Directory of saved pages
+	 * @return Number of pages stored
+	 * @throws IOException
+	 *            if the index or a page could not be read
+	 */
+	public int seed(File directory) throws IOException {
+		Properties index = this.readProperties(new File(directory,
+				"index.properties"));
+		if (index == null) {
+			throw new IOException("No index.properties in " + directory);
+		}
+
+		for (String url : index.stringPropertyNames()) {
+			File page = new File(directory, index.getProperty(url));
+			this.store(url, new String(readFully(page), CHARSET), null, null);
+		}
+
+		// tables parsed from the pages replaced are out of date
+		File[] snapshots = this.snapshotDirectory.listFiles();
+		if (snapshots != null) {
+			for (File snapshot : snapshots) {
+				snapshot.delete();
+			}
+		}
+		return index.size();
+	}
+
+	/**
+	 * Loads the saved snapshot of a parsed table. A snapshot is tied to the
+	 * stored body of the page it was parsed from: once that page is stored
+	 * with different contents, the snapshot is deleted.
+	 *
+	 * @param key
+	 *           Key table was saved under
+	 * @param allowStale
+	 *           true to load the snapshot even if its page is older than the
+	 *           time-to-live
+	 * @return Snapshot, or null if none is saved, its page has changed or is
+	 *         stale, or it is unreadable
+	 */
+	public NominationSnapshot loadSnapshot(String key, boolean allowStale) {
+		File file = this.snapshotFile(key);
+		File sourceFile = this.snapshotSourceFile(key);
+		if (!file.isFile()) {
+			return null;
+		}
+
+		Properties source = this.readProperties(sourceFile);
+		Properties page = (source == null) ? null : this.readProperties(this
+				.indexFile(source.getProperty("url", "")));
+		if (page == null
+				|| !page.getProperty("content", "").equals(
+						source.getProperty("content"))) {
+			sourceFile.delete(); // parsed from a page no longer stored
+			file.delete();
+			return null;
+		}
+
+		try {
+			long fetched = Long.parseLong(page.getProperty("fetched", "0"));
+			if (!allowStale
+					&& System.currentTimeMillis() - fetched >= this.timeToLive) {
+				return null; // page is due to be revalidated
+			}
+			return NominationSnapshot.load(file);
+		} catch (NumberFormatException e) {
+			return null;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Saves a snapshot of a parsed table, so that later sessions need not parse
+	 * its page again
+	 *
+	 * @param key
+	 *           Key table is saved under
+	 * @param rows
+	 *           Rows of table
+	 * @param url
+	 *           URL of the stored page the table was parsed from
+	 * @throws IOException
+	 *            if the snapshot could not be written, or the page is not
+	 *            stored
+	 */
+	public void storeSnapshot(String key, List<HashedInfo> rows, String url)
+			throws IOException {
+		Properties page = this.readProperties(this.indexFile(url));
+		if (page == null) {
+			throw new IOException("Page not stored: " + url);
+		}
+
+		// without its source the snapshot is never loaded, so a crash part way
+		// through leaves nothing stale behind
+		File sourceFile = this.snapshotSourceFile(key);
+		sourceFile.delete();
+		NominationSnapshot.write(rows, this.snapshotFile(key));
+
+		Properties source = new Properties();
+		source.setProperty("url", url);
+		source.setProperty("content", page.getProperty("content"));
+		this.writeProperties(source, sourceFile);
+	}
+
+	private File snapshotFile(String key) {
+		return new File(this.snapshotDirectory, this.snapshotName(key) + ".snap");
+	}
+
+	// page a snapshot was parsed from, and the contents it had
+	private File snapshotSourceFile(String key) {
+		return new File(this.snapshotDirectory, this.snapshotName(key)
+				+ ".properties");
+	}
+
+	private String snapshotName(String key) {
+		try {
+			return hash(key.getBytes(CHARSET));
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e); // UTF-8 always supported
+		}
+	}
+
+	private void writeIndex(Entry entry, String contentHash) throws IOException {
+		Properties meta = new Properties();
+		meta.setProperty("url", entry.getUrl());
+		meta.setProperty("content", contentHash);
+		meta.setProperty("fetched", String.valueOf(entry.getFetched()));
+		if (entry.getEtag() != null) {
+			meta.setProperty("etag", entry.getEtag());
+		}
+		if (entry.getLastModified() != null) {
+			meta.setProperty("lastModified", entry.getLastModified());
+		}
+
+		this.writeProperties(meta, this.indexFile(entry.getUrl()));
+	}
+
+	// written to a temporary file first, like pages
+	private void writeProperties(Properties meta, File target)
+			throws IOException {
+		File temp = File.createTempFile("meta", ".tmp", target.getParentFile());
+		OutputStream out = new FileOutputStream(temp);
+		try {
+			meta.store(out, null);
+		} finally {
+			out.close();
+		}
+		this.replace(temp, target);
+	}
+
+	private File indexFile(String url) {
+		try {
+			return new File(this.indexDirectory, hash(url.getBytes(CHARSET))
+					+ ".properties");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e); // UTF-8 always supported
+		}
+	}
+
+	private Properties readProperties(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+
+		Properties meta = new Properties();
+		try {
+			InputStream in = new FileInputStream(file);
+			try {
+				meta.load(in);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+		return meta;
+	}
+
+	// writes to a temporary file first so that concurrent readers never see a
+	// half-written page
+	private void writeAtomically(File target, byte[] bytes) throws IOException {
+		File temp = File.createTempFile("object", ".tmp", this.objectDirectory);
+		OutputStream out = new FileOutputStream(temp);
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+		this.replace(temp, target);
+	}
+
+	private void replace(File temp, File target) throws IOException {
+		if (!temp.renameTo(target)) {
+			target.delete();
+			if (!temp.renameTo(target)) {
+				temp.delete();
+				throw new IOException("Could not write cache file " + target);
+			}
+		}
+	}
+
+	private static byte[] readFully(File file) throws IOException {
+		byte[] bytes = new byte[(int) file.length()];
+		InputStream in = new FileInputStream(file);
+		try {
+			int offset = 0, read;
+			while (offset < bytes.length
+					&& (read = in.read(bytes, offset, bytes.length - offset)) != -1) {
+				offset += read;
+			}
+		} finally {
+			in.close();
+		}
+		return bytes;
+	}
+
+	private static String hash(byte[] bytes) {
+		return hex(digest().digest(bytes));
+	}
+
+	private static MessageDigest digest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // SHA-1 always supported
+		}
+	}
+
+	private static String hex(byte[] hash) {
+		StringBuilder hex = new StringBuilder();
+		for (byte b : hash) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	/**
+	 * Single page held by the cache
+	 */
+	public static class Entry {
+
+		private final String url;
+		private final String html;
+		private final String etag;
+		private final String lastModified;
+		private final long fetched;
+
+		private Entry(String url, String html, String etag, String lastModified,
+				long fetched) {
+			this.url = url;
+			this.html = html;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.fetched = fetched;
+		}
+
+		/**
+		 * Accessor for URL the page was fetched from
+		 *
+		 * @return this.url
+		 */
+		public String getUrl() {
+			return this.url;
+		}
+
+		/**
+		 * Accessor for page body
+		 *
+		 * @return this.html
+		 */
+		public String getHtml() {
+			return this.html;
+		}
+
+		/**
+		 * Accessor for ETag header recorded at fetch time
+		 *
+		 * @return this.etag (may be null)
+		 */
+		public String getEtag() {
+			return this.etag;
+		}
+
+		/**
+		 * Accessor for Last-Modified header recorded at fetch time
+		 *
+		 * @return this.lastModified (may be null)
+		 */
+		public String getLastModified() {
+			return this.lastModified;
+		}
+
+		/**
+		 * Accessor for time (ms since epoch) page was last fetched or
+		 * revalidated
+		 *
+		 * @return this.fetched
+		 */
+		public long getFetched() {
+			return this.fetched;
+		}
+	}
+}
@@ -0,0 +1,243 @@
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Elements;
+
+/**
+ * Measures the table extractors of WikipediaParser against the saved pages in
+ * fixtures/, with no network. Each extractor is run repeatedly on pages parsed
+ * up front: first to warm up, then for a timed period, and its throughput,
+ * time per operation, allocation (bytes per operation and MB/s, where the JVM
+ * can count a thread's allocations) and garbage collections are reported.
+ *
+ * Usage: java ParserBenchmark [seconds per benchmark] [name filter]
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class ParserBenchmark {
+
+	private static final File fixtures = new File("fixtures");
+	private static final String wikiRootURL = "http://en.wikipedia.org/wiki/";
+
+	/**
+	 * One operation under measurement
+	 */
+	private interface Operation {
+
+		/**
+		 * @return Number of rows (or fields) produced; reported, so the work
+		 *         can't be optimized away
+		 */
+		int run();
+	}
+
+	/**
+	 * @param args
+	 *           Seconds to measure each benchmark for (default 3), and text a
+	 *           benchmark name must contain to be run (default all)
+	 * @throws IOException
+	 *            if a fixture page can't be read
+	 */
+	public static void main(String[] args) throws IOException {
+		double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 3;
+		String filter = args.length > 1 ? args[1] : "";
+
+		// parser is offline over an empty cache: only its extractors are used
+		final WikipediaParser parser = new WikipediaParser(new PageCache(new File(
+				System.getProperty("java.io.tmpdir"), "wikicache-bench"),
+				Long.MAX_VALUE), true);
+
+		final List<Element> pictureTables = ParserBenchmark.decadeTables(
+				"best_picture.html", "Academy_Award_for_Best_Picture", 0);
+		final List<Element> actorTables = ParserBenchmark.decadeTables(
+				"best_actor.html", "Academy_Award_for_Best_Actor", 1);
+		final List<Element> directorTables = ParserBenchmark.decadeTables(
+				"best_director.html", "Academy_Award_for_Best_Director", 1);
+		final Element foreignTable = WikipediaParser.foreignTable(ParserBenchmark
+				.page("foreign_language.html",
+						"List_of_Academy_Award_winners_and_nominees_for_Best_Foreign_Language_Film"));
+
+		// nominee cells split the way analyzeWinNomTable splits them
+		final ArrayList<ArrayList<List<Node>>> breakedCells = new ArrayList<ArrayList<List<Node>>>();
+		final ArrayList<ArrayList<List<Node>>> dashedNominees = new ArrayList<ArrayList<List<Node>>>();
+		for (Element table : directorTables) {
+			for (Element row : table.select("tr")) {
+				Elements cells = row.select("> td");
+				if (cells.size() < 3) {
+					continue;
+				}
+				Elements items = cells.get(2).select("li");
+				if (items.size() == 0) {
+					breakedCells.add(WikipediaParser.splitAtBreaks(cells.get(2)
+							.childNodes()));
+				}
+				for (Element item : items) {
+					dashedNominees.add(WikipediaParser.splitAtDash(item.childNodes()));
+				}
+			}
+		}
+
+		LinkedOperations benchmarks = new LinkedOperations();
+		benchmarks.add("analyzeTable(indicator 0)", new Operation() {
+			public int run() {
+				int rows = 0;
+				for (Element table : pictureTables) {
+					rows += parser.analyzeTable(table, 0).size();
+				}
+				return rows;
+			}
+		});
+		benchmarks.add("analyzeTable(indicator 1)", new Operation() {
+			public int run() {
+				int rows = 0;
+				for (Element table : actorTables) {
+					rows += parser.analyzeTable(table, 1).size();
+				}
+				return rows;
+			}
+		});
+		benchmarks.add("analyzeWinNomTable", new Operation() {
+			public int run() {
+				int rows = 0;
+				for (Element table : directorTables) {
+					rows += parser.analyzeWinNomTable(table).size();
+				}
+				return rows;
+			}
+		});
+		benchmarks.add("analyzeForeignTable", new Operation() {
+			public int run() {
+				return foreignTable == null ? 0 : parser.analyzeForeignTable(
+						foreignTable).size();
+			}
+		});
+		benchmarks.add("analyzeBreakedNoms", new Operation() {
+			public int run() {
+				ArrayList<HashedInfo> rows = new ArrayList<HashedInfo>();
+				for (ArrayList<List<Node>> noms : breakedCells) {
+					parser.analyzeBreakedNoms(noms, rows, "1929", "/wiki/1929_in_film");
+				}
+				return rows.size();
+			}
+		});
+		benchmarks.add("analyzeLink", new Operation() {
+			public int run() {
+				int fields = 0;
+				for (ArrayList<List<Node>> nominee : dashedNominees) {
+					fields += parser.analyzeLink(nominee.get(0), nominee.get(1),
+							new HashMap<String, String>()).size();
+				}
+				return fields;
+			}
+		});
+
+		System.out.println(String.format("%-28s %8s %12s %12s %14s %10s %6s",
+				"Benchmark", "rows/op", "ops/s", "us/op", "bytes/op", "MB/s", "GCs"));
+		for (int b = 0; b < benchmarks.names.size(); b++) {
+			if (benchmarks.names.get(b).contains(filter)) {
+				ParserBenchmark.measure(benchmarks.names.get(b),
+						benchmarks.operations.get(b), seconds);
+			}
+		}
+	}
+
+	// warms operation up, then runs it for the given time and prints a row
+	private static void measure(String name, Operation operation, double seconds) {
+		long warmupEnd = System.nanoTime() + (long) (seconds * 1e9 / 2);
+		while (System.nanoTime() < warmupEnd) {
+			operation.run();
+		}
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		long gcsBefore = ParserBenchmark.collections();
+		long allocatedBefore = ParserBenchmark.allocatedBytes(threads);
+		long start = System.nanoTime();
+		long end = start + (long) (seconds * 1e9);
+		long ops = 0;
+		int rows;
+		long now;
+		do {
+			rows = operation.run();
+			ops++;
+			now = System.nanoTime();
+		} while (now < end);
+		long elapsed = now - start;
+		long allocated = ParserBenchmark.allocatedBytes(threads) - allocatedBefore;
+		long gcs = ParserBenchmark.collections() - gcsBefore;
+
+		double opsPerSecond = ops * 1e9 / elapsed;
+		String bytesPerOp = allocatedBefore < 0 ? "n/a" : String.valueOf(allocated
+				/ ops);
+		String mbPerSecond = allocatedBefore < 0 ? "n/a" : String.format("%.1f",
+				allocated * 1e9 / elapsed / (1024 * 1024));
+		System.out.println(String.format("%-28s %8d %12.1f %12.1f %14s %10s %6d",
+				name, rows, opsPerSecond, elapsed / 1e3 / ops, bytesPerOp,
+				mbPerSecond, gcs));
+	}
+
+	// bytes allocated by this thread so far, or -1 if the JVM can't tell
+	private static long allocatedBytes(ThreadMXBean threads) {
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+			if (hotspot.isThreadAllocatedMemorySupported()
+					&& hotspot.isThreadAllocatedMemoryEnabled()) {
+				return hotspot.getThreadAllocatedBytes(Thread.currentThread()
+						.getId());
+			}
+		}
+		return -1;
+	}
+
+	// garbage collections so far, over all collectors
+	private static long collections() {
+		long count = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory
+				.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, gc.getCollectionCount());
+		}
+		return count;
+	}
+
+	private static Document page(String fileName, String title)
+			throws IOException {
+		return Jsoup.parse(new File(ParserBenchmark.fixtures, fileName), "UTF-8",
+				ParserBenchmark.wikiRootURL + title);
+	}
+
+	// award tables of a category page, as getDecadeTableInfo selects them
+	private static List<Element> decadeTables(String fileName, String title,
+			int indicator) throws IOException {
+		ArrayList<Element> tables = new ArrayList<Element>();
+		for (Element table : ParserBenchmark.page(fileName, title).select(
+				"table.wikitable")) {
+			if (WikipediaParser.isDecadeTable(table, indicator)) {
+				tables.add(table);
+			}
+		}
+		return tables;
+	}
+
+	// benchmarks in the order they are run
+	private static class LinkedOperations {
+
+		private final ArrayList<String> names = new ArrayList<String>();
+		private final ArrayList<Operation> operations = new ArrayList<Operation>();
+
+		private void add(String name, Operation operation) {
+			this.names.add(name);
+			this.operations.add(operation);
+		}
+	}
+}
@@ -0,0 +1,430 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timers and counters for the hot paths of WikipediaParser and
+ * MovieInterpreter, to tell where a slow question spends its time: network
+ * fetches, DOM parsing, serializing pages back to text, the Scanner/regex
+ * loops over that text, and table extraction. Pages loaded, cache hits, bytes
+ * downloaded and rows produced are counted as well, and each question records
+ * its time and the pages it loaded.
+ *
+ * Disabled by default; run with -Dwiki.metrics=true (or call enable()) to
+ * record. Metrics are then registered as MBeans under
+ * WikipediaMovieAnalyzer:* and a summary line is written to System.err every
+ * wiki.metrics.logSeconds seconds (default 60; 0 for none). While disabled,
+ * every call here is a check of one volatile flag.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class ParserMetrics implements ParserMetricsMBean {
+
+	private static final String domain = "WikipediaMovieAnalyzer";
+	private static final String enabledProperty = "wiki.metrics";
+	private static final String logSecondsProperty = "wiki.metrics.logSeconds";
+
+	private static volatile boolean enabled;
+	private static boolean registered;
+	private static ScheduledExecutorService logger;
+
+	/** Page downloads, retries included (us) */
+	public static final MetricHistogram fetch = new MetricHistogram("fetch",
+			"us");
+	/** Jsoup parsing of a page into a DOM (us) */
+	public static final MetricHistogram parse = new MetricHistogram("parse",
+			"us");
+	/** Document.toString() of a page before it is scanned (us) */
+	public static final MetricHistogram serialize = new MetricHistogram(
+			"serialize", "us");
+	/** Scanner/regex loops over a page's text (us) */
+	public static final MetricHistogram scan = new MetricHistogram("scan", "us");
+	/** Extraction of an award table's rows from a parsed page (us) */
+	public static final MetricHistogram extract = new MetricHistogram(
+			"extract", "us");
+	/** Size of each page downloaded (bytes) */
+	public static final MetricHistogram pageBytes = new MetricHistogram(
+			"pageBytes", "bytes");
+	/** Rows produced by each table extraction */
+	public static final MetricHistogram tableRows = new MetricHistogram(
+			"tableRows", "rows");
+
+	private static final MetricHistogram[] timers = { ParserMetrics.fetch,
+			ParserMetrics.parse, ParserMetrics.serialize, ParserMetrics.scan,
+			ParserMetrics.extract, ParserMetrics.pageBytes, ParserMetrics.tableRows };
+
+	private static final AtomicLong pageLoads = new AtomicLong();
+	private static final AtomicLong documentCacheHits = new AtomicLong();
+	private static final AtomicLong pageCacheHits = new AtomicLong();
+	private static final AtomicLong revalidations = new AtomicLong();
+	private static final AtomicLong networkFetches = new AtomicLong();
+	private static final AtomicLong bytesFetched = new AtomicLong();
+	private static final AtomicLong tableCacheHits = new AtomicLong();
+	private static final AtomicLong coalescedLoads = new AtomicLong();
+
+	// question name : time (us) / pages loaded per call
+	private static final ConcurrentHashMap<String, MetricHistogram> questionTimes = new ConcurrentHashMap<String, MetricHistogram>();
+	private static final ConcurrentHashMap<String, MetricHistogram> questionPages = new ConcurrentHashMap<String, MetricHistogram>();
+
+	private static final ParserMetrics instance = new ParserMetrics();
+	private static final Question untimed = new Question(null, 0, 0);
+
+	static {
+		if (Boolean.getBoolean(ParserMetrics.enabledProperty)) {
+			ParserMetrics.enable();
+		}
+	}
+
+	private ParserMetrics() {
+	}
+
+	/**
+	 * Whether metrics are being recorded
+	 *
+	 * @return ParserMetrics.enabled
+	 */
+	public static boolean isEnabled() {
+		return ParserMetrics.enabled;
+	}
+
+	/**
+	 * Starts recording. The first call registers the MBeans and starts the
+	 * periodic log line.
+	 */
+	public static synchronized void enable() {
+		ParserMetrics.enabled = true;
+		if (ParserMetrics.registered) {
+			return;
+		}
+		ParserMetrics.registered = true;
+
+		ParserMetrics.register("type=ParserMetrics", ParserMetrics.instance);
+		for (MetricHistogram timer : ParserMetrics.timers) {
+			ParserMetrics.register("type=Metric,name=" + timer.getName(), timer);
+		}
+
+		long logSeconds = Long.getLong(ParserMetrics.logSecondsProperty, 60);
+		if (logSeconds > 0) {
+			ParserMetrics.logger = Executors
+					.newSingleThreadScheduledExecutor(new ThreadFactory() {
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "wiki-metrics");
+							t.setDaemon(true);
+							return t;
+						}
+					});
+			ParserMetrics.logger.scheduleAtFixedRate(new Runnable() {
+				public void run() {
+					System.err.println("[metrics] " + ParserMetrics.summary());
+				}
+			}, logSeconds, logSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Stops recording; metrics recorded so far are kept
+	 */
+	public static void disable() {
+		ParserMetrics.enabled = false;
+	}
+
+	/**
+	 * Start of a timed call
+	 *
+	 * @return System.nanoTime(), or 0 if disabled (passed to
+	 *         MetricHistogram.stop)
+	 */
+	public static long start() {
+		return ParserMetrics.enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Counts pages asked for
+	 *
+	 * @param pages
+	 *           Number of pages
+	 */
+	public static void pageLoads(int pages) {
+		if (ParserMetrics.enabled) {
+			ParserMetrics.pageLoads.addAndGet(pages);
+		}
+	}
+
+	/**
+	 * Counts a page served from parsed pages in memory
+	 */
+	public static void documentCacheHit() {
+		if (ParserMetrics.enabled) {
+			ParserMetrics.documentCacheHits.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Counts a page served from the on-disk cache without a request
+	 */
+	public static void pageCacheHit() {
+		if (ParserMetrics.enabled) {
+			ParserMetrics.pageCacheHits.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Counts a request answered 304 Not Modified
+	 */
+	public static void revalidated() {
+		if (ParserMetrics.enabled) {
+			ParserMetrics.revalidations.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Counts a page downloaded
+	 *
+	 * @param bytes
+	 *           Size of page
+	 */
+	public static void fetched(long bytes) {
+		if (ParserMetrics.enabled) {
+			ParserMetrics.networkFetches.incrementAndGet();
+			ParserMetrics.bytesFetched.addAndGet(bytes);
+			ParserMetrics.pageBytes.record(bytes);
+		}
+	}
+
+	/**
+	 * Counts an award table served from memory or a saved snapshot
+	 */
+	public static void tableCacheHit() {
+		if (ParserMetrics.enabled) {
+			ParserMetrics.tableCacheHits.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Counts a load that waited for the same load in flight on another thread
+	 * instead of running its own
+	 */
+	public static void coalescedLoad() {
+		if (ParserMetrics.enabled) {
+			ParserMetrics.coalescedLoads.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Starts timing a question
+	 *
+	 * @param name
+	 *           Name of question (e.g. getQuadThreat)
+	 * @return Timing of question; end() records it
+	 */
+	public static Question beginQuestion(String name) {
+		if (!ParserMetrics.enabled) {
+			return ParserMetrics.untimed;
+		}
+		return new Question(name, System.nanoTime(),
+				ParserMetrics.pageLoads.get());
+	}
+
+	/**
+	 * Time (us) taken by each call of a question
+	 *
+	 * @param name
+	 *           Name of question
+	 * @return Histogram, or null if the question has not been timed
+	 */
+	public static MetricHistogram questionTime(String name) {
+		return ParserMetrics.questionTimes.get(name);
+	}
+
+	/**
+	 * Pages loaded by each call of a question. Pages loaded by questions
+	 * running at the same time are counted towards each of them.
+	 *
+	 * @param name
+	 *           Name of question
+	 * @return Histogram, or null if the question has not been timed
+	 */
+	public static MetricHistogram questionPages(String name) {
+		return ParserMetrics.questionPages.get(name);
+	}
+
+	/**
+	 * One-line summary of every metric recorded
+	 *
+	 * @return e.g. "pages=14 (memory 3, disk 0, 304 0, downloaded 11, 86302
+	 *         bytes) tables cached=2 coalesced=0; fetch n=11 ... ; q getQuadThreat ..."
+	 */
+	public static String summary() {
+		StringBuilder line = new StringBuilder();
+		line.append("pages=").append(ParserMetrics.pageLoads.get())
+				.append(" (memory ").append(ParserMetrics.documentCacheHits.get())
+				.append(", disk ").append(ParserMetrics.pageCacheHits.get())
+				.append(", 304 ").append(ParserMetrics.revalidations.get())
+				.append(", downloaded ").append(ParserMetrics.networkFetches.get())
+				.append(", ").append(ParserMetrics.bytesFetched.get())
+				.append(" bytes) tables cached=")
+				.append(ParserMetrics.tableCacheHits.get()).append(" coalesced=")
+				.append(ParserMetrics.coalescedLoads.get());
+		for (MetricHistogram timer : ParserMetrics.timers) {
+			if (timer.getCount() > 0) {
+				line.append("; ").append(timer);
+			}
+		}
+		for (Map.Entry<String, MetricHistogram> question : ParserMetrics.questionTimes
+				.entrySet()) {
+			MetricHistogram pages = ParserMetrics.questionPages.get(question
+					.getKey());
+			line.append("; q ").append(question.getValue()).append(", ")
+					.append(String.format("%.1f", pages.getMean()))
+					.append(" pages");
+		}
+		return line.toString();
+	}
+
+	/**
+	 * Forgets every metric recorded so far
+	 */
+	public static void resetAll() {
+		for (MetricHistogram timer : ParserMetrics.timers) {
+			timer.reset();
+		}
+		ArrayList<MetricHistogram> questions = new ArrayList<MetricHistogram>(
+				ParserMetrics.questionTimes.values());
+		questions.addAll(ParserMetrics.questionPages.values());
+		for (MetricHistogram question : questions) {
+			question.reset();
+		}
+		ParserMetrics.pageLoads.set(0);
+		ParserMetrics.documentCacheHits.set(0);
+		ParserMetrics.pageCacheHits.set(0);
+		ParserMetrics.revalidations.set(0);
+		ParserMetrics.networkFetches.set(0);
+		ParserMetrics.bytesFetched.set(0);
+		ParserMetrics.tableCacheHits.set(0);
+		ParserMetrics.coalescedLoads.set(0);
+	}
+
+	public boolean isRecording() {
+		return ParserMetrics.enabled;
+	}
+
+	public void setRecording(boolean recording) {
+		if (recording) {
+			ParserMetrics.enable();
+		} else {
+			ParserMetrics.disable();
+		}
+	}
+
+	public long getPageLoads() {
+		return ParserMetrics.pageLoads.get();
+	}
+
+	public long getDocumentCacheHits() {
+		return ParserMetrics.documentCacheHits.get();
+	}
+
+	public long getPageCacheHits() {
+		return ParserMetrics.pageCacheHits.get();
+	}
+
+	public long getRevalidations() {
+		return ParserMetrics.revalidations.get();
+	}
+
+	public long getNetworkFetches() {
+		return ParserMetrics.networkFetches.get();
+	}
+
+	public long getBytesFetched() {
+		return ParserMetrics.bytesFetched.get();
+	}
+
+	public long getTableCacheHits() {
+		return ParserMetrics.tableCacheHits.get();
+	}
+
+	public long getCoalescedLoads() {
+		return ParserMetrics.coalescedLoads.get();
+	}
+
+	public String getSummary() {
+		return ParserMetrics.summary();
+	}
+
+	public void reset() {
+		ParserMetrics.resetAll();
+	}
+
+	// histogram of a question, created (and registered) on first use
+	private static MetricHistogram questionMetric(
+			ConcurrentHashMap<String, MetricHistogram> metrics, String question,
+			String metric, String unit) {
+		MetricHistogram histogram = metrics.get(question);
+		if (histogram == null) {
+			MetricHistogram created = new MetricHistogram(question, unit);
+			histogram = metrics.putIfAbsent(question, created);
+			if (histogram == null) {
+				histogram = created;
+				ParserMetrics.register("type=Question,name=" + question
+						+ ",metric=" + metric, created);
+			}
+		}
+		return histogram;
+	}
+
+	private static void register(String properties, Object bean) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName(ParserMetrics.domain + ":"
+					+ properties);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(bean, name);
+			}
+		} catch (JMException e) {
+			e.printStackTrace(); // metrics are still recorded and logged
+		}
+	}
+
+	/**
+	 * Timing of one call of a question
+	 */
+	public static final class Question {
+
+		private final String name;
+		private final long start;
+		private final long pagesBefore;
+
+		private Question(String name, long start, long pagesBefore) {
+			this.name = name;
+			this.start = start;
+			this.pagesBefore = pagesBefore;
+		}
+
+		/**
+		 * Records the question's time and the pages it loaded
+		 */
+		public void end() {
+			if (this.name == null) {
+				return;
+			}
+			ParserMetrics.questionMetric(ParserMetrics.questionTimes, this.name,
+					"time", "us").stop(this.start);
+			ParserMetrics.questionMetric(ParserMetrics.questionPages, this.name,
+					"pages", "pages").record(
+					ParserMetrics.pageLoads.get() - this.pagesBefore);
+		}
+	}
+}
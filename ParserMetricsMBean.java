@@ -0,0 +1,74 @@
+/**
+ * Management interface of the ParserMetrics counters, as seen in JConsole /
+ * VisualVM. Timers and histograms are registered as MetricHistogram beans of
+ * their own.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public interface ParserMetricsMBean {
+
+	/**
+	 * @return true while metrics are recorded
+	 */
+	boolean isRecording();
+
+	/**
+	 * Starts or stops recording
+	 *
+	 * @param recording
+	 *           true to record metrics
+	 */
+	void setRecording(boolean recording);
+
+	/**
+	 * @return Pages asked for (from any cache or the network)
+	 */
+	long getPageLoads();
+
+	/**
+	 * @return Pages served from parsed pages kept in memory
+	 */
+	long getDocumentCacheHits();
+
+	/**
+	 * @return Pages served from the on-disk cache without a request
+	 */
+	long getPageCacheHits();
+
+	/**
+	 * @return Requests answered 304 Not Modified
+	 */
+	long getRevalidations();
+
+	/**
+	 * @return Pages downloaded
+	 */
+	long getNetworkFetches();
+
+	/**
+	 * @return Bytes of pages downloaded (after decompression)
+	 */
+	long getBytesFetched();
+
+	/**
+	 * @return Award tables served from memory or a saved snapshot
+	 */
+	long getTableCacheHits();
+
+	/**
+	 * @return Loads that shared a load of the same page already in flight
+	 */
+	long getCoalescedLoads();
+
+	/**
+	 * @return One-line summary of every metric
+	 */
+	String getSummary();
+
+	/**
+	 * Forgets every metric recorded so far
+	 */
+	void reset();
+}
@@ -0,0 +1,125 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Fixed set of literal phrases that can all be looked for in a text in a
+ * single pass (Aho-Corasick automaton), rather than searching the text once
+ * per phrase
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class PhraseSet {
+
+	private final List<String> phrases;
+
+	// trie of phrases: children of each state by character, state reached on
+	// a mismatch, and phrases (by index) that end at each state, including
+	// those reached through the failure links
+	private final ArrayList<HashMap<Character, Integer>> children = new ArrayList<HashMap<Character, Integer>>();
+	private final ArrayList<Integer> failure = new ArrayList<Integer>();
+	private final ArrayList<int[]> output = new ArrayList<int[]>();
+
+	/**
+	 * Constructor. Builds automaton for phrases.
+	 *
+	 * @param phrases
+	 *           Phrases to be looked for
+	 */
+	public PhraseSet(List<String> phrases) {
+		this.phrases = new ArrayList<String>(phrases);
+
+		ArrayList<ArrayList<Integer>> ends = new ArrayList<ArrayList<Integer>>();
+		this.newState(ends);
+		for (int p = 0; p < this.phrases.size(); p++) {
+			String phrase = this.phrases.get(p);
+			int state = 0;
+			for (int i = 0; i < phrase.length(); i++) {
+				Integer next = this.children.get(state).get(phrase.charAt(i));
+				if (next == null) {
+					next = this.newState(ends);
+					this.children.get(state).put(phrase.charAt(i), next);
+				}
+				state = next;
+			}
+			ends.get(state).add(p);
+		}
+
+		// failure links, breadth first so that shorter suffixes are done first
+		LinkedList<Integer> queue = new LinkedList<Integer>();
+		for (int child : this.children.get(0).values()) {
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.poll();
+			for (Character c : this.children.get(state).keySet()) {
+				int child = this.children.get(state).get(c);
+				int fallback = this.failure.get(state);
+				while (fallback != 0 && !this.children.get(fallback).containsKey(c)) {
+					fallback = this.failure.get(fallback);
+				}
+				Integer target = this.children.get(fallback).get(c);
+				this.failure.set(child, (target == null || target == child) ? 0
+						: target);
+				ends.get(child).addAll(ends.get(this.failure.get(child)));
+				queue.add(child);
+			}
+		}
+
+		for (ArrayList<Integer> e : ends) {
+			int[] indexes = new int[e.size()];
+			for (int i = 0; i < indexes.length; i++) {
+				indexes[i] = e.get(i);
+			}
+			this.output.add(indexes);
+		}
+	}
+
+	/**
+	 * Finds which phrases occur in a text
+	 *
+	 * @param text
+	 *           Text to be searched
+	 * @return For each phrase (by index), whether it occurs in text
+	 */
+	public boolean[] findIn(String text) {
+		boolean[] found = new boolean[this.phrases.size()];
+		for (int p : this.output.get(0)) {
+			found[p] = true; // empty phrases occur in any text
+		}
+
+		int state = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			Integer next = this.children.get(state).get(c);
+			while (next == null && state != 0) {
+				state = this.failure.get(state);
+				next = this.children.get(state).get(c);
+			}
+			state = (next == null) ? 0 : next;
+			for (int p : this.output.get(state)) {
+				found[p] = true;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Accessor for phrases
+	 *
+	 * @return Phrases, by index
+	 */
+	public List<String> getPhrases() {
+		return this.phrases;
+	}
+
+	private int newState(ArrayList<ArrayList<Integer>> ends) {
+		this.children.add(new HashMap<Character, Integer>());
+		this.failure.add(0);
+		ends.add(new ArrayList<Integer>());
+		return this.children.size() - 1;
+	}
+}
@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+/**
+ * Immutable index of the hyperlinks on a page (here, the Academy Awards
+ * Portal). Built once from the parsed page so that repeated link lookups never
+ * go back to the network or re-scan the page.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class PortalIndex {
+
+	private static final Pattern awardHref = Pattern
+			.compile(".*Academy.*Awards.*");
+
+	private final List<String> links;
+	private final Map<String, String> awardLinks;
+
+	/**
+	 * Constructor. Indexes every hyperlink on the given page.
+	 *
+	 * @param page
+	 *           Parsed page to be indexed
+	 * @param wikiRootURL
+	 *           Root of the wiki; absolute links under it are stored relative
+	 *           to it
+	 */
+	public PortalIndex(Document page, String wikiRootURL) {
+		LinkedHashSet<String> allLinks = new LinkedHashSet<String>();
+		HashMap<String, String> awards = new HashMap<String, String>();
+
+		for (Element e : page.select("[href]")) {
+			String url = e.attr("abs:href");
+
+			// converts absolute url to relative
+			int rootIndex = url.indexOf(wikiRootURL);
+			if (rootIndex != -1) {
+				url = url.substring(rootIndex + wikiRootURL.length());
+			}
+			allLinks.add(url);
+
+			// uses the link display text : link hyperlink as a K:V pair
+			if (e.tagName().equals("a") && e.hasAttr("title")) {
+				String href = e.attr("href");
+				if (PortalIndex.awardHref.matcher(href).matches()) {
+					awards.put(e.text(), href);
+				}
+			}
+		}
+
+		this.links = Collections.unmodifiableList(new ArrayList<String>(
+				allLinks));
+		this.awardLinks = Collections.unmodifiableMap(awards);
+	}
+
+	/**
+	 * Returns links on page that contain search, in page order
+	 *
+	 * @param search
+	 *           Search query
+	 * @return ArrayList of matching (relative) links
+	 */
+	public ArrayList<String> linksContaining(String search) {
+		ArrayList<String> matches = new ArrayList<String>();
+		for (String link : this.links) {
+			if (link.contains(search)) {
+				matches.add(link);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Returns award links whose display text contains search
+	 *
+	 * @param search
+	 *           Search query to be looked for (as literal text) in text of
+	 *           hyperlinks
+	 * @return HashMap<String,String> where the key corresponds to text and value
+	 *         to link in hyperlink
+	 */
+	public HashMap<String, String> awardLinksMatching(String search) {
+		HashMap<String, String> matches = new HashMap<String, String>();
+		for (Map.Entry<String, String> e : this.awardLinks.entrySet()) {
+			if (e.getKey().indexOf(search) != -1) {
+				matches.put(e.getKey(), e.getValue());
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Returns link to award ceremony page for a given year
+	 *
+	 * @param year
+	 *           Year (as displayed on page) to be looked up
+	 * @return Relative link to that year's ceremony, or null if not on page
+	 */
+	public String getYearLink(String year) {
+		return this.awardLinks.get(year);
+	}
+}
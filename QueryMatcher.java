@@ -0,0 +1,87 @@
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Search term compiled once per query and then tested against many values.
+ * Plain terms are matched as literal text anywhere in a value, so titles such
+ * as "Who's Afraid of Virginia Woolf?" or "Star Wars (1977)" match as typed;
+ * regular expressions are only used when asked for.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public abstract class QueryMatcher {
+
+	/**
+	 * Compiles a search term
+	 *
+	 * @param query
+	 *           Search term
+	 * @param regex
+	 *           true to read query as a regular expression, found anywhere in
+	 *           a value; false to read it as literal text
+	 * @return Matcher for query
+	 * @throws PatternSyntaxException
+	 *            if regex is true and query is not a valid regular expression
+	 */
+	public static QueryMatcher compile(String query, boolean regex) {
+		return regex ? new RegexMatcher(query) : new LiteralMatcher(query);
+	}
+
+	/**
+	 * Compiles a search term as literal text
+	 *
+	 * @param query
+	 *           Search term
+	 * @return Matcher finding query anywhere in a value
+	 */
+	public static QueryMatcher literal(String query) {
+		return new LiteralMatcher(query);
+	}
+
+	/**
+	 * Tests a value
+	 *
+	 * @param value
+	 *           Value to be tested (may be null)
+	 * @return true if value is not null and query is found in it
+	 */
+	public abstract boolean matches(String value);
+
+	// literal text, found with indexOf
+	private static class LiteralMatcher extends QueryMatcher {
+
+		private final String query;
+
+		private LiteralMatcher(String query) {
+			this.query = query;
+		}
+
+		public boolean matches(String value) {
+			return value != null && value.indexOf(this.query) != -1;
+		}
+
+		public String toString() {
+			return this.query;
+		}
+	}
+
+	// regular expression, found anywhere in value
+	private static class RegexMatcher extends QueryMatcher {
+
+		private final Pattern pattern;
+
+		private RegexMatcher(String query) {
+			this.pattern = Pattern.compile(query);
+		}
+
+		public boolean matches(String value) {
+			return value != null && this.pattern.matcher(value).find();
+		}
+
+		public String toString() {
+			return this.pattern.pattern();
+		}
+	}
+}
@@ -0,0 +1,235 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Times each of the ten GUI questions end to end against a LocalWikiServer
+ * replaying the saved pages in fixtures/, with the given latency and jitter
+ * per page. Every run of a question starts cold (new parser, empty page
+ * cache), and reports wall time (p50/p99 over the runs), pages fetched, bytes
+ * transferred and errors logged.
+ *
+ * Fetch counts are checked as well: a run that fetches any page twice, or more
+ * pages than the question's budget in fixtures/fetch-budget.properties, fails
+ * the benchmark (exit status 1).
+ *
+ * Usage: java QuestionBenchmark [runs] [latency ms] [jitter ms]
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class QuestionBenchmark {
+
+	private static final File fixtures = new File("fixtures");
+	private static final String budgetFile = "fetch-budget.properties";
+
+	/**
+	 * One GUI question, asked through MovieInterpreter
+	 */
+	private static abstract class Question {
+
+		private final String name;
+
+		private Question(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * @param info
+		 *           Interpreter to ask
+		 * @return Answer, as a collection (its size is reported as a sanity
+		 *         check)
+		 */
+		abstract Collection<?> ask(MovieInterpreter info);
+	}
+
+	private static final Question[] questions = {
+			new Question("q1 bestPictureSearch") {
+				Collection<?> ask(MovieInterpreter info) {
+					return info.bestPictureSearch("Production company(s)", "Paramount");
+				}
+			}, new Question("q2 originalScreenplayWriters") {
+				Collection<?> ask(MovieInterpreter info) {
+					return Arrays.asList(info.originalScreenplayWriters("Citizen Kane"));
+				}
+			}, new Question("q3 bestLeadingActor") {
+				Collection<?> ask(MovieInterpreter info) {
+					return info.bestLeadingActor("Kid");
+				}
+			}, new Question("q4 getCategoryYearInfo") {
+				Collection<?> ask(MovieInterpreter info) {
+					return info.getCategoryYearInfo("Best Actress", 2012);
+				}
+			}, new Question("q5 bestDirectorThreshold") {
+				Collection<?> ask(MovieInterpreter info) {
+					return info.bestDirectorThreshold(2);
+				}
+			}, new Question("q6 getMaxForeignWins") {
+				Collection<?> ask(MovieInterpreter info) {
+					return Arrays.asList(info.getMaxForeignWins());
+				}
+			}, new Question("q7 getCategoryStarring") {
+				Collection<?> ask(MovieInterpreter info) {
+					return info.getCategoryStarring("Best_Director", "Jennifer Lawrence");
+				}
+			}, new Question("q8 getQuadThreat") {
+				Collection<?> ask(MovieInterpreter info) {
+					return info.getQuadThreat().entrySet();
+				}
+			}, new Question("q9 getBestPictureCount") {
+				Collection<?> ask(MovieInterpreter info) {
+					return Arrays.asList(info.getBestPictureCount());
+				}
+			}, new Question("q10 getBestActorCount") {
+				Collection<?> ask(MovieInterpreter info) {
+					return Arrays.asList(info.getBestActorCount());
+				}
+			} };
+
+	/**
+	 * @param args
+	 *           Runs per question (default 5), latency per page in ms (default
+	 *           50) and jitter per page in ms (default 50)
+	 * @throws IOException
+	 *            if the fixtures can't be read or the server can't start
+	 */
+	public static void main(String[] args) throws IOException {
+		int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+		long latency = args.length > 1 ? Long.parseLong(args[1]) : 50;
+		long jitter = args.length > 2 ? Long.parseLong(args[2]) : 50;
+
+		Properties budgets = new Properties();
+		File budgetPath = new File(QuestionBenchmark.fixtures,
+				QuestionBenchmark.budgetFile);
+		if (budgetPath.isFile()) {
+			InputStream in = new FileInputStream(budgetPath);
+			try {
+				budgets.load(in);
+			} finally {
+				in.close();
+			}
+		}
+
+		LocalWikiServer server = new LocalWikiServer(QuestionBenchmark.fixtures,
+				latency, jitter);
+		server.start();
+		File cacheDir = new File(System.getProperty("java.io.tmpdir"),
+				"wikicache-questions");
+		ArrayList<String> failures = new ArrayList<String>();
+
+		System.out.println(String.format("%-30s %6s %9s %9s %6s %10s %7s %7s",
+				"Question", "runs", "p50 ms", "p99 ms", "pages", "bytes", "errors",
+				"answer"));
+		try {
+			for (Question question : QuestionBenchmark.questions) {
+				long[] times = new long[runs];
+				int pages = 0, errors = 0, answer = 0;
+				long bytes = 0;
+
+				for (int run = 0; run < runs; run++) {
+					QuestionBenchmark.delete(cacheDir);
+					MovieInterpreter info = new MovieInterpreter(new WikipediaParser(
+							new PageCache(cacheDir, Long.MAX_VALUE), false,
+							new FetchConfig().setRootURL(server.getRootURL())));
+					server.reset();
+
+					// pages missing from the fixtures are logged as they fail;
+					// counted rather than shown
+					ByteArrayOutputStream log = new ByteArrayOutputStream();
+					PrintStream stderr = System.err;
+					System.setErr(new PrintStream(log, true));
+					long start = System.nanoTime();
+					try {
+						answer = question.ask(info).size();
+					} catch (RuntimeException e) {
+						e.printStackTrace();
+					} finally {
+						times[run] = System.nanoTime() - start;
+						System.setErr(stderr);
+						info.shutdown();
+					}
+
+					pages = Math.max(pages, server.getRequestCount());
+					bytes = Math.max(bytes, server.getBytesSent());
+					errors = Math.max(errors, QuestionBenchmark.countErrors(log
+							.toString("UTF-8")));
+					for (Map.Entry<String, Integer> path : server.getRequests()
+							.entrySet()) {
+						if (path.getValue() > 1) {
+							failures.add(question.name + " fetched " + path.getKey() + " "
+									+ path.getValue() + " times");
+						}
+					}
+				}
+
+				String budget = budgets.getProperty(question.name.split(" ")[0]);
+				if (budget != null && pages > Integer.parseInt(budget.trim())) {
+					failures.add(question.name + " fetched " + pages
+							+ " pages; budget is " + budget.trim());
+				}
+
+				Arrays.sort(times);
+				System.out.println(String.format(
+						"%-30s %6d %9.1f %9.1f %6d %10d %7d %7d", question.name, runs,
+						QuestionBenchmark.percentile(times, 0.50) / 1e6,
+						QuestionBenchmark.percentile(times, 0.99) / 1e6, pages, bytes,
+						errors, answer));
+			}
+		} finally {
+			server.stop();
+			QuestionBenchmark.delete(cacheDir);
+		}
+
+		if (!failures.isEmpty()) {
+			// each repeated fetch is reported once
+			TreeMap<String, Boolean> unique = new TreeMap<String, Boolean>();
+			for (String failure : failures) {
+				unique.put(failure, true);
+			}
+			for (String failure : unique.keySet()) {
+				System.out.println("FAIL: " + failure);
+			}
+			System.exit(1);
+		}
+		System.out.println("Fetch counts OK");
+	}
+
+	// nearest-rank percentile of sorted values
+	private static long percentile(long[] sorted, double p) {
+		int rank = (int) Math.ceil(p * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+	}
+
+	// exceptions printed to the log
+	private static int countErrors(String log) {
+		int errors = 0;
+		for (String line : log.split("\n")) {
+			if (line.length() > 0 && !Character.isWhitespace(line.charAt(0))
+					&& !line.startsWith("Caused by")
+					&& (line.contains("Exception") || line.contains("Error"))) {
+				errors++;
+			}
+		}
+		return errors;
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				QuestionBenchmark.delete(child);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,215 @@
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Writes the text of an answer to an Appendable as it is produced, a line or
+ * a table row at a time, so that output grows in linear time. Past a limit on
+ * lines, further lines are only counted, and a note of how many were left out
+ * ends the output, so a huge answer never turns into a huge string.
+ *
+ * Table rows are aligned into columns a page at a time: each page of rows is
+ * held until it is full, then written under a header row with every column
+ * padded to the widest value on that page.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class ResultFormatter implements ResultListener<String> {
+
+	// rows aligned together in a table
+	private static final int pageRows = 50;
+	private static final String columnGap = "   ";
+
+	private final Appendable out;
+	private final int maxLines;
+	private int lines;
+	private int omitted;
+
+	private String[] headers; // null unless writing a table
+	private final ArrayList<String[]> page = new ArrayList<String[]>();
+
+	/**
+	 * Constructor
+	 *
+	 * @param out
+	 *           Where text is written
+	 * @param maxLines
+	 *           Most lines written (table headers included), or a negative
+	 *           number for no limit
+	 */
+	public ResultFormatter(Appendable out, int maxLines) {
+		this.out = out;
+		this.maxLines = maxLines;
+	}
+
+	/**
+	 * Writes a line of text, if under the limit
+	 *
+	 * @param text
+	 *           Line to be written (without line break)
+	 * @return true if the line was written; false if it was left out
+	 */
+	public boolean line(String text) {
+		if (this.maxLines >= 0 && this.lines >= this.maxLines) {
+			this.omitted++;
+			return false;
+		}
+		this.append(text);
+		this.append("\n");
+		this.lines++;
+		return true;
+	}
+
+	/**
+	 * Writes a streamed line of an answer. Lines past the limit are counted,
+	 * and the answer is not stopped.
+	 *
+	 * @param line
+	 *           Line to be written (without line break)
+	 * @return true
+	 */
+	public boolean result(String line) {
+		this.line(line);
+		return true;
+	}
+
+	/**
+	 * Starts a table. Rows written after this are aligned under headers.
+	 *
+	 * @param headers
+	 *           Column names
+	 */
+	public void table(String... headers) {
+		this.flushPage();
+		this.headers = headers;
+	}
+
+	/**
+	 * Adds a row to the current table
+	 *
+	 * @param cells
+	 *           Values of row, by column (null written as empty)
+	 */
+	public void row(String... cells) {
+		this.page.add(cells);
+		if (this.page.size() == ResultFormatter.pageRows) {
+			this.flushPage();
+		}
+	}
+
+	/**
+	 * Ends output: writes rows still held and notes any lines left out
+	 */
+	public void finish() {
+		this.flushPage();
+		this.headers = null;
+		if (this.omitted > 0) {
+			this.append("... " + this.omitted
+					+ (this.omitted == 1 ? " more line" : " more lines")
+					+ " not shown\n");
+		}
+	}
+
+	/**
+	 * Number of lines written
+	 *
+	 * @return this.lines
+	 */
+	public int getLines() {
+		return this.lines;
+	}
+
+	/**
+	 * Number of lines left out for being past the limit
+	 *
+	 * @return this.omitted
+	 */
+	public int getOmitted() {
+		return this.omitted;
+	}
+
+	/**
+	 * Formats a list of lines into a string under a limit
+	 *
+	 * @param lines
+	 *           Lines to be formatted
+	 * @param maxLines
+	 *           Most lines kept, or a negative number for no limit
+	 * @return Lines, each ending with a line break, and a note of any left out
+	 */
+	public static String joinLines(Iterable<String> lines, int maxLines) {
+		StringBuilder text = new StringBuilder();
+		ResultFormatter formatter = new ResultFormatter(text, maxLines);
+		for (String line : lines) {
+			formatter.line(line);
+		}
+		formatter.finish();
+		return text.toString();
+	}
+
+	// writes held rows as one aligned page under the headers
+	private void flushPage() {
+		if (this.page.isEmpty()) {
+			return;
+		}
+		int needed = (this.headers == null) ? 1 : 2;
+		if (this.maxLines >= 0 && this.lines + needed > this.maxLines) {
+			// no room for a header and a row
+			this.omitted += this.page.size();
+			this.page.clear();
+			return;
+		}
+
+		int columns = (this.headers == null) ? 0 : this.headers.length;
+		for (String[] cells : this.page) {
+			columns = Math.max(columns, cells.length);
+		}
+		int[] widths = new int[columns];
+		if (this.headers != null) {
+			ResultFormatter.widen(widths, this.headers);
+		}
+		for (String[] cells : this.page) {
+			ResultFormatter.widen(widths, cells);
+		}
+
+		if (this.headers != null) {
+			this.line(this.aligned(this.headers, widths));
+		}
+		for (String[] cells : this.page) {
+			this.line(this.aligned(cells, widths));
+		}
+		this.page.clear();
+	}
+
+	private static void widen(int[] widths, String[] cells) {
+		for (int c = 0; c < cells.length; c++) {
+			int length = (cells[c] == null) ? 0 : cells[c].length();
+			widths[c] = Math.max(widths[c], length);
+		}
+	}
+
+	// cells padded to widths (the last is not padded)
+	private String aligned(String[] cells, int[] widths) {
+		StringBuilder line = new StringBuilder();
+		for (int c = 0; c < cells.length; c++) {
+			String cell = (cells[c] == null) ? "" : cells[c];
+			line.append(cell);
+			if (c < cells.length - 1) {
+				for (int pad = cell.length(); pad < widths[c]; pad++) {
+					line.append(' ');
+				}
+				line.append(ResultFormatter.columnGap);
+			}
+		}
+		return line.toString();
+	}
+
+	private void append(String text) {
+		try {
+			this.out.append(text);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not write result", e);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+/**
+ * Receives the results of a question one at a time, as soon as each one
+ * qualifies, instead of as a complete list at the end
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ * @param <T>
+ *           Type of result
+ */
+public interface ResultListener<T> {
+
+	/**
+	 * Called once for each result, never from two threads at once
+	 *
+	 * @param result
+	 *           Next result
+	 * @return true to keep going; false to stop the question early, without
+	 *         fetching pages for the results not yet found
+	 */
+	boolean result(T result);
+}
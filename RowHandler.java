@@ -0,0 +1,19 @@
+/**
+ * Receives rows of an award table one at a time, as they are read
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public interface RowHandler {
+
+	/**
+	 * Called once for each row, in page order
+	 *
+	 * @param row
+	 *           Nominee and associated info
+	 * @return true to go on reading; false to stop, e.g. once the row looked
+	 *         for has been found
+	 */
+	boolean row(HashedInfo row);
+}
@@ -0,0 +1,116 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Ordered column names shared by rows of a table. Schemas are interned, so
+ * every row with the same columns points at one schema and holds only its
+ * values.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public final class RowSchema {
+
+	// column list : the one schema with those columns
+	private static final HashMap<List<String>, RowSchema> interned = new HashMap<List<String>, RowSchema>();
+
+	private final List<String> columns;
+	private final HashMap<String, Integer> indexes;
+
+	private RowSchema(List<String> columns) {
+		this.columns = Collections.unmodifiableList(columns);
+		this.indexes = new HashMap<String, Integer>();
+		for (int i = 0; i < columns.size(); i++) {
+			if (this.indexes.put(columns.get(i), i) != null) {
+				throw new IllegalArgumentException("Repeated column "
+						+ columns.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Returns the schema with the given columns
+	 *
+	 * @param columns
+	 *           Column names, in order
+	 * @return Interned schema
+	 * @throws IllegalArgumentException
+	 *            if a column name is repeated
+	 */
+	public static RowSchema of(String... columns) {
+		return RowSchema.of(Arrays.asList(columns));
+	}
+
+	/**
+	 * Returns the schema with the given columns
+	 *
+	 * @param columns
+	 *           Column names, in order
+	 * @return Interned schema
+	 * @throws IllegalArgumentException
+	 *            if a column name is repeated
+	 */
+	public static RowSchema of(List<String> columns) {
+		synchronized (RowSchema.interned) {
+			RowSchema schema = RowSchema.interned.get(columns);
+			if (schema == null) {
+				ArrayList<String> copy = new ArrayList<String>(columns);
+				schema = new RowSchema(copy);
+				RowSchema.interned.put(copy, schema);
+			}
+			return schema;
+		}
+	}
+
+	/**
+	 * Position of a column
+	 *
+	 * @param column
+	 *           Column name
+	 * @return Index of column, or -1 if schema has no such column
+	 */
+	public int indexOf(String column) {
+		Integer index = this.indexes.get(column);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Number of columns
+	 *
+	 * @return Size of this.columns
+	 */
+	public int size() {
+		return this.columns.size();
+	}
+
+	/**
+	 * Accessor for a column name
+	 *
+	 * @param index
+	 *           Position of column
+	 * @return Column name
+	 */
+	public String getColumn(int index) {
+		return this.columns.get(index);
+	}
+
+	/**
+	 * Accessor for column names
+	 *
+	 * @return Read-only list of this.columns
+	 */
+	public List<String> getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Returns String representation of columns
+	 */
+	public String toString() {
+		return this.columns.toString();
+	}
+}
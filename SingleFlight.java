@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load
+ * on its own thread, and callers asking for the key while it is in flight wait
+ * for that result (or exception) instead of starting a load of their own. No
+ * lock is held while a load runs. Once a load ends, the next caller for its
+ * key starts a new one; results are not kept (that is left to the caches
+ * loads go through).
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ * @param <K>
+ *           key type
+ * @param <V>
+ *           result type
+ */
+public class SingleFlight<K, V> {
+
+	// key : load in flight
+	private final ConcurrentHashMap<K, FutureTask<V>> inFlight = new ConcurrentHashMap<K, FutureTask<V>>();
+
+	/**
+	 * Loads key, or waits for the load of key already in flight
+	 *
+	 * @param key
+	 *           Key to be loaded
+	 * @param load
+	 *           Load run if none is in flight for key
+	 * @return Result of the load
+	 * @throws IOException
+	 *            if the load failed (every caller sharing it gets the same
+	 *            exception), or the calling thread was interrupted while
+	 *            waiting
+	 */
+	public V run(K key, Callable<V> load) throws IOException {
+		while (true) {
+			FutureTask<V> task = new FutureTask<V>(load);
+			FutureTask<V> running = this.inFlight.putIfAbsent(key, task);
+			if (running == null) {
+				running = task;
+				try {
+					task.run();
+				} finally {
+					this.inFlight.remove(key, task);
+				}
+			} else {
+				ParserMetrics.coalescedLoad();
+			}
+
+			try {
+				return running.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted waiting for " + key);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				// a load cancelled on another thread is not this caller's
+				// failure: it loads the key again itself
+				if (running != task && cause instanceof InterruptedIOException
+						&& !Thread.currentThread().isInterrupted()) {
+					continue;
+				}
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IOException("Load of " + key + " failed", cause);
+			}
+		}
+	}
+
+	/**
+	 * Number of loads in flight
+	 *
+	 * @return Keys being loaded
+	 */
+	public int size() {
+		return this.inFlight.size();
+	}
+}
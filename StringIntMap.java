@@ -0,0 +1,212 @@
+/**
+ * Map from String to int, without boxing: open addressing with linear
+ * probing over plain arrays. Keys are also numbered densely in the order they
+ * were added (0, 1, 2, ...), so that callers can keep further per-key data in
+ * arrays of their own.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class StringIntMap {
+
+	// slot : 1 + number of key in it (0 for an empty slot)
+	private int[] slots;
+	// by key number
+	private String[] keys;
+	private int[] hashes;
+	private int[] values;
+	private int size;
+
+	/**
+	 * Constructor
+	 */
+	public StringIntMap() {
+		this(16);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param expectedSize
+	 *           Number of keys expected, so that tables are sized up front
+	 */
+	public StringIntMap(int expectedSize) {
+		int capacity = 16;
+		while (capacity < expectedSize * 2) {
+			capacity <<= 1;
+		}
+		this.slots = new int[capacity];
+		this.keys = new String[capacity / 2];
+		this.hashes = new int[capacity / 2];
+		this.values = new int[capacity / 2];
+	}
+
+	/**
+	 * Number of a key
+	 *
+	 * @param key
+	 *           Key to be looked up
+	 * @return Number of key (by order added), or -1 if not in map
+	 */
+	public int indexOf(String key) {
+		int hash = StringIntMap.hash(key);
+		int mask = this.slots.length - 1;
+		for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+			int entry = this.slots[slot];
+			if (entry == 0) {
+				return -1;
+			}
+			if (this.hashes[entry - 1] == hash && this.keys[entry - 1].equals(key)) {
+				return entry - 1;
+			}
+		}
+	}
+
+	/**
+	 * Number of a key, adding it (with value 0) if it is not in map
+	 *
+	 * @param key
+	 *           Key to be looked up
+	 * @return Number of key (by order added)
+	 */
+	public int add(String key) {
+		int hash = StringIntMap.hash(key);
+		int mask = this.slots.length - 1;
+		int slot = hash & mask;
+		for (;; slot = (slot + 1) & mask) {
+			int entry = this.slots[slot];
+			if (entry == 0) {
+				break;
+			}
+			if (this.hashes[entry - 1] == hash && this.keys[entry - 1].equals(key)) {
+				return entry - 1;
+			}
+		}
+
+		if (this.size == this.keys.length) {
+			this.grow();
+			return this.add(key);
+		}
+		int index = this.size++;
+		this.keys[index] = key;
+		this.hashes[index] = hash;
+		this.slots[slot] = index + 1;
+		return index;
+	}
+
+	/**
+	 * Adds to the value of a key (added with value 0 if not in map)
+	 *
+	 * @param key
+	 *           Key whose value is increased
+	 * @param delta
+	 *           Amount added
+	 * @return New value of key
+	 */
+	public int increment(String key, int delta) {
+		return this.incrementAt(this.add(key), delta);
+	}
+
+	/**
+	 * Adds to the value of a key, by number of key
+	 *
+	 * @param index
+	 *           Number of key
+	 * @param delta
+	 *           Amount added
+	 * @return New value of key
+	 */
+	public int incrementAt(int index, int delta) {
+		this.values[index] += delta;
+		return this.values[index];
+	}
+
+	/**
+	 * Sets the value of a key
+	 *
+	 * @param key
+	 *           Key to be set
+	 * @param value
+	 *           New value
+	 */
+	public void put(String key, int value) {
+		this.values[this.add(key)] = value;
+	}
+
+	/**
+	 * Value of a key
+	 *
+	 * @param key
+	 *           Key to be looked up
+	 * @param missing
+	 *           Value returned if key is not in map
+	 * @return Value of key, or missing
+	 */
+	public int get(String key, int missing) {
+		int index = this.indexOf(key);
+		return index == -1 ? missing : this.values[index];
+	}
+
+	/**
+	 * Accessor for a key by number
+	 *
+	 * @param index
+	 *           Number of key
+	 * @return Key
+	 */
+	public String keyAt(int index) {
+		return this.keys[index];
+	}
+
+	/**
+	 * Accessor for a value by number of its key
+	 *
+	 * @param index
+	 *           Number of key
+	 * @return Value
+	 */
+	public int valueAt(int index) {
+		return this.values[index];
+	}
+
+	/**
+	 * Number of keys
+	 *
+	 * @return this.size
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	// doubles tables and re-slots every key
+	private void grow() {
+		int capacity = this.slots.length * 2;
+		String[] oldKeys = this.keys;
+		int[] oldHashes = this.hashes;
+		int[] oldValues = this.values;
+
+		this.slots = new int[capacity];
+		this.keys = new String[capacity / 2];
+		this.hashes = new int[capacity / 2];
+		this.values = new int[capacity / 2];
+		System.arraycopy(oldKeys, 0, this.keys, 0, this.size);
+		System.arraycopy(oldHashes, 0, this.hashes, 0, this.size);
+		System.arraycopy(oldValues, 0, this.values, 0, this.size);
+
+		int mask = capacity - 1;
+		for (int index = 0; index < this.size; index++) {
+			int slot = this.hashes[index] & mask;
+			while (this.slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			this.slots[slot] = index + 1;
+		}
+	}
+
+	// spreads String's hash so that low bits (used for slots) vary
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+}
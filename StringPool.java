@@ -0,0 +1,105 @@
+import java.util.HashMap;
+
+/**
+ * Dictionary of the strings read while parsing, so that a value repeated
+ * across rows (production companies, countries, names, award links) is held
+ * once rather than once per row. Unlike String.intern, the pool is freed with
+ * its owner. Pooled values can also be compared by identity.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class StringPool {
+
+	private final HashMap<String, String> pool = new HashMap<String, String>();
+	private long lookups;
+	private long hits;
+	private long savedBytes;
+
+	/**
+	 * Returns the pooled copy of a string, adding it if it is new
+	 *
+	 * @param s
+	 *           String to be pooled (may be null)
+	 * @return Pooled string equal to s, or null if s is null
+	 */
+	public synchronized String intern(String s) {
+		if (s == null) {
+			return null;
+		}
+
+		this.lookups++;
+		String pooled = this.pool.get(s);
+		if (pooled == null) {
+			this.pool.put(s, s);
+			return s;
+		}
+		if (pooled != s) {
+			this.hits++;
+			this.savedBytes += StringPool.weight(s);
+		}
+		return pooled;
+	}
+
+	/**
+	 * Number of distinct strings in pool
+	 *
+	 * @return Size of pool
+	 */
+	public synchronized int size() {
+		return this.pool.size();
+	}
+
+	/**
+	 * Number of strings looked up
+	 *
+	 * @return this.lookups
+	 */
+	public synchronized long getLookups() {
+		return this.lookups;
+	}
+
+	/**
+	 * Number of lookups answered with an already pooled copy
+	 *
+	 * @return this.hits
+	 */
+	public synchronized long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Approximate bytes of duplicate strings that were dropped in favour of a
+	 * pooled copy
+	 *
+	 * @return this.savedBytes
+	 */
+	public synchronized long getSavedBytes() {
+		return this.savedBytes;
+	}
+
+	/**
+	 * Empties pool and resets its statistics
+	 */
+	public synchronized void clear() {
+		this.pool.clear();
+		this.lookups = 0;
+		this.hits = 0;
+		this.savedBytes = 0;
+	}
+
+	/**
+	 * Returns String representation of pool statistics
+	 */
+	public synchronized String toString() {
+		return this.pool.size() + " strings; " + this.hits + " of "
+				+ this.lookups + " lookups deduplicated; ~" + this.savedBytes
+				+ " bytes saved";
+	}
+
+	// approximate bytes held by a String: object and array headers plus chars
+	private static long weight(String s) {
+		return 40 + 2L * s.length();
+	}
+}
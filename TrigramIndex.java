@@ -0,0 +1,255 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index of the text columns of parsed tables, for substring search.
+ * Every value is broken into trigrams (runs of three characters), and each
+ * trigram maps to the rows whose value in that column holds it. A search
+ * intersects the rows of the query's trigrams and only checks the values of
+ * the rows left, instead of scanning the whole table.
+ *
+ * Tables are indexed separately under a name, so a table that is scraped
+ * again replaces only its own part of the index.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class TrigramIndex {
+
+	// table name : index of that table
+	private final HashMap<String, TableIndex> tables = new HashMap<String, TableIndex>();
+
+	/**
+	 * Indexes a table, unless the same rows are already indexed under its name
+	 *
+	 * @param table
+	 *           Name of table
+	 * @param rows
+	 *           Rows of table
+	 * @return true if the table was (re)indexed; false if it was up to date
+	 */
+	public synchronized boolean update(String table, List<HashedInfo> rows) {
+		TableIndex current = this.tables.get(table);
+		if (current != null && TrigramIndex.sameRows(current.rows, rows)) {
+			return false;
+		}
+		this.tables.put(table, new TableIndex(rows));
+		return true;
+	}
+
+	/**
+	 * Drops a table from the index
+	 *
+	 * @param table
+	 *           Name of table
+	 */
+	public synchronized void remove(String table) {
+		this.tables.remove(table);
+	}
+
+	/**
+	 * Whether a table is indexed
+	 *
+	 * @param table
+	 *           Name of table
+	 * @return true if table has been indexed
+	 */
+	public synchronized boolean contains(String table) {
+		return this.tables.containsKey(table);
+	}
+
+	/**
+	 * Finds rows whose value in a column contains text
+	 *
+	 * @param table
+	 *           Name of table
+	 * @param column
+	 *           Column to be searched
+	 * @param text
+	 *           Literal text to be found
+	 * @return Matching rows, in table order (empty if table is not indexed)
+	 */
+	public synchronized ArrayList<HashedInfo> search(String table,
+			String column, String text) {
+		ArrayList<String> columns = new ArrayList<String>();
+		columns.add(column);
+		return this.searchAny(table, columns, text);
+	}
+
+	/**
+	 * Finds rows whose value in any of the given columns contains text
+	 *
+	 * @param table
+	 *           Name of table
+	 * @param columns
+	 *           Columns to be searched
+	 * @param text
+	 *           Literal text to be found
+	 * @return Matching rows, in table order, each once (empty if table is not
+	 *         indexed)
+	 */
+	public synchronized ArrayList<HashedInfo> searchAny(String table,
+			List<String> columns, String text) {
+		ArrayList<HashedInfo> matches = new ArrayList<HashedInfo>();
+		TableIndex index = this.tables.get(table);
+		if (index == null) {
+			return matches;
+		}
+
+		boolean[] matched = new boolean[index.rows.length];
+		for (String column : columns) {
+			for (int r : index.candidates(column, text)) {
+				String value = index.rows[r].get(column);
+				if (value != null && value.indexOf(text) != -1) {
+					matched[r] = true;
+				}
+			}
+		}
+		for (int r = 0; r < matched.length; r++) {
+			if (matched[r]) {
+				matches.add(index.rows[r]);
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * Returns String representation of index size
+	 */
+	public synchronized String toString() {
+		int rows = 0, trigrams = 0;
+		for (TableIndex index : this.tables.values()) {
+			rows += index.rows.length;
+			for (HashMap<String, int[]> postings : index.postings.values()) {
+				trigrams += postings.size();
+			}
+		}
+		return this.tables.size() + " tables; " + rows + " rows; " + trigrams
+				+ " trigram lists";
+	}
+
+	// whether rows are the very same row objects as indexed
+	private static boolean sameRows(HashedInfo[] indexed, List<HashedInfo> rows) {
+		if (indexed.length != rows.size()) {
+			return false;
+		}
+		for (int r = 0; r < indexed.length; r++) {
+			if (indexed[r] != rows.get(r)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Index of one table
+	 */
+	private static class TableIndex {
+
+		private final HashedInfo[] rows;
+		// column : trigram : ascending ids of rows holding it
+		private final HashMap<String, HashMap<String, int[]>> postings = new HashMap<String, HashMap<String, int[]>>();
+
+		private TableIndex(List<HashedInfo> rows) {
+			this.rows = rows.toArray(new HashedInfo[rows.size()]);
+
+			HashMap<String, HashMap<String, ArrayList<Integer>>> building = new HashMap<String, HashMap<String, ArrayList<Integer>>>();
+			for (int r = 0; r < this.rows.length; r++) {
+				for (Map.Entry<String, String> e : this.rows[r].getHasher()
+						.entrySet()) {
+					if (e.getValue() == null) {
+						continue;
+					}
+					HashMap<String, ArrayList<Integer>> column = building.get(e
+							.getKey());
+					if (column == null) {
+						column = new HashMap<String, ArrayList<Integer>>();
+						building.put(e.getKey(), column);
+					}
+
+					String value = e.getValue();
+					for (int i = 0; i + 3 <= value.length(); i++) {
+						String trigram = value.substring(i, i + 3);
+						ArrayList<Integer> ids = column.get(trigram);
+						if (ids == null) {
+							ids = new ArrayList<Integer>();
+							column.put(trigram, ids);
+						}
+						// rows are added in order, so a repeat is always last
+						if (ids.isEmpty() || ids.get(ids.size() - 1) != r) {
+							ids.add(r);
+						}
+					}
+				}
+			}
+
+			for (Map.Entry<String, HashMap<String, ArrayList<Integer>>> c : building
+					.entrySet()) {
+				HashMap<String, int[]> column = new HashMap<String, int[]>();
+				for (Map.Entry<String, ArrayList<Integer>> t : c.getValue()
+						.entrySet()) {
+					int[] ids = new int[t.getValue().size()];
+					for (int i = 0; i < ids.length; i++) {
+						ids[i] = t.getValue().get(i);
+					}
+					column.put(t.getKey(), ids);
+				}
+				this.postings.put(c.getKey(), column);
+			}
+		}
+
+		// rows that may hold text in column: those holding every trigram of
+		// text (every row, if text is too short to have one)
+		private int[] candidates(String column, String text) {
+			if (text.length() < 3) {
+				int[] all = new int[this.rows.length];
+				for (int r = 0; r < all.length; r++) {
+					all[r] = r;
+				}
+				return all;
+			}
+
+			HashMap<String, int[]> trigrams = this.postings.get(column);
+			if (trigrams == null) {
+				return new int[0];
+			}
+
+			int[] result = null;
+			for (int i = 0; i + 3 <= text.length(); i++) {
+				int[] ids = trigrams.get(text.substring(i, i + 3));
+				if (ids == null) {
+					return new int[0];
+				}
+				result = (result == null) ? ids : TrigramIndex.intersect(result,
+						ids);
+				if (result.length == 0) {
+					break;
+				}
+			}
+			return result;
+		}
+	}
+
+	// ids in both ascending lists
+	private static int[] intersect(int[] a, int[] b) {
+		int[] both = new int[Math.min(a.length, b.length)];
+		int i = 0, j = 0, n = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) {
+				i++;
+			} else if (a[i] > b[j]) {
+				j++;
+			} else {
+				both[n++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		int[] result = new int[n];
+		System.arraycopy(both, 0, result, 0, n);
+		return result;
+	}
+}
@@ -1,8 +1,21 @@
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -179,10 +192,729 @@ public class WikiParserTest {
 
 			break;
 
+		case 14:
+			// local stand-in serving a fixture page with 200ms latency: serial
+			// fetches vs. one concurrent FetchExecutor batch
+			HttpServer server = HttpServer.create(new InetSocketAddress(
+					"localhost", 0), 0);
+			server.createContext("/", new HttpHandler() {
+				public void handle(HttpExchange exchange) throws IOException {
+					try {
+						Thread.sleep(200);
+					} catch (InterruptedException e) {
+					}
+					byte[] page = "<html><body><table class=\"infobox\"><tr><th>Starring</th><td>Someone</td></tr></table></body></html>"
+							.getBytes("UTF-8");
+					exchange.getResponseHeaders().set("Content-Type", "text/html");
+					exchange.sendResponseHeaders(200, page.length);
+					OutputStream body = exchange.getResponseBody();
+					body.write(page);
+					body.close();
+				}
+			});
+			server.setExecutor(java.util.concurrent.Executors
+					.newCachedThreadPool());
+			server.start();
+
+			final String standIn = "http://localhost:"
+					+ server.getAddress().getPort() + "/wiki/Film_";
+			long start = System.currentTimeMillis();
+			for (int i = 0; i < 20; i++) {
+				Jsoup.connect(standIn + i).get();
+			}
+			System.out.println("serial:     "
+					+ (System.currentTimeMillis() - start) + "ms");
+
+			FetchExecutor fetcher = new FetchExecutor(8, 0, 3, 100);
+			ArrayList<Callable<Document>> fetches = new ArrayList<Callable<Document>>();
+			for (int i = 0; i < 20; i++) {
+				final int page = i;
+				fetches.add(new Callable<Document>() {
+					public Document call() throws IOException {
+						return Jsoup.connect(standIn + page).get();
+					}
+				});
+			}
+			start = System.currentTimeMillis();
+			ArrayList<Document> fetched = fetcher.invokeAll(fetches);
+			System.out.println("concurrent: "
+					+ (System.currentTimeMillis() - start) + "ms ("
+					+ fetched.size() + " pages, in order: "
+					+ fetched.get(19).baseUri().endsWith("Film_19") + ")");
+
+			fetcher.shutdown();
+			server.stop(0);
+			break;
+
+		case 15:
+			// award tables read offline from saved pages, checked against the
+			// output recorded alongside them
+			WikipediaParser offline = WikiParserTest.fixtureParser();
+
+			StringBuilder tables = new StringBuilder();
+			WikiParserTest.appendTable(tables, "picture",
+					offline.getDecadeTableInfo("Best_Picture", 0));
+			WikiParserTest.appendTable(tables, "actor",
+					offline.getDecadeTableInfo("Best_Actor", 1));
+			WikiParserTest.appendTable(tables, "screenplay",
+					offline.getDecadeTableInfo("Writing_Original_Screenplay", 1));
+			WikiParserTest.appendTable(tables, "director",
+					offline.getCategoryInfoWinNom("Best_Director"));
+			WikiParserTest.appendTable(tables, "foreign",
+					offline.getForeignLanguageInfo());
+			System.out.print(tables);
+
+			byte[] expected = new byte[(int) new File("fixtures/tables.txt")
+					.length()];
+			DataInputStream in = new DataInputStream(new FileInputStream(
+					"fixtures/tables.txt"));
+			in.readFully(expected);
+			in.close();
+			System.out.println("matches fixtures/tables.txt: "
+					+ new String(expected, "UTF-8").equals(tables.toString()));
+			break;
+
+		case 16:
+			// streaming reader against DOM reader on saved pages: same rows,
+			// without holding the page
+			WikipediaParser both = WikiParserTest.fixtureParser();
+
+			String[] categories = { "Best_Picture", "Best_Actor",
+					"Writing_Original_Screenplay" };
+			int[] indicators = { 0, 1, 1 };
+			for (int i = 0; i < categories.length; i++) {
+				ArrayList<HashedInfo> fromDocument = both.getDecadeTableInfo(
+						categories[i], indicators[i]);
+				final ArrayList<String> fromStream = new ArrayList<String>();
+				both.streamDecadeTable(categories[i], indicators[i],
+						new RowHandler() {
+							public boolean row(HashedInfo row) {
+								return fromStream.add(row.toString());
+							}
+						});
+
+				boolean same = fromStream.size() == fromDocument.size();
+				for (int j = 0; same && j < fromStream.size(); j++) {
+					same = fromStream.get(j).equals(
+							fromDocument.get(j).toString());
+				}
+				System.out.println(categories[i] + ": " + fromStream.size()
+						+ " rows, same as DOM: " + same);
+			}
+
+			// a page that fails part way is reported, not cut short silently
+			DecadeTableReader broken = new DecadeTableReader(new Reader() {
+				public int read(char[] buffer, int offset, int length)
+						throws IOException {
+					throw new IOException("connection reset");
+				}
+
+				public void close() {
+				}
+			}, 0);
+			try {
+				broken.hasNext();
+			} catch (IllegalStateException e) {
+				System.out.println(e.getMessage() + ": " + e.getCause());
+			}
+
+			// a page streamed from the network is stored and counted towards
+			// the question reading it; reading can stop part way, and stops
+			// once the question is cancelled
+			LocalWikiServer streamMirror = new LocalWikiServer(new File(
+					"fixtures"), 0, 0);
+			streamMirror.start();
+			File mirrorDir = File.createTempFile("wikicache-stream", "");
+			mirrorDir.delete();
+			WikipediaParser streamed = new WikipediaParser(new PageCache(
+					mirrorDir, Long.MAX_VALUE), false, new FetchConfig()
+					.setRootURL(streamMirror.getRootURL() + "/"));
+			FetchTracker streamTracker = new FetchTracker(new FetchProgress() {
+				public void pagesFetched(int fetched, int total) {
+					System.out.println("  pages " + fetched + " / " + total);
+				}
+			});
+			streamTracker.bind();
+			try {
+				final int[] seen = new int[1];
+				int handed = streamed.streamDecadeTable("Best_Picture", 0,
+						new RowHandler() {
+							public boolean row(HashedInfo row) {
+								return ++seen[0] < 3;
+							}
+						});
+				int requestsBefore = streamMirror.getRequestCount();
+				int again = streamed.scanDecadeTable("Best_Picture", 0,
+						new RowHandler() {
+							public boolean row(HashedInfo row) {
+								return true;
+							}
+						});
+				System.out.println("stopped after " + handed + " rows; "
+						+ again + " rows from the stored page with "
+						+ (streamMirror.getRequestCount() - requestsBefore)
+						+ " more requests");
+
+				streamTracker.cancel();
+				try {
+					streamed.scanDecadeTable("Best_Actor", 1, new RowHandler() {
+						public boolean row(HashedInfo row) {
+							return true;
+						}
+					});
+				} catch (IOException e) {
+					System.out.println("after cancel: " + e);
+				}
+			} finally {
+				FetchTracker.unbind();
+				streamed.shutdown();
+				streamMirror.stop();
+			}
+			break;
+
+		case 17:
+			// store ingested once from saved pages, then questions answered from
+			// it with no parser at all
+			File storeFile = File.createTempFile("nominations", ".db");
+			NominationStore.ingest(WikiParserTest.fixtureParser(), storeFile);
+
+			long loadStart = System.currentTimeMillis();
+			NominationStore store = NominationStore.load(storeFile);
+			System.out.println("Loaded " + store + " in "
+					+ (System.currentTimeMillis() - loadStart) + "ms");
+
+			MovieInterpreter fromStore = new MovieInterpreter(store);
+			long answerStart = System.nanoTime();
+			System.out.println(fromStore.bestPictureSearch("Film", "Wings"));
+			System.out.println(Arrays.toString(fromStore
+					.originalScreenplayWriters("Citizen Kane")));
+			System.out.println(fromStore.getCategoryYearInfo("Best Actress", 2012));
+			System.out.println(Arrays.toString(fromStore.getMaxForeignWins()));
+			System.out.println(fromStore.bestDirectorThreshold(1));
+			System.out.println(fromStore.getBestPictureCount());
+			System.out.println(fromStore.getBestActorCount());
+			System.out.println("Answered in "
+					+ (System.nanoTime() - answerStart) / 1000 + "us");
+			try {
+				store.getCategoryInfoWinNom("Best_Costume_Design");
+			} catch (BadArgumentException e) {
+				System.out.println(e.getMessage());
+			}
+			storeFile.delete();
+			break;
+
+		case 18:
+			// tables parsed once are saved as snapshots; a second parser on the
+			// same cache maps them back instead of parsing pages
+			PageCache snapshotCache = WikiParserTest.fixtureCache();
+			WikipediaParser first = new WikipediaParser(snapshotCache, true);
+			WikipediaParser second = new WikipediaParser(snapshotCache, true);
+
+			String[] snapshotCategories = { "Best_Picture", "Best_Actor",
+					"Writing_Original_Screenplay" };
+			for (String category : snapshotCategories) {
+				ArrayList<HashedInfo> parsed = first.getDecadeTableInfo(category,
+						category.equals("Best_Picture") ? 0 : 1);
+				long mapStart = System.nanoTime();
+				ArrayList<HashedInfo> mapped = second.getDecadeTableInfo(category,
+						category.equals("Best_Picture") ? 0 : 1);
+				System.out.println(category + ": " + mapped.size()
+						+ " rows from snapshot in "
+						+ (System.nanoTime() - mapStart) / 1000
+						+ "us, same as parsed: "
+						+ parsed.toString().equals(mapped.toString()));
+			}
+			// a snapshot is decoded once: repeat calls share rows, so the
+			// trigram index over them is built once
+			TrigramIndex snapshotIndex = new TrigramIndex();
+			for (int call = 0; call < 3; call++) {
+				System.out.print("reindexed="
+						+ snapshotIndex.update("picture",
+								second.getDecadeTableInfo("Best_Picture", 0)) + " ");
+			}
+			System.out.println();
+
+			// a page stored again with new contents drops the tables parsed
+			// from it; a page revalidated unchanged keeps them
+			String picturePage = "http://en.wikipedia.org/wiki/"
+					+ "Academy_Award_for_Best_Picture";
+			String pictureKey = "decade:Best_Picture:0";
+			snapshotCache.touch(snapshotCache.lookup(picturePage));
+			System.out.println("kept after revalidation: "
+					+ (snapshotCache.loadSnapshot(pictureKey, false) != null));
+			snapshotCache.store(picturePage, snapshotCache.lookup(picturePage)
+					.getHtml() + "<!-- edited -->", null, null);
+			System.out.println("kept after page changed: "
+					+ (snapshotCache.loadSnapshot(pictureKey, true) != null));
+
+			File snapshotFile = File.createTempFile("table", ".snap");
+			ArrayList<HashedInfo> pictures = first.getDecadeTableInfo(
+					"Best_Picture", 0);
+			NominationSnapshot.write(pictures, snapshotFile);
+			NominationSnapshot snapshot = NominationSnapshot.load(snapshotFile);
+			int wings = snapshot.codeOf("Wings");
+			for (int r = 0; r < snapshot.size(); r++) {
+				if (snapshot.code(r, "Film") == wings) {
+					System.out.println("Wings: " + snapshot.getRow(r));
+				}
+			}
+			System.out.println(snapshot.getColumns() + "; "
+					+ snapshotFile.length() + " bytes");
+			snapshotFile.delete();
+			break;
+
+		case 19:
+			// every saved category loaded through one parser: repeated values
+			// are held once
+			WikipediaParser pooled = WikiParserTest.fixtureParser();
+			pooled.getDecadeTableInfo("Best_Picture", 0);
+			pooled.getDecadeTableInfo("Best_Actor", 1);
+			pooled.getDecadeTableInfo("Writing_Original_Screenplay", 1);
+			ArrayList<HashedInfo> directors = pooled
+					.getCategoryInfoWinNom("Best_Director");
+			pooled.getForeignLanguageInfo();
+			System.out.println(pooled.getStringPool());
+			System.out.println("award links shared: "
+					+ (directors.get(0).get("awardLink") == directors.get(1).get(
+							"awardLink")));
+			break;
+
+		case 20:
+			// search terms are literal unless regex mode is asked for; one pass
+			// finds every title
+			QueryMatcher literal = QueryMatcher.compile("Star Wars (1977)", false);
+			QueryMatcher regex = QueryMatcher.compile("Star Wars \\(19\\d\\d\\)",
+					true);
+			System.out.println(literal.matches("Star Wars (1977) film") + " "
+					+ regex.matches("Star Wars (1977) film") + " "
+					+ literal.matches("Star Wars 1977"));
+
+			ArrayList<String> phrases = new ArrayList<String>();
+			phrases.add("he");
+			phrases.add("she");
+			phrases.add("hers");
+			phrases.add("Amour");
+			System.out.println(Arrays.toString(new PhraseSet(phrases)
+					.findIn("ushers")));
+
+			YearPage ceremony = WikiParserTest.fixtureParser()
+					.getYearPage(2012);
+			ArrayList<String> films = new ArrayList<String>();
+			films.add("Argo");
+			films.add("Silver Linings Playbook");
+			films.add("Amour");
+			films.add("Lincoln");
+			HashMap<String, Integer> wins = ceremony.getNumberOfWins(films);
+			for (String film : films) {
+				System.out.println(film + ": " + wins.get(film) + ", same as alone: "
+						+ (wins.get(film) == ceremony.getNumberOfWins(film)));
+			}
+			break;
+
+		case 21:
+			// substring search through the trigram index against a plain scan
+			WikipediaParser indexed = WikiParserTest.fixtureParser();
+			ArrayList<HashedInfo> picture = indexed.getDecadeTableInfo(
+					"Best_Picture", 0);
+
+			TrigramIndex textIndex = new TrigramIndex();
+			System.out.println("indexed: " + textIndex.update("pic", picture)
+					+ ", again: " + textIndex.update("pic", picture));
+			String[] terms = { "Paramount", "Warner Bros.", "Fox", "zz", "o" };
+			for (String term : terms) {
+				ArrayList<HashedInfo> scanned = new ArrayList<HashedInfo>();
+				for (HashedInfo h : picture) {
+					String company = h.get("Production company(s)");
+					if (company != null && company.contains(term)) {
+						scanned.add(h);
+					}
+				}
+				ArrayList<HashedInfo> found = textIndex.search("pic",
+						"Production company(s)", term);
+				System.out.println(term + ": " + found.size()
+						+ " rows, same as scan: " + found.equals(scanned));
+			}
+
+			MovieInterpreter searcher = new MovieInterpreter(indexed);
+			System.out.println(searcher.bestPictureSearch(
+					"Production company(s)", "Paramount").size()
+					+ " " + searcher.bestLeadingActor("Kid"));
+			System.out.println(textIndex);
+			break;
+
+		case 22:
+			// casts are read once into the cast graph and kept for the next
+			// session; an actor's films are then a lookup
+			File castDir = new File(System.getProperty("java.io.tmpdir"),
+					"wikicache-casts");
+			new File(castDir, "casts.dat").delete();
+			PageCache castCache = new PageCache(castDir, Long.MAX_VALUE);
+			castCache.seed(new File("fixtures"));
+
+			WikipediaParser firstSession = new WikipediaParser(castCache, true);
+			System.out.println(new MovieInterpreter(firstSession)
+					.getCategoryStarring("Best_Director", "Jennifer Lawrence"));
+			System.out.println(firstSession.getCastGraph() + "; Sally Field's "
+					+ "co-stars: "
+					+ firstSession.getCastGraph().getCoStars("Sally Field"));
+
+			WikipediaParser nextSession = new WikipediaParser(castCache, true);
+			System.out.println("next session: " + nextSession.getCastGraph()
+					+ "; Daniel Day-Lewis: "
+					+ nextSession.getCastGraph().getFilms("Daniel Day-Lewis"));
+			break;
+
+		case 23:
+			// grouping in one pass against the counting and rescanning it
+			// replaced, over 100k synthetic Best Director rows
+			RowSchema benchSchema = RowSchema.of("person", "movie");
+			java.util.Random random = new java.util.Random(23);
+			ArrayList<HashedInfo> benchRows = new ArrayList<HashedInfo>();
+			for (int r = 0; r < 100000; r++) {
+				benchRows.add(new HashedInfo(benchSchema, new String[] {
+						"Director " + random.nextInt(5000), "Movie " + r }));
+			}
+
+			for (int round = 0; round < 5; round++) {
+				long scanStart = System.nanoTime();
+				HashMap<String, String> scanned = WikiParserTest.rescanThreshold(
+						benchRows, 25);
+				long scanTime = System.nanoTime() - scanStart;
+
+				long groupStart = System.nanoTime();
+				HashMap<String, String> joined = new HashMap<String, String>();
+				for (NominationQuery.Group g : NominationQuery.from(benchRows)
+						.groupBy("person").count().having(25).run()) {
+					joined.put(g.getKey(), g.join("movie", ", "));
+				}
+				long groupTime = System.nanoTime() - groupStart;
+
+				System.out.println("round " + round + ": " + scanned.size()
+						+ " directors; rescan " + scanTime / 1000000 + " ms; grouping "
+						+ groupTime / 1000000 + " ms; same=" + scanned.equals(joined));
+			}
+			break;
+
+		case 24:
+			// ad-hoc questions as queries over rows already parsed; the
+			// parallel path must agree with the sequential one
+			MovieInterpreter queries = new MovieInterpreter(
+					WikiParserTest.fixtureParser());
+			System.out.println(queries.bestPictureStudiosByDecade(1));
+			System.out.println(queries.getMaxForeignWins()[0] + " "
+					+ queries.bestDirectorThreshold(1).size());
+
+			RowSchema querySchema = RowSchema.of("studio", "calendarYear", "winner");
+			java.util.Random queryRandom = new java.util.Random(24);
+			ArrayList<HashedInfo> queryRows = new ArrayList<HashedInfo>();
+			for (int r = 0; r < 100000; r++) {
+				queryRows.add(new HashedInfo(querySchema, new String[] {
+						"Studio " + queryRandom.nextInt(300),
+						String.valueOf(1927 + queryRandom.nextInt(90)),
+						String.valueOf(queryRandom.nextInt(5) == 0 ? 1 : 0) }));
+			}
+			java.util.concurrent.ExecutorService queryPool = java.util.concurrent.Executors
+					.newFixedThreadPool(4);
+			NominationQuery perDecade = NominationQuery
+					.from(queryRows)
+					.where("winner", "1")
+					.groupBy(
+							NominationQuery.compound(
+									NominationQuery.decade("calendarYear"),
+									NominationQuery.column("studio"))).count()
+					.top(2, NominationQuery.decade("calendarYear"));
+			ArrayList<NominationQuery.Group> sequential = perDecade.run();
+			ArrayList<NominationQuery.Group> parallel = perDecade.run(queryPool);
+			queryPool.shutdown();
+			System.out.println(sequential);
+			System.out.println("parallel same="
+					+ sequential.toString().equals(parallel.toString())
+					+ "; wins summed="
+					+ NominationQuery.from(queryRows).sum("winner").run());
+			break;
+
+		case 25:
+			// progress of page loads, as the GUI shows it while a question runs
+			MovieInterpreter progressed = new MovieInterpreter(
+					WikiParserTest.fixtureParser());
+			// each question has its own tracker: cancelling one leaves the
+			// fetches of the next untouched
+			FetchTracker cancelledQuestion = new FetchTracker(null);
+			cancelledQuestion.cancel();
+			cancelledQuestion.bind();
+			try {
+				progressed.getCategoryYearInfo("Best Actress", 2012);
+			} catch (CancellationException e) {
+				System.out.println("cancelled question: "
+						+ e.getClass().getSimpleName());
+			} finally {
+				FetchTracker.unbind();
+			}
+
+			new FetchTracker(new FetchProgress() {
+				public void pagesFetched(int fetched, int total) {
+					System.out.println(fetched + " / " + total + " pages");
+				}
+			}).bind();
+			try {
+				System.out.println(progressed.getCategoryYearInfo("Best Actress",
+						2012).size());
+			} finally {
+				FetchTracker.unbind();
+			}
+			break;
+
+		case 26:
+			// results arrive one at a time; stopping after the first leaves the
+			// remaining film pages unfetched
+			File streamDir = new File(System.getProperty("java.io.tmpdir"),
+					"wikicache-stream");
+			new File(streamDir, "casts.dat").delete();
+			PageCache streamCache = new PageCache(streamDir, Long.MAX_VALUE);
+			streamCache.seed(new File("fixtures"));
+			WikipediaParser streamParser = new WikipediaParser(streamCache, true);
+			new MovieInterpreter(streamParser).getCategoryStarring(
+					"Best_Director", "Sally Field", new ResultListener<String>() {
+						public boolean result(String movie) {
+							System.out.println("first: " + movie);
+							return false;
+						}
+					});
+			System.out.println(streamParser.getCastGraph());
+			break;
+
+		case 27:
+			// answers rendered as tables and cut off at a line limit
+			wikiGUIController renderer = new wikiGUIController(new MovieInterpreter(
+					WikiParserTest.fixtureParser()), 4);
+			System.out.print(renderer.actressAge("2012"));
+			System.out.print(renderer.directorThreshold("1"));
+
+			// linear rendering of a large answer, against += on a smaller one
+			long appendStart = System.nanoTime();
+			String concatenated = "";
+			for (int r = 0; r < 20000; r++) {
+				concatenated += "Name:\tDirector " + r + "\t\tMovies:\tMovie " + r
+						+ "\n";
+			}
+			long appendTime = System.nanoTime() - appendStart;
+
+			long formatStart = System.nanoTime();
+			StringBuilder rendered = new StringBuilder();
+			ResultFormatter table = new ResultFormatter(rendered, -1);
+			table.table("Name", "Movies");
+			for (int r = 0; r < 100000; r++) {
+				table.row("Director " + r, "Movie " + r);
+			}
+			table.finish();
+			long formatTime = System.nanoTime() - formatStart;
+
+			StringBuilder limited = new StringBuilder();
+			ResultFormatter bounded = new ResultFormatter(limited, 5000);
+			for (int r = 0; r < 100000; r++) {
+				bounded.line("Movie " + r);
+			}
+			bounded.finish();
+			System.out.println("+= 20k lines: " + appendTime / 1000000 + " ms ("
+					+ concatenated.length() + " chars); formatter 100k rows: "
+					+ formatTime / 1000000 + " ms (" + table.getLines()
+					+ " lines); limited to " + bounded.getLines() + " lines, "
+					+ bounded.getOmitted() + " omitted, " + limited.length()
+					+ " chars");
+			break;
+
+		case 28:
+			// same answer from a local stand-in with and without compression
+			LocalWikiServer mirror = new LocalWikiServer(new File("fixtures"), 0, 0);
+			mirror.start();
+			try {
+				for (boolean gzip : new boolean[] { false, true }) {
+					// nothing is fresh in a zero time-to-live cache, so every page
+					// is fetched
+					File configDir = new File(System.getProperty("java.io.tmpdir"),
+							"wikicache-config-" + gzip);
+					MovieInterpreter configured = new MovieInterpreter(
+							new WikipediaParser(new PageCache(configDir, 0), false,
+									new FetchConfig().setRootURL(mirror.getRootURL() + "/")
+											.setGzip(gzip).setTimeout(2000)));
+					mirror.reset();
+					System.out.println("gzip=" + gzip + ": "
+							+ configured.getBestPictureCount() + " / "
+							+ configured.getBestActorCount() + " nominees, "
+							+ mirror.getRequestCount() + " requests, "
+							+ mirror.getBytesSent() + " bytes, agent "
+							+ mirror.getLastUserAgent());
+					configured.shutdown();
+				}
+			} finally {
+				mirror.stop();
+			}
+			break;
+
+		case 29:
+			// cost of a timed call with metrics off and on, then questions
+			// answered from fixtures with metrics read back over JMX
+			long sink = 0;
+			for (int pass = 0; pass < 2; pass++) {
+				if (pass == 1) {
+					ParserMetrics.enable();
+				}
+				long timedStart = System.nanoTime();
+				for (int call = 0; call < 10000000; call++) {
+					long metricStart = ParserMetrics.start();
+					sink += call;
+					ParserMetrics.scan.stop(metricStart);
+				}
+				System.out.println("metrics " + (pass == 0 ? "off" : "on ") + ": "
+						+ (System.nanoTime() - timedStart) / 10000000.0
+						+ " ns per timed call");
+			}
+			ParserMetrics.resetAll();
+
+			MovieInterpreter measured = new MovieInterpreter(
+					WikiParserTest.fixtureParser());
+			measured.bestLeadingActor("Kid");
+			measured.getCategoryYearInfo("Best Actress", 2012);
+			measured.bestDirectorThreshold(1);
+			measured.getBestActorCount();
+			System.out.println(ParserMetrics.summary());
+			try {
+				System.out.println("JMX page loads: "
+						+ java.lang.management.ManagementFactory
+								.getPlatformMBeanServer().getAttribute(
+										new javax.management.ObjectName(
+												"WikipediaMovieAnalyzer:type=ParserMetrics"),
+										"PageLoads") + " (" + sink % 2 + ")");
+			} catch (javax.management.JMException e) {
+				e.printStackTrace();
+			}
+			break;
+
+		case 30:
+			// eight threads asking for the same pages at once share one fetch,
+			// and the same failure
+			LocalWikiServer slowMirror = new LocalWikiServer(new File("fixtures"),
+					200, 0);
+			slowMirror.start();
+			File flightDir = new File(System.getProperty("java.io.tmpdir"),
+					"wikicache-flight");
+			new File(flightDir, "casts.dat").delete();
+			final WikipediaParser flightParser = new WikipediaParser(new PageCache(
+					flightDir, 0), false, new FetchConfig().setRootURL(slowMirror
+					.getRootURL()));
+			java.util.concurrent.ExecutorService askers = java.util.concurrent.Executors
+					.newFixedThreadPool(8);
+			try {
+				for (final String asked : new String[] { "year", "/wiki/Not_Saved" }) {
+					slowMirror.reset();
+					ArrayList<Callable<Object>> asks = new ArrayList<Callable<Object>>();
+					for (int a = 0; a < 8; a++) {
+						asks.add(new Callable<Object>() {
+							public Object call() throws IOException {
+								if (asked.equals("year")) {
+									return flightParser.getYearPage(2012);
+								}
+								return flightParser.getStarring(asked);
+							}
+						});
+					}
+					HashMap<Object, Integer> answers = new HashMap<Object, Integer>();
+					for (java.util.concurrent.Future<Object> answer : askers
+							.invokeAll(asks)) {
+						Object got = answer.get();
+						answers.put(got, answers.containsKey(got) ? answers.get(got) + 1
+								: 1);
+					}
+					System.out.println(asked + ": " + slowMirror.getRequests()
+							+ "; distinct answers " + answers.values());
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
+			} finally {
+				askers.shutdown();
+				flightParser.shutdown();
+				slowMirror.stop();
+			}
+			break;
+
+		case 31:
+			// a film page with no Starring line neither aborts its batch nor
+			// loses the casts read with it; "Voices of" counts as the cast
+			File starringDir = new File(System.getProperty("java.io.tmpdir"),
+					"wikicache-casts");
+			new File(starringDir, "casts.dat").delete();
+			PageCache castPages = new PageCache(starringDir, Long.MAX_VALUE);
+			String infobox = "<html><body><table class=\"infobox\"><tr><th scope=\"row\">%s</th><td><a href=\"/wiki/A\" title=\"A\">Star A</a><br /><a href=\"/wiki/B\" title=\"B\">Star B</a></td></tr></table></body></html>";
+			castPages.store("http://en.wikipedia.org/wiki/Acted", String.format(
+					infobox, "Starring"), null, null);
+			castPages.store("http://en.wikipedia.org/wiki/Documentary", String
+					.format(infobox, "Narrated by"), null, null);
+			castPages.store("http://en.wikipedia.org/wiki/Animated", String.format(
+					infobox, "Voices of"), null, null);
+			WikipediaParser castParser = new WikipediaParser(castPages, true);
+			System.out.println(castParser.getStarring(Arrays.asList("/wiki/Acted",
+					"/wiki/Documentary", "/wiki/Animated", "/wiki/Not_Saved")));
+			System.out.println("saved: "
+					+ new WikipediaParser(castPages, true).getCastGraph());
+			break;
+
 		default:
 			System.out.println("Bad Option");
 			break;
 		}
 	}
+
+	// pages saved under fixtures/, seeded into a cache of their own
+	private static PageCache fixtureCache() throws IOException {
+		PageCache cache = new PageCache(new File(
+				System.getProperty("java.io.tmpdir"), "wikicache-fixtures"),
+				Long.MAX_VALUE);
+		cache.seed(new File("fixtures"));
+		return cache;
+	}
+
+	// parser reading only the pages saved under fixtures/
+	private static WikipediaParser fixtureParser() throws IOException {
+		return new WikipediaParser(WikiParserTest.fixtureCache(), true);
+	}
+
+	// bestDirectorThreshold as it was: boxed counts, then a rescan of every
+	// row per qualifying director
+	private static HashMap<String, String> rescanThreshold(
+			ArrayList<HashedInfo> rows, int count) {
+		HashMap<String, Integer> runningCount = new HashMap<String, Integer>();
+		for (HashedInfo h : rows) {
+			String name = h.get("person").trim();
+			Integer c = runningCount.remove(name);
+			runningCount.put(name, c == null ? 1 : c + 1);
+		}
+
+		HashMap<String, String> result = new HashMap<String, String>();
+		for (String director : runningCount.keySet()) {
+			if (runningCount.get(director) >= count) {
+				String movies = "";
+				for (HashedInfo h : rows) {
+					if (h.get("person").equals(director)) {
+						if (!movies.equals("")) {
+							movies += ", ";
+						}
+						movies += h.get("movie");
+					}
+				}
+				result.put(director, movies);
+			}
+		}
+		return result;
+	}
+
+	// one line per row, keys sorted so that output is stable
+	private static void appendTable(StringBuilder out, String label,
+			ArrayList<HashedInfo> table) {
+		out.append("== ").append(label).append(' ').append(table.size())
+				.append('\n');
+		for (HashedInfo h : table) {
+			out.append(new TreeMap<String, String>(h.getHasher())).append('\n');
+		}
+	}
 }
-// }
\ No newline at end of file
+// }
@@ -1,14 +1,27 @@
+import java.io.File;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.Callable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
 import org.jsoup.select.Elements;
 
 /**
@@ -19,52 +32,431 @@ import org.jsoup.select.Elements;
  * @version 1.0
  * 
  */
-public class WikipediaParser {
+public class WikipediaParser implements NominationSource {
 
 	// Regexes and Strings used throughout any instantiation of the WP object
-	private static final String baseURL = "http://en.wikipedia.org/wiki/Portal:Academy_Award";
-	private static final String wikiRootURL = "http://en.wikipedia.org";
+	private static final String portalPath = "/wiki/Portal:Academy_Award";
 
-	private static final Pattern trDefine = Pattern.compile("\\s*<tr(.*)>\\s*");
 	private static final Pattern tableLinkExtract = Pattern
 			.compile("\\s*.*<a href=\"(.*?)\".*>(.*)</a>.*");
-	private static final String lastTableSplitRegex = ".*<h2>.*<span class=\"mw-headline\".*</span>.*</h2>.*";
-	private static final Pattern yearExtract = Pattern
-			.compile(".*<a href=\"(.*)\".*title.*>.*?(\\d+).*</a>.*");
-	private static final Pattern yearExtractCell = Pattern
-			.compile("\\s*<td.*<a href=\"(.*?)\".*>(\\d{4})</a>.*");
-	private static final Pattern attributeHeader = Pattern
-			.compile("\\s*<th.*>(.*)</th>\\s*");
-	private static final Pattern infoCellA = Pattern
-			.compile("\\s*<td>(.*)</td>\\s*");
-	private static final Pattern rowEnd = Pattern.compile("\\s*</tr>\\s*");
-	private static final Pattern generalCatHeader = Pattern
-			.compile("\\s*<th.*title=.*>(.*)</a></th>\\s*");
-	private static final Pattern unorderedListBegin = Pattern
-			.compile("\\s*<ul>\\s*");
-	private static final Pattern unorderedListCellEnd = Pattern
-			.compile("\\s*</ul>\\s*</td>\\s*");
-	private static final String listItemBegin = "\\s*<li.*";
-	private static final String spaceDashSpaceRegex = "\\s[^\\w\\s\\d]\\s";
-	private static final String sortableWikiTableRegex = "\\s*<table class=\"sortable wikitable\">\\s*";
-	private static final Pattern tableHeader = Pattern
-			.compile("\\s*<th.*>(.*)</th>\\s*");
-	private static final Pattern infoCell = Pattern
-			.compile("\\s*<td.*><a href.*>(.*)</a>.*");
-	private static final Pattern infoCell2 = Pattern
-			.compile("\\s*<td.*>(.*)<.*");
-	private static final Pattern infoCellRef = Pattern
-			.compile("\\s*<td.*><a href.*>(.*)</a>.*<sup class=\"reference\".*"); // cells
-																											// with
-																											// footnotes
-	private static final Pattern rowBegin = Pattern.compile("\\s*<tr.*>\\s*");
-	private static final Pattern cellBegin = Pattern.compile("\\s*<td.*");
-	private static final String tableDefine = "\\s*<table class=\"wikitable\">\\s*";
+	private static final Pattern spaceDashSpace = Pattern
+			.compile("\\s[^\\w\\s\\d]\\s");
+	private static final Pattern digits = Pattern.compile("\\d+");
+	private static final Pattern fourDigits = Pattern.compile("\\d{4}");
+	private static final Pattern bornHeader = Pattern
+			.compile("\\s*<th.*>Born</th>\\s*");
+	private static final Pattern ageData = Pattern
+			.compile(".*age&nbsp;(\\d+).*");
+	// animated films credit their cast as "Voices of"
+	private static final Pattern starringHeader = Pattern
+			.compile("\\s*<th.*>(Starring|Voices of)</th>\\s*");
+
+	// stands in for hyperlinks when reading the plain text of a table cell
+	static final char linkMarker = '\uFFFC';
+
+	// columns every award table row ends with, after its cells
+	private static final String[] rowColumns = { "winner", "awardLink",
+			"awardYear", "calendarYear" };
+
+	// columns of rows returned by getAgeAtTime
+	static final RowSchema ageSchema = RowSchema.of("Age", "Name", "Movie");
+
+	// page cache settings, overridable with -D flags on the command line
+	private static final String cacheDirProperty = "wiki.cache.dir";
+	private static final String cacheTTLProperty = "wiki.cache.ttlHours";
+	private static final String offlineProperty = "wiki.offline";
+
+	// in-memory limits (approximate bytes) for parsed pages and parsed tables
+	private static final long documentCacheWeight = 64L * 1024 * 1024;
+	private static final long tableCacheWeight = 32L * 1024 * 1024;
+
+	private final FetchConfig fetchConfig;
+	private final String wikiRootURL;
+	private final String baseURL;
+	private final PageCache pageCache;
+	private final boolean offline;
+	private final LRUCache<String, Document> documentCache;
+	private final LRUCache<String, ArrayList<HashedInfo>> tableCache;
+	private final LRUCache<String, YearPage> yearPageCache;
+	// loads in flight, shared by threads asking for the same page or year
+	private final SingleFlight<String, Document> documentLoads = new SingleFlight<String, Document>();
+	private final SingleFlight<String, YearPage> yearPageLoads = new SingleFlight<String, YearPage>();
+	private final SingleFlight<String, PortalIndex> portalLoads = new SingleFlight<String, PortalIndex>();
+	private final FetchExecutor fetchExecutor;
+	private final StringPool stringPool = new StringPool();
+	private final CastGraph castGraph;
+
+	private volatile PortalIndex portalIndex;
 
 	/**
-	 * Empty Constructor
+	 * Constructor. Uses the page cache directory, time-to-live and offline mode
+	 * given by the wiki.cache.dir, wiki.cache.ttlHours and wiki.offline system
+	 * properties (defaults: "wikicache", 24 hours, online), and the fetch
+	 * settings given by the wiki.root.url and wiki.fetch.* properties (see
+	 * FetchConfig.fromSystemProperties).
 	 */
 	public WikipediaParser() {
+		this(new PageCache(new File(System.getProperty(
+				WikipediaParser.cacheDirProperty, "wikicache")), Long
+				.getLong(WikipediaParser.cacheTTLProperty, 24) * 60 * 60 * 1000),
+				Boolean.getBoolean(WikipediaParser.offlineProperty));
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param pageCache
+	 *           On-disk cache every page fetch goes through
+	 * @param offline
+	 *           true to serve pages only from pageCache and never touch the
+	 *           network (e.g. against a pre-seeded cache)
+	 */
+	public WikipediaParser(PageCache pageCache, boolean offline) {
+		this(pageCache, offline, FetchConfig.fromSystemProperties());
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param pageCache
+	 *           On-disk cache every page fetch goes through
+	 * @param offline
+	 *           true to serve pages only from pageCache and never touch the
+	 *           network (e.g. against a pre-seeded cache)
+	 * @param fetchConfig
+	 *           Site pages are loaded from (e.g. a local mirror or stand-in for
+	 *           Wikipedia) and how they are fetched
+	 */
+	public WikipediaParser(PageCache pageCache, boolean offline,
+			FetchConfig fetchConfig) {
+		this.fetchConfig = fetchConfig;
+		this.wikiRootURL = fetchConfig.getRootURL();
+		this.baseURL = this.wikiRootURL + WikipediaParser.portalPath;
+		this.pageCache = pageCache;
+		this.offline = offline;
+		this.documentCache = new LRUCache<String, Document>(
+				WikipediaParser.documentCacheWeight);
+		this.tableCache = new LRUCache<String, ArrayList<HashedInfo>>(
+				WikipediaParser.tableCacheWeight);
+		this.yearPageCache = new LRUCache<String, YearPage>(
+				WikipediaParser.tableCacheWeight);
+		this.castGraph = new CastGraph(new File(pageCache.getDirectory(),
+				"casts.dat"));
+		fetchConfig.applyConnectionPool();
+		this.fetchExecutor = new FetchExecutor(fetchConfig);
+	}
+
+	/**
+	 * Accessor for in-memory cache of parsed pages (keyed by URL)
+	 * 
+	 * @return this.documentCache
+	 */
+	public LRUCache<String, Document> getDocumentCache() {
+		return this.documentCache;
+	}
+
+	/**
+	 * Accessor for in-memory cache of parsed award tables (keyed by category)
+	 * 
+	 * @return this.tableCache
+	 */
+	public LRUCache<String, ArrayList<HashedInfo>> getTableCache() {
+		return this.tableCache;
+	}
+
+	/**
+	 * Accessor for index of film casts, filled in as film pages are read and
+	 * saved alongside the page cache
+	 * 
+	 * @return this.castGraph
+	 */
+	public CastGraph getCastGraph() {
+		return this.castGraph;
+	}
+
+	/**
+	 * Accessor for pool that values of parsed tables are shared through
+	 * 
+	 * @return this.stringPool
+	 */
+	public StringPool getStringPool() {
+		return this.stringPool;
+	}
+
+	/**
+	 * Stops the threads page loads run on, once loads in flight finish
+	 */
+	public void shutdown() {
+		this.fetchExecutor.shutdown();
+	}
+
+	/**
+	 * Loads a single page, counting it towards the progress of the calling
+	 * thread's question (see FetchTracker)
+	 * 
+	 * @param url
+	 *           Absolute URL of page to be loaded
+	 * @return Parsed page
+	 * @throws IOException
+	 *            if the page could not be fetched, or is not cached in offline
+	 *            mode
+	 */
+	private Document fetchDocument(String url) throws IOException {
+		FetchTracker tracker = FetchTracker.current();
+		if (tracker != null) {
+			tracker.pagesRequested(1);
+		}
+		ParserMetrics.pageLoads(1);
+		try {
+			return this.loadDocument(url);
+		} finally {
+			if (tracker != null) {
+				tracker.pageDone();
+			}
+		}
+	}
+
+	/**
+	 * Single point through which every page is loaded. Pages parsed earlier in
+	 * this session are served from memory, fresh pages from the on-disk cache;
+	 * stale ones are revalidated with their ETag / Last-Modified headers, and
+	 * only re-downloaded if the server says they changed. Threads asking for a
+	 * page another thread is already loading wait for that load (and share its
+	 * result or exception) rather than fetching and parsing it again.
+	 * 
+	 * @param url
+	 *           Absolute URL of page to be loaded
+	 * @return Parsed page
+	 * @throws IOException
+	 *            if the page could not be fetched, or is not cached in offline
+	 *            mode, or the loading thread was interrupted
+	 */
+	private Document loadDocument(final String url) throws IOException {
+		Document doc = this.documentCache.get(url);
+		if (doc != null) {
+			ParserMetrics.documentCacheHit();
+			return doc;
+		}
+
+		return this.documentLoads.run(url, new Callable<Document>() {
+			public Document call() throws IOException {
+				return WikipediaParser.this.loadUncachedDocument(url);
+			}
+		});
+	}
+
+	// loads a page not found in memory when asked for
+	private Document loadUncachedDocument(String url) throws IOException {
+		// a load that just finished may have put it there
+		Document doc = this.documentCache.get(url);
+		if (doc != null) {
+			return doc;
+		}
+
+		PageCache.Entry cached = this.pageCache.lookup(url);
+
+		if (cached != null && (this.offline || this.pageCache.isFresh(cached))) {
+			ParserMetrics.pageCacheHit();
+			return this.parseDocument(url, cached.getHtml());
+		}
+		if (this.offline) {
+			throw new IOException("Offline and page not cached: " + url);
+		}
+		if (Thread.currentThread().isInterrupted()) {
+			throw new InterruptedIOException("Fetch cancelled: " + url);
+		}
+
+		Connection connection = this.fetchConfig.connect(url);
+		if (cached != null) {
+			if (cached.getEtag() != null) {
+				connection.header("If-None-Match", cached.getEtag());
+			}
+			if (cached.getLastModified() != null) {
+				connection.header("If-Modified-Since", cached.getLastModified());
+			}
+		}
+
+		long fetchStart = ParserMetrics.start();
+		Connection.Response response = this.fetchExecutor.execute(connection);
+		ParserMetrics.fetch.stop(fetchStart);
+
+		// unchanged since last fetch
+		if (response.statusCode() == 304 && cached != null) {
+			ParserMetrics.revalidated();
+			return this.parseDocument(url, this.pageCache.touch(cached).getHtml());
+		}
+		if (response.statusCode() != 200) {
+			throw new IOException("HTTP " + response.statusCode() + " fetching "
+					+ url);
+		}
+
+		ParserMetrics.fetched(response.bodyAsBytes().length);
+		PageCache.Entry stored = this.pageCache.store(url, response.body(),
+				response.header("ETag"), response.header("Last-Modified"));
+		return this.parseDocument(url, stored.getHtml());
+	}
+
+	/**
+	 * Loads a batch of pages concurrently, for the calling thread's question
+	 * (see FetchTracker)
+	 * 
+	 * @param urls
+	 *           Absolute URLs of pages to be loaded
+	 * @return Parsed pages, in the same order as urls. Pages that could not be
+	 *         loaded are null.
+	 */
+	private ArrayList<Document> fetchDocuments(List<String> urls) {
+		ArrayList<Callable<Document>> fetches = new ArrayList<Callable<Document>>();
+		final FetchTracker tracker = FetchTracker.current();
+		if (tracker != null) {
+			tracker.pagesRequested(urls.size());
+		}
+		ParserMetrics.pageLoads(urls.size());
+		for (final String url : urls) {
+			fetches.add(new Callable<Document>() {
+				public Document call() throws IOException {
+					try {
+						return WikipediaParser.this.loadDocument(url);
+					} finally {
+						if (tracker != null) {
+							tracker.pageDone();
+						}
+					}
+				}
+			});
+		}
+		return this.fetchExecutor.invokeAll(fetches, tracker);
+	}
+
+	/**
+	 * Parses page and keeps it in memory for the rest of the session
+	 * 
+	 * @param url
+	 *           URL page was loaded from
+	 * @param html
+	 *           Body of page
+	 * @return Parsed page
+	 */
+	private Document parseDocument(String url, String html) {
+		long parseStart = ParserMetrics.start();
+		Document doc = Jsoup.parse(html, url);
+		ParserMetrics.parse.stop(parseStart);
+		this.documentCache.put(url, doc, html.length() * 2L);
+		return doc;
+	}
+
+	/**
+	 * Looks up a previously parsed award table: in memory, or else in the
+	 * snapshot saved when it was last parsed. A snapshot is decoded once, and
+	 * its rows kept with the parsed tables, so that repeat calls hand back the
+	 * same row objects (which TrigramIndex relies on to skip re-indexing).
+	 * 
+	 * @param key
+	 *           Cache key of table
+	 * @return Copy of cached table (so callers can't alter the cache), or null
+	 *         if not cached
+	 */
+	private ArrayList<HashedInfo> cachedTable(String key) {
+		ArrayList<HashedInfo> table = this.tableCache.get(key);
+		if (table == null) {
+			NominationSnapshot snapshot = this.pageCache.loadSnapshot(key,
+					this.offline);
+			if (snapshot == null) {
+				return null;
+			}
+			table = snapshot.toList();
+			this.tableCache.put(key, table, WikipediaParser.tableWeight(table));
+		}
+		ParserMetrics.tableCacheHit();
+		return new ArrayList<HashedInfo>(table);
+	}
+
+	/**
+	 * Keeps a parsed award table in memory for the rest of the session, and
+	 * saves a snapshot of it for later sessions
+	 * 
+	 * @param key
+	 *           Cache key of table
+	 * @param table
+	 *           Parsed table
+	 * @param url
+	 *           URL of page table was parsed from; the snapshot is dropped
+	 *           once that page changes
+	 */
+	private void cacheTable(String key, ArrayList<HashedInfo> table,
+			String url) {
+		this.tableCache.put(key, new ArrayList<HashedInfo>(table),
+				WikipediaParser.tableWeight(table));
+		try {
+			this.pageCache.storeSnapshot(key, table, url);
+		} catch (IOException e) {
+			e.printStackTrace(); // table is simply parsed again next session
+		}
+	}
+
+	// approximate bytes held by a parsed table
+	private static long tableWeight(ArrayList<HashedInfo> table) {
+		long weight = 0;
+		for (HashedInfo h : table) {
+			for (String k : h.getHasher().keySet()) {
+				String v = h.getHasher().get(k);
+				weight += 64 + 2 * (k.length() + (v == null ? 0 : v.length()));
+			}
+		}
+		return weight;
+	}
+
+	/**
+	 * Returns the link index of baseURL (here, Academy Awards Portal), building
+	 * it on first use. Every portal lookup shares this one index; threads
+	 * asking for it while it is being built wait for that build, and no lock
+	 * is held while the portal page loads.
+	 * 
+	 * @return Index of links on the portal page
+	 * @throws IOException
+	 *            if the portal page could not be loaded
+	 */
+	public PortalIndex getPortalIndex() throws IOException {
+		PortalIndex index = this.portalIndex;
+		if (index != null) {
+			return index;
+		}
+		return this.portalLoads.run(this.baseURL, new Callable<PortalIndex>() {
+			public PortalIndex call() throws IOException {
+				// a build that just finished may have published it
+				PortalIndex built = WikipediaParser.this.portalIndex;
+				return (built != null) ? built : WikipediaParser.this
+						.loadPortalIndex();
+			}
+		});
+	}
+
+	/**
+	 * Rebuilds the portal link index from a freshly loaded copy of the portal
+	 * page (subject to the on-disk cache's revalidation rules). The old index
+	 * is served until the new one is built; a refresh asked for while a build
+	 * is in flight shares that build.
+	 * 
+	 * @return The new index
+	 * @throws IOException
+	 *            if the portal page could not be loaded
+	 */
+	public PortalIndex refreshPortalIndex() throws IOException {
+		return this.portalLoads.run(this.baseURL, new Callable<PortalIndex>() {
+			public PortalIndex call() throws IOException {
+				WikipediaParser.this.documentCache
+						.remove(WikipediaParser.this.baseURL);
+				return WikipediaParser.this.loadPortalIndex();
+			}
+		});
+	}
+
+	// builds the portal index and publishes it to every thread
+	private PortalIndex loadPortalIndex() throws IOException {
+		PortalIndex index = new PortalIndex(this.fetchDocument(this.baseURL),
+				this.wikiRootURL);
+		this.portalIndex = index;
+		return index;
 	}
 
 	/**
@@ -76,7 +468,12 @@ public class WikipediaParser {
 	 * @return ArrayList of links containing search query
 	 */
 	public ArrayList<String> getBaseURLContents(String search) {
-		return this.getURLContentsSearch(WikipediaParser.baseURL, search);
+		try {
+			return this.getPortalIndex().linksContaining(search);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return new ArrayList<String>();
+		}
 	}
 
 	/**
@@ -89,38 +486,17 @@ public class WikipediaParser {
 	 * @return ArrayList of matching URLs
 	 */
 	public ArrayList<String> getURLContentsSearch(String searchURL, String search) {
-		ArrayList<String> wikiURLs = new ArrayList<String>();
+		if (searchURL.equals(this.baseURL)) {
+			return this.getBaseURLContents(search);
+		}
 
 		try {
-			Document doc = Jsoup.connect(searchURL).get();
-			String url = "";
-			Elements urls = doc.select("[href]");
-			Pattern absPattern = Pattern
-					.compile("\\s*http://en.wikipedia.org(.*)");
-			Matcher absMatcher;
-
-			// adds link to ArrayList for each url matching search query
-			for (Element e : urls) {
-				String absHref = e.attr("abs:href");
-				if ((absHref.contains(search))) {
-					url = absHref;
-					absMatcher = absPattern.matcher(url);
-
-					// converts absolute url to relative
-					if (absMatcher.find()) {
-						url = absMatcher.group(1);
-					}
-
-					if (!wikiURLs.contains(url)) {
-						wikiURLs.add(url);
-					}
-				}
-			}
-
+			return new PortalIndex(this.fetchDocument(searchURL),
+					this.wikiRootURL).linksContaining(search);
 		} catch (IOException e) {
 			e.printStackTrace();
+			return new ArrayList<String>();
 		}
-		return wikiURLs;
 	}
 
 	/**
@@ -136,35 +512,16 @@ public class WikipediaParser {
 	 */
 	public HashMap<String, String> getURLTextSearch(String searchURL,
 			String search) {
-		HashMap<String, String> hasher = new HashMap<String, String>();
 		try {
-			Document doc = Jsoup.connect(searchURL).get();
-			Elements urls = doc.select("[href]");
-
-			String tempString;
-			Pattern alink = Pattern
-					.compile("\\s*<a href=\"(.*)\".*title.*>(.*)</a>\\s*");
-			Matcher alinkMatcher;
-
-			for (Element e : urls) {
-				tempString = e.toString();
-				alinkMatcher = alink.matcher(tempString);
-
-				if (alinkMatcher.find()) {
-					if (alinkMatcher.group(2).matches(".*" + search + ".*")) {
-						// uses the link display text : link hyperlink as a K:V pair
-						// in a Hash
-						if (alinkMatcher.group(1).matches(".*Academy.*Awards.*")) { // EXPERIMENTAL
-							hasher.put(alinkMatcher.group(2), alinkMatcher.group(1));
-						}
-					}
-				}
+			if (searchURL.equals(this.baseURL)) {
+				return this.getPortalIndex().awardLinksMatching(search);
 			}
+			return new PortalIndex(this.fetchDocument(searchURL),
+					this.wikiRootURL).awardLinksMatching(search);
 		} catch (IOException e) {
 			e.printStackTrace();
+			return new HashMap<String, String>();
 		}
-
-		return hasher;
 	}
 
 	/**
@@ -177,49 +534,260 @@ public class WikipediaParser {
 	 */
 	public ArrayList<HashedInfo> getDecadeTableInfo(String category,
 			int indicator) {
+		String tableKey = "decade:" + category + ":" + indicator;
+		ArrayList<HashedInfo> cachedNoms = this.cachedTable(tableKey);
+		if (cachedNoms != null) {
+			return cachedNoms;
+		}
+
 		ArrayList<String> links = this.getBaseURLContents(category);
 		ArrayList<HashedInfo> allNoms = new ArrayList<HashedInfo>();
 
-		Document doc = null;
+		Document doc;
 		try {
 			// because of specificity of search params, all links should redirect
 			// to same page
-			doc = Jsoup.connect(WikipediaParser.wikiRootURL + links.get(0)).get();
+			doc = this.fetchDocument(this.wikiRootURL + links.get(0));
 		} catch (IOException e) {
 			e.printStackTrace();
+			return allNoms;
 		}
 
-		String URLContents = doc.toString();
+		long extractStart = ParserMetrics.start();
+		for (Element table : doc.select("table.wikitable")) {
+			if (WikipediaParser.isDecadeTable(table, indicator)) {
+				allNoms.addAll(this.analyzeTable(table, indicator));
+			}
+		}
+		ParserMetrics.extract.stop(extractStart);
+		ParserMetrics.tableRows.record(allNoms.size());
 
-		Scanner reader = new Scanner(URLContents);
+		this.cacheTable(tableKey, allNoms, this.wikiRootURL + links.get(0));
+		return allNoms;
+	}
 
-		// award years are separated by this delimiter
-		if (indicator == 0) {
-			reader.useDelimiter("<table class=\"wikitable\" style=\"width:100%;\">");
-		} else if (indicator == 1) {
-			reader.useDelimiter(WikipediaParser.tableDefine);
+	/**
+	 * Streaming form of getDecadeTableInfo: opens the category page as a stream
+	 * and reads rows as they are needed, without building the page in memory.
+	 * Rows are not cached, and their values are not pooled.
+	 * 
+	 * @param category
+	 *           Category to be read
+	 * @param indicator
+	 *           0 for table similar to Best Picture; 1 for table similar to
+	 *           Original Screenplay/Best Actor
+	 * @return Reader of rows in the category's tables (to be closed by the
+	 *         caller if not read to the end)
+	 * @throws IOException
+	 *            if the page could not be opened
+	 */
+	public DecadeTableReader openDecadeTable(String category, int indicator)
+			throws IOException {
+		ArrayList<String> links = this.getBaseURLContents(category);
+		return new DecadeTableReader(this.openPage(this.wikiRootURL
+				+ links.get(0)), indicator);
+	}
+
+	/**
+	 * Streaming form of getDecadeTableInfo: hands each row to handler as soon
+	 * as it is read from the category page
+	 * 
+	 * @param category
+	 *           Category to be read
+	 * @param indicator
+	 *           0 for table similar to Best Picture; 1 for table similar to
+	 *           Original Screenplay/Best Actor
+	 * @param handler
+	 *           Receiver of rows; reading stops once it returns false
+	 * @return Number of rows handed to handler
+	 * @throws IOException
+	 *            if the page could not be read
+	 */
+	public int streamDecadeTable(String category, int indicator,
+			RowHandler handler) throws IOException {
+		ArrayList<String> links = this.getBaseURLContents(category);
+		return DecadeTableReader.read(
+				this.openPage(this.wikiRootURL + links.get(0)),
+				indicator, handler);
+	}
+
+	/**
+	 * Reads a table already parsed in this session, or saved as a snapshot,
+	 * and otherwise streams it from the category page. Unlike
+	 * getDecadeTableInfo, a table read from its page or snapshot is never built
+	 * in memory.
+	 */
+	public int scanDecadeTable(String category, int indicator,
+			RowHandler handler) throws IOException {
+		String tableKey = "decade:" + category + ":" + indicator;
+		ArrayList<HashedInfo> table = this.tableCache.get(tableKey);
+		if (table != null) {
+			ParserMetrics.tableCacheHit();
+			int rows = 0;
+			for (HashedInfo h : table) {
+				rows++;
+				if (!handler.row(h)) {
+					break;
+				}
+			}
+			return rows;
+		}
+
+		NominationSnapshot snapshot = this.pageCache.loadSnapshot(tableKey,
+				this.offline);
+		if (snapshot != null) {
+			ParserMetrics.tableCacheHit();
+			return snapshot.read(handler);
+		}
+		return this.streamDecadeTable(category, indicator, handler);
+	}
+
+	/**
+	 * Opens page as a stream, for the calling thread's question (see
+	 * FetchTracker)
+	 * 
+	 * @param url
+	 *           Absolute URL of page to be opened
+	 * @return Stream of page (to be closed by the caller)
+	 * @throws IOException
+	 *            if the page could not be opened, or is not cached in offline
+	 *            mode
+	 */
+	private Reader openPage(String url) throws IOException {
+		FetchTracker tracker = FetchTracker.current();
+		if (tracker != null) {
+			tracker.pagesRequested(1);
+		}
+		ParserMetrics.pageLoads(1);
+		try {
+			return this.loadPage(url, tracker);
+		} finally {
+			if (tracker != null) {
+				tracker.pageDone();
+			}
+		}
+	}
+
+	/**
+	 * Streaming counterpart of loadDocument. A fresh page is opened from the
+	 * on-disk cache; a stale one is revalidated, and a changed or missing one
+	 * is written to the cache as it is read from the network, so that the page
+	 * is never held in memory. The stored copy is then opened.
+	 * 
+	 * @param url
+	 *           Absolute URL of page to be opened
+	 * @param tracker
+	 *           Tracker of the question opening the page (null for none); the
+	 *           download stops once it is cancelled
+	 * @return Stream of page (to be closed by the caller)
+	 * @throws IOException
+	 *            if the page could not be opened, or is not cached in offline
+	 *            mode, or the loading thread was interrupted
+	 */
+	private Reader loadPage(String url, FetchTracker tracker)
+			throws IOException {
+		Reader cached = this.pageCache.open(url, this.offline);
+		if (cached != null) {
+			ParserMetrics.pageCacheHit();
+			return cached;
+		}
+		if (this.offline) {
+			throw new IOException("Offline and page not cached: " + url);
+		}
+		if (Thread.currentThread().isInterrupted()) {
+			throw new InterruptedIOException("Fetch cancelled: " + url);
+		}
+
+		PageCache.Entry stale = this.pageCache.lookupHeaders(url);
+		long fetchStart = ParserMetrics.start();
+		HttpURLConnection connection = this.fetchExecutor.connect(new URL(url),
+				(stale == null) ? null : stale.getEtag(),
+				(stale == null) ? null : stale.getLastModified());
+		if (connection.getResponseCode() == 304) {
+			ParserMetrics.fetch.stop(fetchStart);
+			ParserMetrics.revalidated();
+			this.pageCache.touch(url);
+		} else {
+			FetchStream body = new FetchStream(FetchConfig.body(connection),
+					tracker);
+			try {
+				this.pageCache.store(url, body, connection.getHeaderField("ETag"),
+						connection.getHeaderField("Last-Modified"));
+			} finally {
+				body.close();
+			}
+			ParserMetrics.fetch.stop(fetchStart);
+			ParserMetrics.fetched(body.bytes);
 		}
 
-		String tempString = "";
-		ArrayList<HashedInfo> tempNoms;
+		Reader stored = this.pageCache.open(url, true);
+		if (stored == null) {
+			throw new IOException("Page stored but not found: " + url);
+		}
+		return stored;
+	}
+
+	/**
+	 * Network stream of a page being downloaded, which counts the bytes read
+	 * and stops once the thread is interrupted or the question is cancelled
+	 */
+	private static final class FetchStream extends FilterInputStream {
 
-		reader.next(); // gets rid of pre-table data
+		private final FetchTracker tracker;
+		private long bytes;
 
-		while (reader.hasNext()) {
-			tempString = reader.next();
+		private FetchStream(InputStream in, FetchTracker tracker) {
+			super(in);
+			this.tracker = tracker;
+		}
 
-			// gets rid of last "chunk", after last table
-			if (!reader.hasNext()) {
-				tempString = tempString.split(WikipediaParser.lastTableSplitRegex)[0];
+		@Override
+		public int read() throws IOException {
+			this.checkCancelled();
+			int read = super.read();
+			if (read != -1) {
+				this.bytes++;
 			}
+			return read;
+		}
 
-			tempNoms = this.analyzeTable(tempString, indicator);
-			for (HashedInfo m : tempNoms) {
-				allNoms.add(m);
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			this.checkCancelled();
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				this.bytes += read;
 			}
+			return read;
+		}
 
+		private void checkCancelled() throws InterruptedIOException {
+			if (Thread.currentThread().isInterrupted()
+					|| (this.tracker != null && this.tracker.isCancelled())) {
+				throw new InterruptedIOException("Fetch cancelled");
+			}
 		}
-		return allNoms;
+	}
+
+	/**
+	 * Checks whether table is one of the award tables of a category page
+	 * 
+	 * @param table
+	 *           Table to be checked
+	 * @param indicator
+	 *           0 for table similar to Best Picture (one table per year); 1 for
+	 *           table similar to Original Screenplay/Best Actor (one table per
+	 *           decade)
+	 * @return true if table holds nominees
+	 */
+	static boolean isDecadeTable(Element table, int indicator) {
+		if (indicator == 0) {
+			return table.attributes().size() == 2
+					&& table.attr("class").equals("wikitable")
+					&& table.attr("style").equals("width:100%;");
+		}
+		return table.attributes().size() == 1
+				&& table.attr("class").equals("wikitable");
 	}
 
 	/**
@@ -227,230 +795,327 @@ public class WikipediaParser {
 	 * Screenplay/Best Actor Wikipedia page
 	 * 
 	 * @param table
-	 *           String representing table
+	 *           Table element to be analyzed
 	 * @param indicator
 	 *           0 for table similar to Best Picture; 1 for table similar to
-	 *           Original Screenplay/Best Actor; other values throw exceptions
+	 *           Original Screenplay/Best Actor
 	 * @return ArrayList of movies analyzed from table
 	 */
-	private ArrayList<HashedInfo> analyzeTable(String table, int indicator) {
+	ArrayList<HashedInfo> analyzeTable(Element table, int indicator) {
 		ArrayList<HashedInfo> fromTable = new ArrayList<HashedInfo>();
-		Scanner tableReader = new Scanner(table);
-		tableReader.useDelimiter(System.getProperty("line.separator"));
+		ArrayList<String> attributes = new ArrayList<String>();
 		String awardLink = "";
 		int awardYear = 0, calendarYear = 0;
-		ArrayList<String> attributes = new ArrayList<String>();
-		Matcher attributeMatcher, infoCellMatcher;
-
-		boolean action = false;
 
 		if (indicator == 0) { // BEST PICTURE
-			// skips extra front lines
-			while (!tableReader.hasNext(WikipediaParser.yearExtract)) {
-				tableReader.next();
-			}
-
-			// grabs calendar year
-			String calendarYearLine = tableReader.next();
-			Matcher m = WikipediaParser.yearExtract.matcher(calendarYearLine);
-			if (m.find()) {
-				calendarYear = Integer.parseInt(m.group(2));
+			// caption holds calendar year, then link to award ceremony
+			Elements yearLinks = WikipediaParser.linksWithDigits(table
+					.select("caption [href]"));
+			if (yearLinks.size() > 0) {
+				calendarYear = WikipediaParser.firstNumber(yearLinks.get(0).text());
 				if (String.valueOf(calendarYear).length() == 2) {
 					calendarYear += 1900;
 				}
 			}
-
-			// grabs award year
-			String firstLine = tableReader.next(WikipediaParser.yearExtract);
-			m = WikipediaParser.yearExtract.matcher(firstLine);
-
-			// save link and year info from header
-			if (m.find()) {
-				awardLink = m.group(1);
-				awardYear = Integer.parseInt(m.group(2));
+			if (yearLinks.size() > 1) {
+				awardLink = yearLinks.get(1).attr("href");
+				awardYear = WikipediaParser.firstNumber(yearLinks.get(1).text());
 			}
+		}
 
-			action = false;
-			// get attributes in table
-			while (!tableReader.hasNext(WikipediaParser.rowEnd)) {
-				action = false;
-
-				// uses above-defined regex to see if this line defines row header
-				if (tableReader.hasNext(WikipediaParser.attributeHeader)) {
-
-					String tempRow = tableReader.next();
-					attributeMatcher = WikipediaParser.attributeHeader
-							.matcher(tempRow);
-					action = true;
-
-					if (attributeMatcher.find()) {
-						attributes.add(attributeMatcher.group(1));
+		String winner = "1"; // 1 for winner; 0 otherwise
+		ArrayList<String> values = new ArrayList<String>();
+		TableColumns columns = null;
+		for (Element row : table.select("tr")) {
+			Elements cells = row.select("> td");
+
+			if (cells.size() == 0) {
+				// header row gives attribute names
+				if (attributes.size() == 0) {
+					for (Element th : row.select("> th")) {
+						attributes.add(th.text().trim());
 					}
 				}
+				continue;
+			}
 
-				if (!action) {
-					tableReader.next();
+			// award for whole table is taken from year cell of first row
+			if (indicator == 1 && awardLink.equals("")) {
+				Elements yearLinks = WikipediaParser.linksWithDigits(row
+						.select("> th [href]"));
+				if (yearLinks.size() > 0) {
+					Element last = yearLinks.last();
+					awardLink = last.attr("href");
+					awardYear = WikipediaParser.firstNumber(last.text());
 				}
 			}
-		} else if (indicator == 1) { // ORIG SCREENPLAY
-			// skips extra front lines
-			while (!tableReader.hasNext(WikipediaParser.trDefine)) {
-				tableReader.next();
+
+			for (Element cell : cells) {
+				values.add(WikipediaParser.cellValue(cell));
 			}
+			columns = TableColumns.of(columns, attributes, indicator);
+			fromTable.add(WikipediaParser.tableRow(columns, values, winner,
+					awardLink, awardYear, calendarYear, this.stringPool));
 
-			tableReader.next(); // gets rid of year info line, so can grab award
-										// number info
+			winner = "0"; // from now on in this table, movies are not winners
 
-			action = false;
-			// get attributes in table
-			while (!tableReader.hasNext(WikipediaParser.rowEnd)) {
-				action = false;
+			// reset for next movie
+			values.clear();
+		}
 
-				// uses above-defined regex to see if this line defines row header
-				if (tableReader.hasNext(WikipediaParser.attributeHeader)) {
+		return fromTable;
+	}
 
-					String tempRow = tableReader.next();
-					attributeMatcher = WikipediaParser.attributeHeader
-							.matcher(tempRow);
-					action = true;
+	/**
+	 * Builds row of an award table from its cells
+	 * 
+	 * @param columns
+	 *           Columns of table
+	 * @param values
+	 *           Values of row's cells
+	 * @param winner
+	 *           "1" if row is the table's winner; "0" otherwise
+	 * @param awardLink
+	 *           Link to award ceremony of table
+	 * @param awardYear
+	 *           Number of award ceremony
+	 * @param calendarYear
+	 *           Year of films in table
+	 * @param stringPool
+	 *           Pool that row's values are shared through (null to keep values
+	 *           as they are, as streamed rows do)
+	 * @return Row, keyed by column header
+	 */
+	static HashedInfo tableRow(TableColumns columns, List<String> values,
+			String winner, String awardLink, int awardYear, int calendarYear,
+			StringPool stringPool) {
+		int count = columns.cells(values.size());
+		String[] row = new String[count + 4];
+		for (int i = 0; i < count; i++) {
+			row[i] = WikipediaParser.pooled(stringPool, values.get(i));
+		}
+		row[count] = winner;
+		row[count + 1] = WikipediaParser.pooled(stringPool, awardLink.trim());
+		row[count + 2] = WikipediaParser.pooled(stringPool,
+				String.valueOf(awardYear));
+		row[count + 3] = WikipediaParser.pooled(stringPool,
+				String.valueOf(calendarYear));
+
+		RowSchema schema = columns.schema(count);
+		if (schema != null) {
+			return new HashedInfo(schema, row);
+		}
+		// repeated header: later column wins, as with a map
+		HashMap<String, String> byName = new HashMap<String, String>();
+		for (int i = 0; i < row.length; i++) {
+			byName.put(columns.column(i, count), row[i]);
+		}
+		return new HashedInfo(byName);
+	}
 
-					if (attributeMatcher.find()) {
-						attributes.add(attributeMatcher.group(1));
-					}
-				}
+	// value shared through pool, or value itself if there is no pool
+	private static String pooled(StringPool pool, String value) {
+		return (pool == null) ? value : pool.intern(value);
+	}
 
-				if (!action) {
-					tableReader.next();
-				}
-			}
+	/**
+	 * Columns of the rows of one award table, resolved from its header once
+	 * and shared by its rows. A row with fewer cells than the header has
+	 * columns gets the schema for its number of cells.
+	 */
+	static final class TableColumns {
+
+		private final List<String> attributes;
+		private final int offset;
+		// schema by number of cells used; null until first needed
+		private final RowSchema[] schemas;
+		// set for numbers of cells whose columns repeat a header
+		private final boolean[] repeated;
+
+		private TableColumns(List<String> attributes, int indicator) {
+			this.attributes = new ArrayList<String>(attributes);
+			// on Original Screenplay/Best Actor tables, first attribute is the
+			// year, which is not a cell of its own
+			this.offset = (indicator == 1) ? 1 : 0;
+			int most = Math.max(0, attributes.size() - this.offset);
+			this.schemas = new RowSchema[most + 1];
+			this.repeated = new boolean[most + 1];
+		}
 
-			// continue "eating" lines until specified pattern is next
-			while (!tableReader.hasNext(WikipediaParser.yearExtract)) {
-				tableReader.next();
+		/**
+		 * Columns for a table's header, reusing those already resolved while
+		 * the header is unchanged
+		 * 
+		 * @param current
+		 *           Columns resolved so far for the table (null for none)
+		 * @param attributes
+		 *           Column headers of table
+		 * @param indicator
+		 *           0 for table similar to Best Picture; 1 for table similar
+		 *           to Original Screenplay/Best Actor
+		 * @return Columns of table
+		 */
+		static TableColumns of(TableColumns current, List<String> attributes,
+				int indicator) {
+			if (current != null
+					&& current.attributes.size() == attributes.size()) {
+				return current;
 			}
+			return new TableColumns(attributes, indicator);
+		}
 
-			String firstLine = tableReader.next(WikipediaParser.yearExtract);
-			Matcher m = WikipediaParser.yearExtract.matcher(firstLine);
+		// number of a row's cells that have a header
+		private int cells(int values) {
+			return Math.min(values, this.schemas.length - 1);
+		}
 
-			// save link and year info from header
-			if (m.find()) {
-				awardLink = m.group(1);
-				awardYear = Integer.parseInt(m.group(2));
+		// name of column i of a row with count cells
+		private String column(int i, int count) {
+			if (i < count) {
+				return this.attributes.get(i + this.offset);
 			}
-
+			return WikipediaParser.rowColumns[i - count];
 		}
 
-		// begin content parse
-		Document tempRowDoc = Document.createShell("");
-		int counter;
-		String value = "";
-		ArrayList<String> valueHolder;
-		String winner = "1"; // 1 for winner; 0 otherwise
-		HashMap<String, String> movieAttributes = new HashMap<String, String>();
-		String rowContents;
-		Elements links;
-		while (tableReader.hasNext()) {
-			action = false;
-
-			if (tableReader.hasNext(WikipediaParser.trDefine)) {
-				tableReader.next();
-			} else if (tableReader.hasNext("\\s*<h3>.*</h3>\\s*")) {
-				tableReader.next();
-			} else if (tableReader.hasNext("\\s*<\tbody>\\s*")) {
-				tableReader.next();
-			} else if (tableReader.hasNext("\\s*<\table>\\s*")) {
-				tableReader.next();
-			} else {
-
-				// below loop is for each movie
-				counter = 0;
-				eachMovie: while (!tableReader.hasNext(WikipediaParser.rowEnd)) {
-
-					// make sure next line is in correct format for cell
-					if (tableReader.hasNext(WikipediaParser.infoCellA)) {
-						action = true;
-						rowContents = tableReader.next();
-						tempRowDoc = Jsoup.parse(rowContents);
-						links = tempRowDoc.select("[href]");
-						valueHolder = new ArrayList<String>();
-
-						// add hyperlinks to valueHolder
-						if (links.size() != 0) {
-							for (Element e : links) {
-								valueHolder.add(e.text().trim());
-							}
-						}
+		// schema of a row with count cells, or null if its columns repeat
+		private RowSchema schema(int count) {
+			if (this.schemas[count] == null && !this.repeated[count]) {
+				ArrayList<String> columns = new ArrayList<String>(count + 4);
+				for (int i = 0; i < count + 4; i++) {
+					columns.add(this.column(i, count));
+				}
+				try {
+					this.schemas[count] = RowSchema.of(columns);
+				} catch (IllegalArgumentException e) {
+					this.repeated[count] = true;
+				}
+			}
+			return this.schemas[count];
+		}
+	}
 
-						// match plaintext left over
-						infoCellMatcher = WikipediaParser.infoCellA
-								.matcher(rowContents);
-						if (infoCellMatcher.find()) {
-							String[] tempValue = infoCellMatcher.group(1).split(", ");
-							for (String s : tempValue) {
-								if (!s.matches(".*href.*")) { // gets rid of hyperlinks
-																		// already grabbed
-									if (!valueHolder.contains(s.trim())) {
-										valueHolder.add(s.trim());
-									}
-								}
-							}
-						}
+	/**
+	 * Reads value of table cell: text of every hyperlink in cell, followed by
+	 * each comma-separated piece of plain text that holds no hyperlink
+	 * 
+	 * @param cell
+	 *           Cell to be read
+	 * @return Comma-separated values in cell
+	 */
+	private static String cellValue(Element cell) {
+		ArrayList<String> linkTexts = new ArrayList<String>();
+		for (Element e : cell.select("[href]")) {
+			linkTexts.add(e.text().trim());
+		}
 
-						// create value String from valueHolder ArrayList
-						for (String s : valueHolder) {
-							if (!value.equals("")) {
-								value += ", ";
-							}
-							value += s;
-						}
+		StringBuilder plainText = new StringBuilder();
+		WikipediaParser.appendMarkedText(cell, plainText);
+		return WikipediaParser.cellValue(linkTexts, plainText);
+	}
 
-						// add key--value pair to HashMap
-						// if statement due to different structures of wiki tables
-						if (indicator == 0) {
-							movieAttributes.put(attributes.get(counter).trim(),
-									value.trim());
-						} else if (indicator == 1) {
-							movieAttributes.put(attributes.get(counter + 1).trim(),
-									value.trim());
-						}
+	/**
+	 * Builds value of table cell from its parts. Shared with the streaming
+	 * DecadeTableReader so that both read cells alike.
+	 * 
+	 * @param linkTexts
+	 *           Text of every hyperlink in cell
+	 * @param markedText
+	 *           Plain text of cell, with each hyperlink replaced by linkMarker
+	 * @return Comma-separated values in cell
+	 */
+	static String cellValue(ArrayList<String> linkTexts, CharSequence markedText) {
+		ArrayList<String> valueHolder = new ArrayList<String>(linkTexts);
+
+		// pieces holding hyperlinks (already grabbed) are left out
+		for (String s : markedText.toString().split(", ")) {
+			s = s.trim();
+			if (s.length() != 0 && s.indexOf(WikipediaParser.linkMarker) == -1
+					&& !valueHolder.contains(s)) {
+				valueHolder.add(s);
+			}
+		}
 
-						counter++;
-						value = "";
-					}
+		// create value String from valueHolder ArrayList
+		StringBuilder value = new StringBuilder();
+		for (String s : valueHolder) {
+			if (value.length() != 0) {
+				value.append(", ");
+			}
+			value.append(s);
+		}
+		return value.toString().trim();
+	}
 
-					// safeguards
-					if (!tableReader.hasNext()) {
-						break eachMovie;
-					}
-					if (!action) {
-						tableReader.next();
-					}
+	/**
+	 * Appends text of element to out, with each hyperlink replaced by
+	 * linkMarker and each line break by a space
+	 * 
+	 * @param element
+	 *           Element whose text is to be appended
+	 * @param out
+	 *           Where text is appended
+	 */
+	private static void appendMarkedText(Element element, StringBuilder out) {
+		for (Node child : element.childNodes()) {
+			if (child instanceof TextNode) {
+				WikipediaParser.appendCollapsed(((TextNode) child).text(), out);
+			} else if (child instanceof Element) {
+				Element e = (Element) child;
+				if (e.hasAttr("href")) {
+					out.append(WikipediaParser.linkMarker);
+				} else if (e.tagName().equals("br")) {
+					WikipediaParser.appendCollapsed(" ", out);
+				} else {
+					WikipediaParser.appendMarkedText(e, out);
 				}
+			}
+		}
+	}
 
-				// if movie item pre-assembled, add to list of noms
-				if (action) {
-					movieAttributes.put("winner", winner);
-					movieAttributes.put("awardLink", awardLink.trim());
-					movieAttributes.put("awardYear", String.valueOf(awardYear)
-							.trim());
-					movieAttributes
-							.put("calendarYear", String.valueOf(calendarYear));
-
-					fromTable.add(new HashedInfo(movieAttributes));
-
-					winner = "0"; // from now on in this table, movies are not
-										// winners
-
-				} else if (tableReader.hasNext()) {
-					tableReader.next();
-				}
+	/**
+	 * Appends text to out without doubling up the space between them
+	 * 
+	 * @param text
+	 *           Text (with whitespace already normalized) to be appended
+	 * @param out
+	 *           Where text is appended
+	 */
+	static void appendCollapsed(String text, StringBuilder out) {
+		if (text.startsWith(" ") && out.length() != 0
+				&& out.charAt(out.length() - 1) == ' ') {
+			out.append(text, 1, text.length());
+		} else {
+			out.append(text);
+		}
+	}
 
-				// reset for next movie
-				movieAttributes.clear();
+	/**
+	 * Filters hyperlinks down to those whose text holds a number
+	 * 
+	 * @param links
+	 *           Hyperlinks to be filtered
+	 * @return Hyperlinks with a number in their text, in document order
+	 */
+	private static Elements linksWithDigits(Elements links) {
+		Elements withDigits = new Elements();
+		for (Element e : links) {
+			if (WikipediaParser.digits.matcher(e.text()).find()) {
+				withDigits.add(e);
 			}
 		}
+		return withDigits;
+	}
 
-		return fromTable;
+	/**
+	 * Returns first number in text
+	 * 
+	 * @param text
+	 *           Text holding a number
+	 * @return First number in text, or 0 if there is none
+	 */
+	private static int firstNumber(String text) {
+		Matcher m = WikipediaParser.digits.matcher(text);
+		return m.find() ? Integer.parseInt(m.group()) : 0;
 	}
 
 	/**
@@ -468,112 +1133,86 @@ public class WikipediaParser {
 	 */
 	public ArrayList<Person> getCategoryYearInfo(String category, int year,
 			int indicator) {
-		HashMap<String, String> hasher = this.getURLTextSearch(
-				WikipediaParser.baseURL, String.valueOf(year));
-
-		Document doc = null;
 		try {
-			doc = Jsoup.connect(
-					WikipediaParser.wikiRootURL + hasher.get(String.valueOf(year)))
-					.get();
+			return this.getYearPage(year).getNominees(category, indicator);
 		} catch (IOException e) {
 			e.printStackTrace();
 			return null;
 		}
-		String CYIContentsTemp = doc.toString();
-
-		Scanner tempScanner = new Scanner(CYIContentsTemp);
-		tempScanner.useDelimiter(WikipediaParser.tableDefine);
-		tempScanner.next(); // get rid of first block
-		String CYIContents = tempScanner.next();
-
-		Scanner docReader = new Scanner(CYIContents);
-		docReader.useDelimiter(System.getProperty("line.separator"));
-
-		Pattern catHeader = Pattern.compile("\\s*<th.*title=.*>" + category
-				+ "</a></th>\\s*");
+	}
 
-		while (!docReader.hasNext(catHeader)) {
-			docReader.next();
+	/**
+	 * Analyzes page for specific Academy Awards year and returns nominees for
+	 * each of the specified awards
+	 * 
+	 * @param categories
+	 *           Categories to be searched
+	 * @param year
+	 *           Year to be searched
+	 * @param indicator
+	 *           0 for Person more important; 1 for Movie more important
+	 * @return HashMap of category to nominees in that category, or null if the
+	 *         page could not be loaded
+	 */
+	public HashMap<String, ArrayList<Person>> getCategoryYearInfo(
+			String[] categories, int year, int indicator) {
+		YearPage page;
+		try {
+			page = this.getYearPage(year);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
 		}
 
-		docReader.next(); // eats category header
-
-		// note position (left or right side of row) of the category header
-		int position;
-		if (docReader.hasNext(WikipediaParser.generalCatHeader)) {
-			position = 1;
-		} else {
-			position = 2;
+		HashMap<String, ArrayList<Person>> nominees = new HashMap<String, ArrayList<Person>>();
+		for (String category : categories) {
+			nominees.put(category, page.getNominees(category, indicator));
 		}
+		return nominees;
+	}
 
-		// get to correct spot
-		while (!docReader.hasNext(WikipediaParser.unorderedListBegin)) {
-			docReader.next();
+	/**
+	 * Returns nominees of every category for a specific Academy Awards year,
+	 * read from the year page in one pass and kept for the rest of the session.
+	 * Threads asking for the same year at once share one read.
+	 * 
+	 * @param year
+	 *           Year to be loaded
+	 * @return Nominees of every category that year
+	 * @throws IOException
+	 *            if the page could not be loaded, or the portal has no link to
+	 *            it
+	 */
+	public YearPage getYearPage(int year) throws IOException {
+		final String yearKey = String.valueOf(year);
+		YearPage page = this.yearPageCache.get(yearKey);
+		if (page != null) {
+			return page;
 		}
-
-		// repeat if in second cell
-		if (position == 2) {
-			while (!docReader.hasNext(WikipediaParser.unorderedListCellEnd)) {
-				docReader.next();
-			}
-			while (!docReader.hasNext(WikipediaParser.unorderedListBegin)) {
-				docReader.next();
+		return this.yearPageLoads.run(yearKey, new Callable<YearPage>() {
+			public YearPage call() throws IOException {
+				return WikipediaParser.this.loadYearPage(yearKey);
 			}
-		}
-
-		String[] parsingString;
-		String winner, film;
-		ArrayList<Person> searchResults = new ArrayList<Person>();
-
-		// continue until end of cell
-		while (!docReader.hasNext(WikipediaParser.unorderedListCellEnd)
-				&& docReader.hasNext()) {
-
-			if (docReader.hasNext(WikipediaParser.listItemBegin)) {
-				parsingString = docReader.next().trim().split(spaceDashSpaceRegex);
-				winner = parsingString[0];
-
-				// handles cases where both " - " exists and doesn't exist
-				if (parsingString.length > 1) {
-					film = parsingString[1].trim();
-				} else {
-					film = "";
-				}
-
-				Pattern urlExtract;
-				if (indicator == 0) {// PERSON MORE IMPORTANT
-					urlExtract = Pattern
-							.compile(".*?<a href=\"(.*?)\".*?title.*?\">(.*?)</a.*");
-				} else if (indicator == 1) {// MOVIE MORE IMPORTANT
-					urlExtract = Pattern
-							.compile(".*<a href=\"(.*)\".*title.*\">(.*)</a.*");
-				} else {
-					return null; // bad option; shouldn't happen
-				}
-				Matcher urlMatcher = urlExtract.matcher(winner);
-				Matcher urlMatcher2 = urlExtract.matcher(film);
-
-				// we do this twice because (as we see above) " - " pattern doesn't
-				// always exist. This method finds where the movie data was stored
-				if (film != "") {
-					if (urlMatcher.find() && urlMatcher2.find()) {
-						searchResults.add(new Person(urlMatcher.group(2), urlMatcher
-								.group(1), urlMatcher2.group(2), urlMatcher2.group(1)));
-					}
-				} else {
-					if (urlMatcher.find()) {
-						searchResults.add(new Person(urlMatcher.group(2), urlMatcher
-								.group(1), "", ""));
-					}
-				}
+		});
+	}
 
-			} else {
-				docReader.next();
+	// reads a year page not found in memory when asked for
+	private YearPage loadYearPage(String yearKey) throws IOException {
+		YearPage page = this.yearPageCache.get(yearKey);
+		if (page == null) {
+			String yearLink = this.getPortalIndex().getYearLink(yearKey);
+			if (yearLink == null) {
+				throw new IOException("No Academy Awards page linked for "
+						+ yearKey);
 			}
+			Document yearDoc = this.fetchDocument(this.wikiRootURL + yearLink);
+			long extractStart = ParserMetrics.start();
+			page = new YearPage(yearDoc);
+			ParserMetrics.extract.stop(extractStart);
+			ParserMetrics.tableRows.record(page.size());
+			this.yearPageCache.put(yearKey, page, 256L * page.size());
 		}
-
-		return searchResults;
+		return page;
 	}
 
 	/**
@@ -585,37 +1224,41 @@ public class WikipediaParser {
 	 * @param year
 	 *           Reference year
 	 * @return ArrayList of HashedInfo, where the "Age" key holds the age at the
-	 *         given year for the "Name" key
+	 *         given year for the "Name" key. People whose page could not be
+	 *         loaded are left out.
 	 */
 	public ArrayList<HashedInfo> getAgeAtTime(ArrayList<Person> people, int year) {
 		ArrayList<HashedInfo> toReturn = new ArrayList<HashedInfo>();
-		HashMap<String, String> tempHash;
 		String tempPersonPage, ageLine, age, ageAtTime;
 		Scanner reader;
-		Pattern bornHeader = Pattern.compile("\\s*<th.*>Born</th>\\s*");
-		Pattern ageData = Pattern.compile(".*age&nbsp;(\\d+).*");
 		Matcher ageMatcher;
 		int currentYear;
 		Document doc;
 
+		// biography pages are fetched concurrently up front
+		ArrayList<String> personURLs = new ArrayList<String>();
 		for (Person p : people) {
-			tempHash = new HashMap<String, String>();
+			personURLs.add(this.wikiRootURL + p.getLink());
+		}
+		ArrayList<Document> personPages = this.fetchDocuments(personURLs);
 
-			try {
-				doc = Jsoup.connect(WikipediaParser.wikiRootURL + p.getLink())
-						.get();
-			} catch (IOException e) {
-				e.printStackTrace();
-				return null; // should only happen if link address changes between
-									// initial query and now
+		for (int i = 0; i < people.size(); i++) {
+			Person p = people.get(i);
+			doc = personPages.get(i);
+			if (doc == null) {
+				continue; // page could not be loaded; age left out
 			}
 
+			long serializeStart = ParserMetrics.start();
 			tempPersonPage = doc.toString();
+			ParserMetrics.serialize.stop(serializeStart);
+
+			long scanStart = ParserMetrics.start();
 			reader = new Scanner(tempPersonPage);
 			reader.useDelimiter(System.getProperty("line.separator"));
 
 			// skip going until we have the bornHeader next
-			while (!reader.hasNext(bornHeader)) {
+			while (!reader.hasNext(WikipediaParser.bornHeader)) {
 				reader.next();
 			}
 
@@ -623,7 +1266,7 @@ public class WikipediaParser {
 
 			ageLine = reader.next(); // by pattern, the age is given in the line
 												// immediately following the "born header"
-			ageMatcher = ageData.matcher(ageLine);
+			ageMatcher = WikipediaParser.ageData.matcher(ageLine);
 
 			if (ageMatcher.find()) {
 				age = ageMatcher.group(1);
@@ -635,12 +1278,10 @@ public class WikipediaParser {
 			currentYear = Calendar.getInstance().get(Calendar.YEAR);
 
 			ageAtTime = String.valueOf(Integer.parseInt(age) + year - currentYear);
+			ParserMetrics.scan.stop(scanStart);
 
-			tempHash.put("Age", ageAtTime);
-			tempHash.put("Name", p.getName());
-			tempHash.put("Movie", p.getMovie());
-
-			toReturn.add(new HashedInfo(tempHash));
+			toReturn.add(new HashedInfo(WikipediaParser.ageSchema, new String[] {
+					ageAtTime, p.getName(), p.getMovie() }));
 
 		}
 
@@ -654,17 +1295,22 @@ public class WikipediaParser {
 	 *         info
 	 */
 	public ArrayList<HashedInfo> getForeignLanguageInfo() {
+		ArrayList<HashedInfo> cachedNoms = this.cachedTable("foreign");
+		if (cachedNoms != null) {
+			return cachedNoms;
+		}
+
 		ArrayList<String> FLLinks = this
 				.getBaseURLContents("Best_Foreign_Language_Film");
 		// needs to be long name
 		ArrayList<HashedInfo> FLNoms = new ArrayList<HashedInfo>();
 
-		Document doc = null;
+		Document doc;
 		String linkToUse = "";
 
 		// get the list page
 		for (String s : FLLinks) {
-			if (s.matches(".*[Ll]ist.*")) {
+			if (s.contains("List") || s.contains("list")) {
 				linkToUse = s;
 				break;
 			}
@@ -673,80 +1319,81 @@ public class WikipediaParser {
 		try {
 			// because of specificity of search params, all links should redirect
 			// to same page
-			doc = Jsoup.connect(WikipediaParser.wikiRootURL + linkToUse).get();
+			doc = this.fetchDocument(this.wikiRootURL + linkToUse);
 		} catch (IOException e) {
 			e.printStackTrace();
+			return FLNoms;
 		}
-		String FLURLContents = doc.toString();
-		String FLTable = FLURLContents.split(sortableWikiTableRegex)[1]
-				.split(lastTableSplitRegex)[0];
-		// get table. In between the two regexes.
-
-		Scanner reader = new Scanner(FLTable);
-		reader.useDelimiter(System.getProperty("line.separator"));
 
-		while (!reader.hasNext(WikipediaParser.trDefine)) {
-			reader.next();
+		Element FLTable = WikipediaParser.foreignTable(doc);
+		if (FLTable == null) {
+			return FLNoms;
 		}
-		reader.next(); // skip trDefine pattern when it arrives
 
-		// get attributes from top of table
-		ArrayList<String> attributes = new ArrayList<String>();
-
-		Matcher thMatcher;
-
-		while (!reader.hasNext(WikipediaParser.rowEnd)) {
-			thMatcher = WikipediaParser.tableHeader.matcher(reader.next());
+		long extractStart = ParserMetrics.start();
+		FLNoms = this.analyzeForeignTable(FLTable);
+		ParserMetrics.extract.stop(extractStart);
+		ParserMetrics.tableRows.record(FLNoms.size());
+		this.cacheTable("foreign", FLNoms, this.wikiRootURL + linkToUse);
+		return FLNoms;
+	}
 
-			if (thMatcher.find()) {
-				attributes.add(thMatcher.group(1));
+	/**
+	 * Finds the table of nominees on the Foreign Language Film list page
+	 * 
+	 * @param doc
+	 *           List page
+	 * @return First sortable table, or null if there is none
+	 */
+	static Element foreignTable(Document doc) {
+		for (Element table : doc.select("table.sortable.wikitable")) {
+			if (table.attributes().size() == 1
+					&& table.attr("class").equals("sortable wikitable")) {
+				return table;
 			}
 		}
-		reader.next(); // to get to info cells from header
+		return null;
+	}
 
-		HashMap<String, String> tempHash;
+	/**
+	 * Analyzes the table of Foreign Language Film nominees: one row per film,
+	 * keyed by the column headers
+	 * 
+	 * @param FLTable
+	 *           Table element to be analyzed
+	 * @return ArrayList of films analyzed from table
+	 */
+	ArrayList<HashedInfo> analyzeForeignTable(Element FLTable) {
+		ArrayList<HashedInfo> FLNoms = new ArrayList<HashedInfo>();
 
-		Matcher infoCellMatcher, infoCell2Matcher, infoCellRefMatcher;
-		String rowContents, value;
-		int counter;
+		// get attributes from top of table
+		ArrayList<String> attributes = new ArrayList<String>();
+		HashMap<String, String> tempHash;
+		Elements cells;
+		Element link;
 
-		while (reader.hasNext(WikipediaParser.rowBegin)) {
-			tempHash = new HashMap<String, String>();
-			counter = 0;
+		for (Element row : FLTable.select("tr")) {
+			cells = row.select("> td");
 
-			// loop over all films
-			while (!reader.hasNext(WikipediaParser.rowEnd)) {
-				if (reader.hasNext(WikipediaParser.cellBegin)) {
-					rowContents = reader.next();
-					infoCellMatcher = WikipediaParser.infoCell.matcher(rowContents);
-					infoCell2Matcher = WikipediaParser.infoCell2
-							.matcher(rowContents);
-					infoCellRefMatcher = WikipediaParser.infoCellRef
-							.matcher(rowContents);
-
-					// here we find the correct format
-					if (infoCellRefMatcher.find()) {
-						value = infoCellRefMatcher.group(1);
-					} else if (infoCellMatcher.find()) {
-						value = infoCellMatcher.group(1);
-					} else if (infoCell2Matcher.find()) {
-						value = infoCell2Matcher.group(1);
-					} else {
-						value = "";
+			if (cells.size() == 0) {
+				if (attributes.size() == 0) {
+					for (Element th : row.select("> th")) {
+						attributes.add(th.text().trim());
 					}
-
-					tempHash.put(attributes.get(counter), value);
-					counter++;
-
-				} else {
-					reader.next();
 				}
+				continue;
+			}
 
+			// loop over all films
+			tempHash = new HashMap<String, String>();
+			for (int i = 0; i < cells.size() && i < attributes.size(); i++) {
+				// linked text is preferred; footnotes are skipped
+				link = WikipediaParser.lastLink(cells.get(i).childNodes());
+				tempHash.put(attributes.get(i), link != null ? link.text() : cells
+						.get(i).text());
 			}
 
-			FLNoms.add(new HashedInfo(tempHash));
-			tempHash.clear();
-			reader.next(); // eat </tr>
+			FLNoms.add(this.pooledRow(tempHash));
 		}
 
 		return FLNoms;
@@ -764,35 +1411,37 @@ public class WikipediaParser {
 	 * @return Number of wins
 	 */
 	public int getNumberOfWins(String movie, String year) {
-		int winCount = 0;
-		String yearLink = this.getURLTextSearch(WikipediaParser.baseURL, year)
-				.get(year);
-		String document = "";
-
 		try {
-			document = Jsoup.connect(WikipediaParser.wikiRootURL + yearLink).get()
-					.toString();
+			return this.getYearPage(Integer.parseInt(year)).getNumberOfWins(movie);
 		} catch (IOException e) {
 			e.printStackTrace();
+			return 0;
 		}
+	}
 
-		// gets rid of pre-table data
-		document = document.split(WikipediaParser.tableDefine)[1];
-		Scanner reader = new Scanner(document);
-		reader.useDelimiter(System.getProperty("line.separator"));
-
-		// takes advantage of winners being formatted in bold
-		Pattern winnerFind = Pattern.compile("\\s*<li>.*<b>.*" + movie
-				+ ".*</b>.*");
+	/**
+	 * Gets the number of wins for each of the given movies (in the
+	 * corresponding year). The page is loaded only once.
+	 * 
+	 * @param movies
+	 *           Movies whose win counts are to be calculated
+	 * @param year
+	 *           Year movies won awards
+	 * @return HashMap of movie to number of wins, or null if the page could not
+	 *         be loaded
+	 */
+	public HashMap<String, Integer> getNumberOfWins(List<String> movies,
+			String year) {
+		YearPage page;
 
-		while (reader.hasNext()) {
-			if (reader.hasNext(winnerFind)) {
-				winCount++;
-			}
-			reader.next();
+		try {
+			page = this.getYearPage(Integer.parseInt(year));
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
 		}
 
-		return winCount;
+		return page.getNumberOfWins(movies);
 	}
 
 	/**
@@ -805,47 +1454,36 @@ public class WikipediaParser {
 	 *         and associated info for each movie
 	 */
 	public ArrayList<HashedInfo> getCategoryInfoWinNom(String category) {
+		String tableKey = "winnom:" + category;
+		ArrayList<HashedInfo> cachedNoms = this.cachedTable(tableKey);
+		if (cachedNoms != null) {
+			return cachedNoms;
+		}
 
 		ArrayList<String> BDLinks = this.getBaseURLContents(category);
 		ArrayList<HashedInfo> allNoms = new ArrayList<HashedInfo>();
 
-		String BDfullText = null;
+		Document BDdoc;
 
 		try {
-			BDfullText = Jsoup
-					.connect(WikipediaParser.wikiRootURL + BDLinks.get(0)).get()
-					.toString();
+			BDdoc = this.fetchDocument(this.wikiRootURL
+					+ BDLinks.get(0));
 		} catch (IOException e) {
 			e.printStackTrace();
+			return allNoms;
 		}
 
-		// breaks page into table
-		Scanner fullReader = new Scanner(BDfullText);
-		fullReader.useDelimiter(WikipediaParser.tableDefine);
-		String table;
-		ArrayList<HashedInfo> analysisResults;
-
-		fullReader.next(); // gets rid of chunk before table
-
-		// continue until no more "table chunks"
-		while (fullReader.hasNext()) {
-			table = fullReader.next();
-
-			// if last table, drops off post-tables data (denoted by <h2> tag)
-			if (!fullReader.hasNext()) {
-				table = table.split(lastTableSplitRegex)[0];
-			}
-			// here we have the whole table in "table" variable
-
-			analysisResults = this.analyzeWinNomTable(table);
-
-			// add results from this table to allNoms running List
-			for (HashedInfo h : analysisResults) {
-				allNoms.add(h);
+		// one table per decade
+		long extractStart = ParserMetrics.start();
+		for (Element table : BDdoc.select("table.wikitable")) {
+			if (WikipediaParser.isDecadeTable(table, 1)) {
+				allNoms.addAll(this.analyzeWinNomTable(table));
 			}
-
 		}
+		ParserMetrics.extract.stop(extractStart);
+		ParserMetrics.tableRows.record(allNoms.size());
 
+		this.cacheTable(tableKey, allNoms, this.wikiRootURL + BDLinks.get(0));
 		return allNoms;
 	}
 
@@ -854,93 +1492,65 @@ public class WikipediaParser {
 	 * example
 	 * 
 	 * @param table
-	 *           String representation of table to be analyzed
+	 *           Table element to be analyzed
 	 * @return ArrayList of HashedInfo wrappers for nominated movies and
 	 *         associated information
 	 */
-	private ArrayList<HashedInfo> analyzeWinNomTable(String table) {
+	ArrayList<HashedInfo> analyzeWinNomTable(Element table) {
 		ArrayList<HashedInfo> analyzedResults = new ArrayList<HashedInfo>();
-		HashMap<String, String> tempHasher = new HashMap<String, String>();
-		Scanner reader = new Scanner(table);
-		reader.useDelimiter(System.getProperty("line.separator"));
+		HashMap<String, String> tempHasher;
 
-		Matcher yearMatcher;
-
-		// skips header data
-		while (!reader.hasNext(WikipediaParser.rowEnd)) {
-			reader.next();
-		}
-		reader.next(); // eat <\tr> tag
-		// here reader is at <tr> tag defining first row in table
-
-		String rowContents;
 		String awardLink, awardCalendarYear;
-		String[] noms, content;
-		while (reader.hasNext(WikipediaParser.trDefine)) {
-			reader.next(); // read <tr>
+		Elements cells;
+		ArrayList<List<Node>> content;
+		for (Element row : table.select("tr")) {
+			cells = row.select("> td");
+			if (cells.size() < 3) {
+				continue; // header row
+			}
 
 			// gets year information out of first cell
-			rowContents = reader.next();
-			yearMatcher = WikipediaParser.yearExtractCell.matcher(rowContents);
-
-			if (yearMatcher.find()) {
-				awardLink = yearMatcher.group(1);
-				awardCalendarYear = yearMatcher.group(2);
-			} else {
-				awardLink = "";
-				awardCalendarYear = "";
+			awardLink = "";
+			awardCalendarYear = "";
+			for (Element e : cells.get(0).select("a[href]")) {
+				if (WikipediaParser.fourDigits.matcher(e.text()).matches()) {
+					awardLink = e.attr("href");
+					awardCalendarYear = e.text();
+				}
 			}
 
-			// gets winner information
-			rowContents = reader.next();
-
-			content = rowContents.split("<br />");
-			tempHasher = this.analyzeLink(content, "\\s*<td>(.*)<\td>\\s*",
-					tempHasher);
+			// gets winner information: person, line break, then movie
+			content = WikipediaParser.splitAtBreaks(cells.get(1).childNodes());
+			tempHasher = this.analyzeLink(content.get(0),
+					content.size() > 1 ? content.get(1) : new ArrayList<Node>(),
+					new HashMap<String, String>());
 
 			tempHasher.put("winner", "1");
 			tempHasher.put("awardYear", awardCalendarYear);
 			tempHasher.put("awardLink", awardLink);
-			analyzedResults.add(new HashedInfo(tempHasher));
+			analyzedResults.add(this.pooledRow(tempHasher));
 
 			// now time to extract non-winning nominees
-			rowContents = reader.next();
-
-			if (rowContents.matches("\\s*<td.*</td>.*")) { // in this case, lines
-																			// are split by line
-																			// break tags
-				noms = rowContents.split("<br />");
-				analyzedResults = this.analyzeBreakedNoms(noms, analyzedResults,
-						awardCalendarYear, awardLink);
+			Elements listItems = cells.get(2).select("li");
+			if (listItems.size() == 0) { // in this case, nominees are split by
+													// line break tags
+				analyzedResults = this.analyzeBreakedNoms(
+						WikipediaParser.splitAtBreaks(cells.get(2).childNodes()),
+						analyzedResults, awardCalendarYear, awardLink);
 			} else {
-				if (!rowContents.matches(WikipediaParser.listItemBegin)) {
-					while (!reader.hasNext(WikipediaParser.listItemBegin)) {
-						reader.next();
-					}
-				} // get reader to correct point in file
-				while (!reader.hasNext(WikipediaParser.rowEnd)) {
-					if (reader.hasNext(WikipediaParser.listItemBegin)) {
-						rowContents = reader.next();
-
-						content = rowContents
-								.split(WikipediaParser.spaceDashSpaceRegex);
-						tempHasher = this.analyzeLink(content, "\\s?(.*)</li>\\s*",
-								tempHasher);
-
-						// add extra data
-						tempHasher.put("winner", "0");
-						tempHasher.put("awardYear", awardCalendarYear);
-						tempHasher.put("awardLink", awardLink);
-
-						analyzedResults.add(new HashedInfo(tempHasher));
-						tempHasher.clear();
-					} else {
-						reader.next();
-					}
+				for (Element item : listItems) {
+					content = WikipediaParser.splitAtDash(item.childNodes());
+					tempHasher = this.analyzeLink(content.get(0), content.get(1),
+							new HashMap<String, String>());
+
+					// add extra data
+					tempHasher.put("winner", "0");
+					tempHasher.put("awardYear", awardCalendarYear);
+					tempHasher.put("awardLink", awardLink);
+
+					analyzedResults.add(this.pooledRow(tempHasher));
 				}
 			}
-
-			reader.next(); // eats trailing </tr> tag
 		}
 		return analyzedResults;
 	}
@@ -951,7 +1561,7 @@ public class WikipediaParser {
 	 * tag, not a list tag
 	 * 
 	 * @param noms
-	 *           Raw nomination data
+	 *           Contents of cell, split at line breaks
 	 * @param analyzedResults
 	 *           Where analyzed data ought be placed
 	 * @param awardCalendarYear
@@ -961,30 +1571,27 @@ public class WikipediaParser {
 	 * @return ArrayList of HashedInfo wrapper for each movie extracted from the
 	 *         noms input
 	 */
-	private ArrayList<HashedInfo> analyzeBreakedNoms(String[] noms,
+	ArrayList<HashedInfo> analyzeBreakedNoms(ArrayList<List<Node>> noms,
 			ArrayList<HashedInfo> analyzedResults, String awardCalendarYear,
 			String awardLink) {
-		HashMap<String, String> tempHasher = new HashMap<String, String>();
-		String[] content;
-
-		for (String s : noms) {
+		HashMap<String, String> tempHasher;
+		ArrayList<List<Node>> content;
 
-			if (s.matches("\\s*</td>\\s*")) {
-				continue; // skip to next string s if current string is cell end
-								// tag
+		for (List<Node> nom : noms) {
+			if (WikipediaParser.isBlank(nom)) {
+				continue; // skip to next nominee if only whitespace is left
 			}
 
-			content = s.split(spaceDashSpaceRegex);
-			tempHasher = this.analyzeLink(content, "\\s*<td>(.*)</td>\\s*",
-					tempHasher);
+			content = WikipediaParser.splitAtDash(nom);
+			tempHasher = this.analyzeLink(content.get(0), content.get(1),
+					new HashMap<String, String>());
 
 			// add extra data
 			tempHasher.put("winner", "0");
 			tempHasher.put("awardYear", awardCalendarYear);
 			tempHasher.put("awardLink", awardLink);
 
-			analyzedResults.add(new HashedInfo(tempHasher));
-			tempHasher.clear();
+			analyzedResults.add(this.pooledRow(tempHasher));
 		}
 
 		return analyzedResults;
@@ -998,32 +1605,110 @@ public class WikipediaParser {
 	 * @return ArrayList of Strings of stars of supplied movie
 	 */
 	public ArrayList<String> getStarring(String movieLink) {
-		ArrayList<String> starring = new ArrayList<String>();
-		String tempPersonPage;
-		Scanner reader;
-		Pattern starringHeader = Pattern.compile("\\s*<th.*>Starring</th>\\s*");
-		String[] stars;
-		Matcher linkMatcher;
-
 		Document doc;
 
 		try {
-			doc = Jsoup.connect(WikipediaParser.wikiRootURL + movieLink).get();
+			doc = this.fetchDocument(this.wikiRootURL + movieLink);
 		} catch (IOException e) {
 			e.printStackTrace();
 			return null; // should only happen if link address changes between
 								// initial query and now
 		}
 
+		ArrayList<String> starring = this.analyzeStarring(doc);
+		this.castGraph.put(movieLink, starring);
+		this.saveCastGraph();
+		return starring;
+	}
+
+	/**
+	 * Finds stars of each of the given movies, fetching the movie pages
+	 * concurrently. Casts found are recorded in the cast graph.
+	 * 
+	 * @param movieLinks
+	 *           Relative links to movies of which stars are to be extracted
+	 * @return ArrayList of stars for each movie, in the same order as
+	 *         movieLinks. Entries for pages that could not be loaded or read
+	 *         are null; a page with no cast listed gives an empty list.
+	 */
+	public ArrayList<ArrayList<String>> getStarring(List<String> movieLinks) {
+		ArrayList<String> movieURLs = new ArrayList<String>();
+		for (String link : movieLinks) {
+			movieURLs.add(this.wikiRootURL + link);
+		}
+
+		ArrayList<ArrayList<String>> starring = new ArrayList<ArrayList<String>>();
+		ArrayList<Document> docs = this.fetchDocuments(movieURLs);
+		try {
+			for (int i = 0; i < docs.size(); i++) {
+				if (docs.get(i) == null) {
+					starring.add(null);
+					continue;
+				}
+				ArrayList<String> stars;
+				try {
+					stars = this.analyzeStarring(docs.get(i));
+				} catch (RuntimeException e) {
+					// one unreadable page doesn't cost the rest of the batch
+					e.printStackTrace();
+					starring.add(null);
+					continue;
+				}
+				this.castGraph.put(movieLinks.get(i), stars);
+				starring.add(stars);
+			}
+		} finally {
+			// casts read before any failure are kept
+			this.saveCastGraph();
+		}
+		return starring;
+	}
+
+	// keeps casts read so far for later sessions
+	private void saveCastGraph() {
+		try {
+			this.castGraph.save();
+		} catch (IOException e) {
+			e.printStackTrace(); // casts are simply read again next session
+		}
+	}
+
+	/**
+	 * Extracts stars from the infobox of a movie page
+	 * 
+	 * @param doc
+	 *           Movie page
+	 * @return ArrayList of Strings of stars of movie (empty if the page lists
+	 *         no stars)
+	 */
+	private ArrayList<String> analyzeStarring(Document doc) {
+		ArrayList<String> starring = new ArrayList<String>();
+		String tempPersonPage;
+		Scanner reader;
+		String[] stars;
+		Matcher linkMatcher;
+
+		long serializeStart = ParserMetrics.start();
 		tempPersonPage = doc.toString();
+		ParserMetrics.serialize.stop(serializeStart);
+
+		long scanStart = ParserMetrics.start();
 		reader = new Scanner(tempPersonPage);
 		reader.useDelimiter(System.getProperty("line.separator"));
 
-		while (!reader.hasNext(starringHeader)) {
+		while (reader.hasNext() && !reader.hasNext(WikipediaParser.starringHeader)) {
 			reader.next();
 		}
+		if (!reader.hasNext()) {
+			ParserMetrics.scan.stop(scanStart);
+			return starring; // no Starring line, e.g. a documentary
+		}
 
 		reader.next(); // skip "Starring Header" line
+		if (!reader.hasNext()) {
+			ParserMetrics.scan.stop(scanStart);
+			return starring;
+		}
 
 		stars = reader.next().split("<br />");
 
@@ -1035,59 +1720,151 @@ public class WikipediaParser {
 				starring.add(linkMatcher.group(2).trim());
 			}
 		}
+		ParserMetrics.scan.stop(scanStart);
 		return starring;
 	}
 
 	/**
-	 * Sub-method to analyze an array of links (should be of length 2,
-	 * corresponding to person and associated movie) and turn into links
+	 * Sub-method to analyze a person (director, actor, actress, etc.) and
+	 * associated movie and store their links
 	 * 
-	 * @param content
-	 *           Input to be analyzed
-	 * @param defaultRegexPattern
-	 *           Default regex pattern to be used to remove most obvious tags in
-	 *           case internal algorithm fails to detect match
+	 * @param person
+	 *           Nodes naming the person
+	 * @param film
+	 *           Nodes naming the movie
 	 * @param tempHasher
 	 *           HashMap where extracted information should be stored
 	 * @return tempHasher input, after appropriate information stored
 	 */
-	private HashMap<String, String> analyzeLink(String[] content,
-			String defaultRegexPattern, HashMap<String, String> tempHasher) {
-		Matcher linkMatcher, tempMatcher;
-		String link = "", text = "";
-		String person = content[0];
-		String film = content[1];
-
-		// analyze person (director, actor, actress, etc.) link
-		linkMatcher = WikipediaParser.tableLinkExtract.matcher(person);
-		if (linkMatcher.find()) {
-			link = linkMatcher.group(1);
-			text = linkMatcher.group(2);
-
-			tempHasher.put("person", text);
-			tempHasher.put("personLink", link);
-		} else {
-			tempMatcher = Pattern.compile(defaultRegexPattern).matcher(person);
-			if (tempMatcher.find()) {
-				text = tempMatcher.group(1);
-			}
+	HashMap<String, String> analyzeLink(List<Node> person,
+			List<Node> film, HashMap<String, String> tempHasher) {
+		// analyze person link
+		Element link = WikipediaParser.lastLink(person);
+		if (link != null) {
+			tempHasher.put("person", link.text());
+			tempHasher.put("personLink", link.attr("href"));
 		}
 
 		// analyze Movie Link
-		linkMatcher = WikipediaParser.tableLinkExtract.matcher(film);
-		if (linkMatcher.find()) {
-			link = linkMatcher.group(1);
-			text = linkMatcher.group(2);
+		link = WikipediaParser.lastLink(film);
+		if (link != null) {
+			tempHasher.put("movie", link.text());
+			tempHasher.put("movieLink", link.attr("href"));
+		}
 
-			tempHasher.put("movie", text);
-			tempHasher.put("movieLink", link);
-		} else {
-			tempMatcher = Pattern.compile(defaultRegexPattern).matcher(film);
-			if (tempMatcher.find()) {
-				text = tempMatcher.group(1);
+		return tempHasher;
+	}
+
+	/**
+	 * Wraps a row, sharing its values through the string pool
+	 * 
+	 * @param row
+	 *           Values of row (replaced with their pooled copies)
+	 * @return HashedInfo wrapper for row
+	 */
+	private HashedInfo pooledRow(HashMap<String, String> row) {
+		for (Map.Entry<String, String> e : row.entrySet()) {
+			e.setValue(this.stringPool.intern(e.getValue()));
+		}
+		return new HashedInfo(row);
+	}
+
+	/**
+	 * Finds last hyperlink among nodes and their descendants, skipping
+	 * footnotes
+	 * 
+	 * @param nodes
+	 *           Nodes to be searched
+	 * @return Last hyperlink, or null if there is none
+	 */
+	private static Element lastLink(List<Node> nodes) {
+		Element link = null;
+		for (Node n : nodes) {
+			if (!(n instanceof Element)) {
+				continue;
+			}
+
+			Element e = (Element) n;
+			if (e.tagName().equals("a") && e.hasAttr("href")) {
+				link = e;
+			} else if (!e.tagName().equals("sup")) {
+				Element inner = WikipediaParser.lastLink(e.childNodes());
+				if (inner != null) {
+					link = inner;
+				}
 			}
 		}
+		return link;
+	}
 
-		return tempHasher;
+	/**
+	 * Splits nodes at line break tags
+	 * 
+	 * @param nodes
+	 *           Nodes to be split
+	 * @return Runs of nodes between line breaks
+	 */
+	static ArrayList<List<Node>> splitAtBreaks(List<Node> nodes) {
+		ArrayList<List<Node>> lines = new ArrayList<List<Node>>();
+		ArrayList<Node> line = new ArrayList<Node>();
+		for (Node n : nodes) {
+			if (n instanceof Element && ((Element) n).tagName().equals("br")) {
+				lines.add(line);
+				line = new ArrayList<Node>();
+			} else {
+				line.add(n);
+			}
+		}
+		lines.add(line);
+		return lines;
+	}
+
+	/**
+	 * Splits nominee into the parts before and after the " - " (any dash-like
+	 * character between spaces) separating person from movie
+	 * 
+	 * @param nodes
+	 *           Nodes of nominee
+	 * @return List of two runs of nodes: person then movie (empty if there is
+	 *         no dash)
+	 */
+	static ArrayList<List<Node>> splitAtDash(List<Node> nodes) {
+		ArrayList<List<Node>> parts = new ArrayList<List<Node>>();
+		ArrayList<Node> part = new ArrayList<Node>();
+		for (Node n : nodes) {
+			if (n instanceof TextNode
+					&& WikipediaParser.spaceDashSpace.matcher(
+							((TextNode) n).getWholeText()).find()) {
+				parts.add(part);
+				if (parts.size() == 2) {
+					return parts;
+				}
+				part = new ArrayList<Node>();
+			} else {
+				part.add(n);
+			}
+		}
+		parts.add(part);
+		if (parts.size() == 1) {
+			parts.add(new ArrayList<Node>());
+		}
+		return parts;
+	}
+
+	/**
+	 * Checks whether nodes hold only whitespace
+	 * 
+	 * @param nodes
+	 *           Nodes to be checked
+	 * @return true if there are no elements and no text
+	 */
+	private static boolean isBlank(List<Node> nodes) {
+		for (Node n : nodes) {
+			if (n instanceof Element
+					|| (n instanceof TextNode && !((TextNode) n).isBlank())) {
+				return false;
+			}
+		}
+		return true;
 	}
 }
\ No newline at end of file
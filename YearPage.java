@@ -0,0 +1,349 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.Elements;
+
+/**
+ * Nominees of every category on a specific Academy Awards year page, read
+ * from the page's awards table in a single pass. Categories can then be looked
+ * up directly, and winners (shown in boldface on the page) counted without
+ * going back to the page.
+ *
+ * @author Chae Jubb
+ * @version 1.0
+ *
+ */
+public class YearPage {
+
+	private static final String spaceDashSpaceRegex = "\\s[^\\w\\s\\d]\\s";
+	private static final Pattern personFirstLink = Pattern
+			.compile(".*?<a href=\"(.*?)\".*?title.*?\">(.*?)</a.*");
+	private static final Pattern movieFirstLink = Pattern
+			.compile(".*<a href=\"(.*)\".*title.*\">(.*)</a.*");
+	private static final Pattern boldSection = Pattern.compile("<b>(.*)</b>");
+
+	private final Map<String, ArrayList<Nominee>> categories;
+
+	/**
+	 * Constructor. Reads every category of the first awards table on the page.
+	 *
+	 * @param page
+	 *           Parsed Academy Awards year page
+	 */
+	public YearPage(Document page) {
+		HashMap<String, ArrayList<Nominee>> allCategories = new HashMap<String, ArrayList<Nominee>>();
+		Element table = YearPage.findAwardsTable(page);
+
+		if (table != null) {
+			// each row of category headers is followed by a row of cells, one
+			// list of nominees per header
+			ArrayList<String> headers = new ArrayList<String>();
+			for (Element row : table.select("tr")) {
+				Elements headerCells = row.select("> th");
+				if (headerCells.size() != 0) {
+					headers.clear();
+					for (Element th : headerCells) {
+						Elements links = th.select("a[title]");
+						headers.add(links.size() == 0 ? th.text() : links.last()
+								.text());
+					}
+					continue;
+				}
+
+				Elements cells = row.select("> td");
+				for (int i = 0; i < cells.size() && i < headers.size(); i++) {
+					allCategories.put(headers.get(i),
+							YearPage.analyzeCell(cells.get(i)));
+				}
+			}
+		}
+
+		this.categories = Collections.unmodifiableMap(allCategories);
+	}
+
+	// used when reading a page back from a NominationStore
+	private YearPage(Map<String, ArrayList<Nominee>> categories) {
+		this.categories = Collections.unmodifiableMap(categories);
+	}
+
+	/**
+	 * Writes every category of this page, to be read back with read()
+	 *
+	 * @param out
+	 *           Where page is written
+	 * @throws IOException
+	 *            if the page could not be written
+	 */
+	public void write(DataOutputStream out) throws IOException {
+		out.writeInt(this.categories.size());
+		for (Map.Entry<String, ArrayList<Nominee>> e : this.categories
+				.entrySet()) {
+			out.writeUTF(e.getKey());
+			out.writeInt(e.getValue().size());
+			for (Nominee n : e.getValue()) {
+				YearPage.writePerson(out, n.personFirst);
+				YearPage.writePerson(out, n.movieFirst);
+				NominationStore.writeString(out, n.bold);
+			}
+		}
+	}
+
+	/**
+	 * Reads a page written by write()
+	 *
+	 * @param in
+	 *           Where page is read from
+	 * @return Page as it was written
+	 * @throws IOException
+	 *            if the page could not be read
+	 */
+	public static YearPage read(DataInputStream in) throws IOException {
+		HashMap<String, ArrayList<Nominee>> categories = new HashMap<String, ArrayList<Nominee>>();
+		int categoryCount = in.readInt();
+		for (int c = 0; c < categoryCount; c++) {
+			String category = in.readUTF();
+			int nomineeCount = in.readInt();
+			ArrayList<Nominee> nominees = new ArrayList<Nominee>(nomineeCount);
+			for (int i = 0; i < nomineeCount; i++) {
+				Person personFirst = YearPage.readPerson(in);
+				Person movieFirst = YearPage.readPerson(in);
+				nominees.add(new Nominee(personFirst, movieFirst, NominationStore
+						.readString(in)));
+			}
+			categories.put(category, nominees);
+		}
+		return new YearPage(categories);
+	}
+
+	/**
+	 * Returns nominees for a category
+	 *
+	 * @param category
+	 *           Category as titled on the page, e.g. Best Actress
+	 * @param indicator
+	 *           0 for Person more important; 1 for Movie more important
+	 * @return ArrayList of nominees (empty if category not on page)
+	 */
+	public ArrayList<Person> getNominees(String category, int indicator) {
+		return this.select(category, indicator, false);
+	}
+
+	/**
+	 * Returns winners for a category
+	 *
+	 * @param category
+	 *           Category as titled on the page, e.g. Best Actress
+	 * @param indicator
+	 *           0 for Person more important; 1 for Movie more important
+	 * @return ArrayList of winners (empty if category not on page)
+	 */
+	public ArrayList<Person> getWinners(String category, int indicator) {
+		return this.select(category, indicator, true);
+	}
+
+	/**
+	 * Accessor for categories on page
+	 *
+	 * @return Set of category titles
+	 */
+	public Set<String> getCategories() {
+		return this.categories.keySet();
+	}
+
+	/**
+	 * Gets the number of wins for a given movie. This uses the pattern that
+	 * winners are in boldface type while noms are not.
+	 *
+	 * @param movie
+	 *           Movie whose win count is to be calculated
+	 * @return Number of wins
+	 */
+	public int getNumberOfWins(String movie) {
+		int winCount = 0;
+		for (ArrayList<Nominee> nominees : this.categories.values()) {
+			for (Nominee n : nominees) {
+				if (n.bold != null && n.bold.contains(movie)) {
+					winCount++;
+				}
+			}
+		}
+		return winCount;
+	}
+
+	/**
+	 * Gets the number of wins for each of the given movies, looking for all of
+	 * them in a single pass over the page's winners
+	 *
+	 * @param movies
+	 *           Movies whose win counts are to be calculated
+	 * @return HashMap of movie to number of wins
+	 */
+	public HashMap<String, Integer> getNumberOfWins(List<String> movies) {
+		PhraseSet titles = new PhraseSet(movies);
+		int[] winCounts = new int[movies.size()];
+		for (ArrayList<Nominee> nominees : this.categories.values()) {
+			for (Nominee n : nominees) {
+				if (n.bold == null) {
+					continue;
+				}
+				boolean[] found = titles.findIn(n.bold);
+				for (int i = 0; i < found.length; i++) {
+					if (found[i]) {
+						winCounts[i]++;
+					}
+				}
+			}
+		}
+
+		HashMap<String, Integer> toReturn = new HashMap<String, Integer>();
+		for (int i = 0; i < winCounts.length; i++) {
+			toReturn.put(movies.get(i), winCounts[i]);
+		}
+		return toReturn;
+	}
+
+	/**
+	 * Returns approximate number of nominees held, as a measure of size
+	 *
+	 * @return Total number of nominees in all categories
+	 */
+	public int size() {
+		int size = 0;
+		for (ArrayList<Nominee> nominees : this.categories.values()) {
+			size += nominees.size();
+		}
+		return size;
+	}
+
+	private ArrayList<Person> select(String category, int indicator,
+			boolean winnersOnly) {
+		ArrayList<Person> searchResults = new ArrayList<Person>();
+		ArrayList<Nominee> nominees = this.categories.get(category);
+		if (nominees == null) {
+			return searchResults;
+		}
+
+		for (Nominee n : nominees) {
+			Person p = (indicator == 0) ? n.personFirst : n.movieFirst;
+			if (p != null && (!winnersOnly || n.bold != null)) {
+				searchResults.add(p);
+			}
+		}
+		return searchResults;
+	}
+
+	// the awards table is the first table whose only attribute is its class
+	private static Element findAwardsTable(Document page) {
+		for (Element table : page.select("table.wikitable")) {
+			if (table.attributes().size() == 1
+					&& table.attr("class").equals("wikitable")) {
+				return table;
+			}
+		}
+		return null;
+	}
+
+	private static ArrayList<Nominee> analyzeCell(Element cell) {
+		ArrayList<Nominee> nominees = new ArrayList<Nominee>();
+
+		// nominees are list items; the winner's item holds the others in a
+		// nested list, which is left out of its own text
+		for (Element item : cell.select("li")) {
+			StringBuilder ownHtml = new StringBuilder();
+			for (Node child : item.childNodes()) {
+				if (child instanceof Element
+						&& (((Element) child).tagName().equals("ul") || ((Element) child)
+								.tagName().equals("ol"))) {
+					continue;
+				}
+				ownHtml.append(child.outerHtml());
+			}
+
+			String line = ownHtml.toString().replace('\n', ' ').trim();
+			String[] parsingString = line.split(YearPage.spaceDashSpaceRegex);
+			String winner = parsingString[0];
+
+			// handles cases where both " - " exists and doesn't exist
+			String film = "";
+			if (parsingString.length > 1) {
+				film = parsingString[1].trim();
+			}
+
+			Matcher bold = YearPage.boldSection.matcher(line);
+			nominees.add(new Nominee(YearPage.toPerson(
+					YearPage.personFirstLink, winner, film), YearPage.toPerson(
+					YearPage.movieFirstLink, winner, film),
+					bold.find() ? bold.group(1) : null));
+		}
+		return nominees;
+	}
+
+	// we match twice because " - " pattern doesn't always exist. This method
+	// finds where the movie data was stored
+	private static Person toPerson(Pattern urlExtract, String winner, String film) {
+		Matcher urlMatcher = urlExtract.matcher(winner);
+		if (!urlMatcher.find()) {
+			return null;
+		}
+
+		if (film.equals("")) {
+			return new Person(urlMatcher.group(2), urlMatcher.group(1), "", "");
+		}
+
+		Matcher urlMatcher2 = urlExtract.matcher(film);
+		if (!urlMatcher2.find()) {
+			return null;
+		}
+		return new Person(urlMatcher.group(2), urlMatcher.group(1),
+				urlMatcher2.group(2), urlMatcher2.group(1));
+	}
+
+	private static void writePerson(DataOutputStream out, Person p)
+			throws IOException {
+		out.writeBoolean(p != null);
+		if (p != null) {
+			NominationStore.writeString(out, p.getName());
+			NominationStore.writeString(out, p.getLink());
+			NominationStore.writeString(out, p.getMovie());
+			NominationStore.writeString(out, p.getMovieLink());
+		}
+	}
+
+	private static Person readPerson(DataInputStream in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		return new Person(NominationStore.readString(in),
+				NominationStore.readString(in), NominationStore.readString(in),
+				NominationStore.readString(in));
+	}
+
+	/**
+	 * Single list item in a category: the nominee read both ways, and the
+	 * boldface (winning) part of the item, if any
+	 */
+	private static class Nominee {
+
+		private final Person personFirst;
+		private final Person movieFirst;
+		private final String bold;
+
+		private Nominee(Person personFirst, Person movieFirst, String bold) {
+			this.personFirst = personFirst;
+			this.movieFirst = movieFirst;
+			this.bold = bold;
+		}
+	}
+}
@@ -17,11 +17,15 @@ import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingWorker;
 
 public class wikiAnalyzerGUI {
 
@@ -29,8 +33,12 @@ public class wikiAnalyzerGUI {
 	private JTextField txtOption;
 	private JTextField txtOptionHere;
 	private JTextArea textArea;
+	private JButton btnSubmit;
+	private JButton btnCancel;
+	private JProgressBar progressBar;
 
 	private wikiGUIController control;
+	private QuestionWorker worker; // question running, if any
 
 	/**
 	 * Launch the application.
@@ -66,9 +74,9 @@ public class wikiAnalyzerGUI {
 		frmChaesWikipediaMovie.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 		GridBagLayout gridBagLayout = new GridBagLayout();
 		gridBagLayout.columnWidths = new int[] { 702, 0 };
-		gridBagLayout.rowHeights = new int[] { 100, 50, 0, 80, 178, 0 };
+		gridBagLayout.rowHeights = new int[] { 100, 50, 0, 80, 178, 0, 0 };
 		gridBagLayout.columnWeights = new double[] { 1.0, Double.MIN_VALUE };
-		gridBagLayout.rowWeights = new double[] { 0.0, 0.0, 0.0, 0.0, 1.0,
+		gridBagLayout.rowWeights = new double[] { 0.0, 0.0, 0.0, 0.0, 1.0, 0.0,
 				Double.MIN_VALUE };
 		frmChaesWikipediaMovie.getContentPane().setLayout(gridBagLayout);
 
@@ -113,11 +121,15 @@ public class wikiAnalyzerGUI {
 		});
 		splitPane.setLeftComponent(btnClearAll);
 
-		JButton btnSubmit = new JButton("Submit!");
+		btnSubmit = new JButton("Submit!");
 		btnSubmit.addMouseListener(new MouseAdapter() {
 			@Override
 			public void mouseClicked(MouseEvent e) {
-				String option1 = "", option2 = "", response = "";
+				if (worker != null && !worker.isDone()) {
+					return; // one question at a time
+				}
+
+				String option1 = "", option2 = "";
 				String comboText = comboBox.getSelectedItem().toString();
 
 				final Pattern oneOption = Pattern.compile("(.*).OPTION1.(.*)");
@@ -152,69 +164,15 @@ public class wikiAnalyzerGUI {
 																					// of questions
 																					// on assignment
 
-				try {
-					switch (comboValue) {
-					case 1:
-						response = control.bestPictureSearch(option1, option2);
-						break;
-
-					case 2:
-						response = control.bestOrigScreenplay(option1);
-						break;
-
-					case 3:
-						response = control.bestActorRole(option1);
-						break;
-
-					case 4:
-						response = control.actressAge(option1);
-						break;
-
-					case 5:
-						response = control.directorThreshold(option1);
-						break;
-
-					case 6:
-						response = control.topForeign();
-						break;
-
-					case 7:
-						response = control.nomStarring(option1, option2);
-						break;
-
-					case 8:
-						response = control.quadThreat();
-						break;
-
-					case 9:
-						response = control.bestPictureCount();
-						break;
-
-					case 10:
-						response = control.bestActorCount();
-						break;
-					}
-
-				} catch (BadArgumentException excep) {
-					if (excep.getMessage().equals(null)) {
-						JOptionPane
-								.showMessageDialog(
-										null,
-										"No Results! Either the search is null or your syntax is wrong! Consult README",
-										"Whoops!", JOptionPane.ERROR_MESSAGE);
-					} else {
-						JOptionPane.showMessageDialog(null, excep.getMessage(),
-								"Whoops!", JOptionPane.ERROR_MESSAGE);
-					}
-				} catch (Exception excep) {
-					excep.printStackTrace();
-					JOptionPane.showMessageDialog(null,
-							"Please check correct syntax! Consult README", "Whoops!",
-							JOptionPane.ERROR_MESSAGE);
-				}
-
-				textArea.setText(comboText + "\n\n" + response);
-
+				// question is answered off the event dispatch thread; the window
+				// stays responsive and the question can be cancelled
+				textArea.setText(comboText + "\n\n");
+				btnSubmit.setEnabled(false);
+				btnCancel.setEnabled(true);
+				progressBar.setIndeterminate(true);
+				progressBar.setString("Working...");
+				worker = new QuestionWorker(comboValue, option1, option2);
+				worker.execute();
 			}
 		});
 
@@ -273,6 +231,195 @@ public class wikiAnalyzerGUI {
 		textArea = new JTextArea();
 		scrollPane.setViewportView(textArea);
 		textArea.setEditable(false);
+
+		JPanel panel_4 = new JPanel();
+		GridBagConstraints gbc_panel_4 = new GridBagConstraints();
+		gbc_panel_4.fill = GridBagConstraints.BOTH;
+		gbc_panel_4.gridx = 0;
+		gbc_panel_4.gridy = 5;
+		frmChaesWikipediaMovie.getContentPane().add(panel_4, gbc_panel_4);
+		panel_4.setLayout(new BorderLayout(0, 0));
+
+		progressBar = new JProgressBar();
+		progressBar.setStringPainted(true);
+		progressBar.setString("");
+		panel_4.add(progressBar, BorderLayout.CENTER);
+
+		btnCancel = new JButton("Cancel");
+		btnCancel.setEnabled(false);
+		btnCancel.addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				if (worker != null && !worker.isDone()) {
+					worker.cancel(true); // interrupts the question's thread
+					worker.tracker.cancel(); // and its fetches on the fetch pool
+				}
+			}
+		});
+		panel_4.add(btnCancel, BorderLayout.EAST);
+	}
+
+	/**
+	 * Answers one question on a background thread, reporting pages fetched to
+	 * the progress bar and the answer to the result box. Questions 7 and 8
+	 * stream their answer a line at a time, as each movie is found. Each
+	 * worker tracks its own page loads, so a cancelled question still winding
+	 * down can't report into or cancel the next one.
+	 */
+	private class QuestionWorker extends SwingWorker<String, Object> {
+
+		private final int question;
+		private final String option1;
+		private final String option2;
+		private final FetchTracker tracker;
+
+		private QuestionWorker(int question, String option1, String option2) {
+			this.question = question;
+			this.option1 = option1;
+			this.option2 = option2;
+			this.tracker = new FetchTracker(new FetchProgress() {
+				public void pagesFetched(int fetched, int total) {
+					QuestionWorker.this.publish(new int[] { fetched, total });
+				}
+			});
+		}
+
+		@Override
+		protected String doInBackground() {
+			this.tracker.bind();
+			try {
+				return this.answer();
+			} finally {
+				FetchTracker.unbind(); // worker threads are reused
+			}
+		}
+
+		private String answer() {
+			// text of streamed answers is published alongside progress counts,
+			// under the controller's line limit
+			final ResultFormatter out = control.formatter(new Appendable() {
+				public Appendable append(CharSequence text) {
+					QuestionWorker.this.publish(text.toString());
+					return this;
+				}
+
+				public Appendable append(CharSequence text, int start, int end) {
+					return this.append(text.subSequence(start, end));
+				}
+
+				public Appendable append(char c) {
+					return this.append(String.valueOf(c));
+				}
+			});
+			ResultListener<String> lines = new ResultListener<String>() {
+				public boolean result(String line) {
+					return out.result(line) && !QuestionWorker.this.isCancelled();
+				}
+			};
+
+			switch (this.question) {
+			case 1:
+				return control.bestPictureSearch(this.option1, this.option2);
+
+			case 2:
+				return control.bestOrigScreenplay(this.option1);
+
+			case 3:
+				return control.bestActorRole(this.option1);
+
+			case 4:
+				return control.actressAge(this.option1);
+
+			case 5:
+				return control.directorThreshold(this.option1);
+
+			case 6:
+				return control.topForeign();
+
+			case 7:
+				control.nomStarring(this.option1, this.option2, lines);
+				out.finish();
+				return "";
+
+			case 8:
+				control.quadThreat(lines);
+				out.finish();
+				return "";
+
+			case 9:
+				return control.bestPictureCount();
+
+			case 10:
+				return control.bestActorCount();
+			}
+			return "";
+		}
+
+		// runs on the event dispatch thread: lines are appended in order, and
+		// only the latest progress count matters
+		@Override
+		protected void process(List<Object> updates) {
+			if (this.isCancelled()) {
+				return;
+			}
+			StringBuilder lines = new StringBuilder();
+			int[] latest = null;
+			for (Object update : updates) {
+				if (update instanceof String) {
+					lines.append((String) update);
+				} else {
+					latest = (int[]) update;
+				}
+			}
+
+			textArea.append(lines.toString());
+			if (latest != null && !this.isDone()) {
+				progressBar.setIndeterminate(false);
+				progressBar.setMaximum(latest[1]);
+				progressBar.setValue(latest[0]);
+				progressBar.setString(latest[0] + " / " + latest[1] + " pages");
+			}
+		}
+
+		@Override
+		protected void done() {
+			btnSubmit.setEnabled(true);
+			btnCancel.setEnabled(false);
+			progressBar.setIndeterminate(false);
+			progressBar.setValue(0);
+
+			if (this.isCancelled()) {
+				progressBar.setString("Cancelled");
+				textArea.append("Cancelled.");
+				return;
+			}
+			progressBar.setString("Done");
+
+			try {
+				textArea.append(this.get());
+			} catch (InterruptedException excep) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException wrapped) {
+				Throwable excep = wrapped.getCause();
+				if (excep instanceof BadArgumentException) {
+					if (excep.getMessage() == null) {
+						JOptionPane
+								.showMessageDialog(
+										null,
+										"No Results! Either the search is null or your syntax is wrong! Consult README",
+										"Whoops!", JOptionPane.ERROR_MESSAGE);
+					} else {
+						JOptionPane.showMessageDialog(null, excep.getMessage(),
+								"Whoops!", JOptionPane.ERROR_MESSAGE);
+					}
+				} else {
+					excep.printStackTrace();
+					JOptionPane.showMessageDialog(null,
+							"Please check correct syntax! Consult README", "Whoops!",
+							JOptionPane.ERROR_MESSAGE);
+				}
+			}
+		}
 	}
 
 }
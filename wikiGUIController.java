@@ -1,6 +1,7 @@
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 /**
  * Interface between "Back End" Movie Interpreter--Wikipedia Parser and User
@@ -13,14 +14,42 @@ import java.util.Iterator;
  */
 public class wikiGUIController {
 
+	// most lines of an answer shown; the rest are only counted
+	private static final int defaultMaxLines = 5000;
+
 	private MovieInterpreter info;
+	private final int maxLines;
 
 	/**
 	 * Constructor. Associates a Movie Interpreter object with the instantiated
 	 * GUI Controller
 	 */
 	public wikiGUIController() {
-		info = new MovieInterpreter();
+		this(new MovieInterpreter(), wikiGUIController.defaultMaxLines);
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param info
+	 *           Interpreter answering questions
+	 * @param maxLines
+	 *           Most lines of an answer rendered (negative for no limit)
+	 */
+	public wikiGUIController(MovieInterpreter info, int maxLines) {
+		this.info = info;
+		this.maxLines = maxLines;
+	}
+
+	/**
+	 * Starts rendering an answer
+	 * 
+	 * @param out
+	 *           Where answer is written
+	 * @return Formatter writing to out under this controller's line limit
+	 */
+	public ResultFormatter formatter(Appendable out) {
+		return new ResultFormatter(out, this.maxLines);
 	}
 
 	/**
@@ -38,17 +67,19 @@ public class wikiGUIController {
 		}
 		ArrayList<HashedInfo> response = this.info.bestPictureSearch(option1,
 				option2);
-		String strResponse = "";
+		StringBuilder strResponse = new StringBuilder();
+		ResultFormatter out = this.formatter(strResponse);
 
 		if (response.size() == 0) {
 			throw new BadArgumentException();
 		}
 
 		for (HashedInfo h : response) {
-			strResponse += h.getHasher().get("Film") + "\n";
+			out.line(h.get("Film"));
 		}
 
-		return strResponse;
+		out.finish();
+		return strResponse.toString();
 	}
 
 	/**
@@ -62,17 +93,12 @@ public class wikiGUIController {
 	 */
 	public String bestOrigScreenplay(String option1) {
 		String[] response = this.info.originalScreenplayWriters(option1);
-		String strResponse = "";
 
 		if (response[0].equals("Film Not Found")) {
 			return "Film did not win nomination!";
 		}
 
-		for (String s : response) {
-			strResponse += s + "\n";
-		}
-
-		return strResponse;
+		return ResultFormatter.joinLines(Arrays.asList(response), this.maxLines);
 	}
 
 	/**
@@ -85,17 +111,12 @@ public class wikiGUIController {
 	 */
 	public String bestActorRole(String option1) {
 		ArrayList<String> response = this.info.bestLeadingActor(option1);
-		String strResponse = "";
 
 		if (response.size() == 0) {
 			throw new BadArgumentException();
 		}
 
-		for (String s : response) {
-			strResponse += s + "\n";
-		}
-
-		return strResponse;
+		return ResultFormatter.joinLines(response, this.maxLines);
 	}
 
 	/**
@@ -116,18 +137,16 @@ public class wikiGUIController {
 
 		ArrayList<HashedInfo> response = this.info.getCategoryYearInfo(
 				"Best Actress", op1);
-		String strResponse = "", tempString = "";
+		StringBuilder strResponse = new StringBuilder();
+		ResultFormatter out = this.formatter(strResponse);
 
+		out.table("Name", "Age at Time", "Movie");
 		for (HashedInfo h : response) {
-			tempString = "";
-			tempString += "Name:\t" + h.getHasher().get("Name");
-			tempString += "; Age at Time:\t" + h.getHasher().get("Age");
-			tempString += "; Movie:\t" + h.getHasher().get("Movie");
-
-			strResponse += tempString + "\n";
+			out.row(h.get("Name"), h.get("Age"), h.get("Movie"));
 		}
 
-		return strResponse;
+		out.finish();
+		return strResponse.toString();
 	}
 
 	/**
@@ -147,17 +166,16 @@ public class wikiGUIController {
 		}
 
 		ArrayList<Person> response = this.info.bestDirectorThreshold(op1);
-		String strResponse = "", tempString = "";
+		StringBuilder strResponse = new StringBuilder();
+		ResultFormatter out = this.formatter(strResponse);
 
+		out.table("Name", "Movies");
 		for (Person p : response) {
-			tempString = "";
-			tempString += "Name:\t" + p.getName();
-			tempString += "\t\tMovies:\t" + p.getMovie();
-
-			strResponse += tempString + "\n";
+			out.row(p.getName(), p.getMovie());
 		}
 
-		return strResponse;
+		out.finish();
+		return strResponse.toString();
 	}
 
 	/**
@@ -169,18 +187,21 @@ public class wikiGUIController {
 	@SuppressWarnings("unchecked")
 	public String topForeign() {
 		Object[] response = this.info.getMaxForeignWins();
-		String strResponse = "";
+		StringBuilder strResponse = new StringBuilder();
+		ResultFormatter out = this.formatter(strResponse);
 		ArrayList<String> movies = (ArrayList<String>) response[2];
 
-		strResponse += "Winning Country: " + response[0] + ", with ";
-		strResponse += response[1] + " nominations!\n\n";
-		strResponse += "The movies are: \n";
+		out.line("Winning Country: " + response[0] + ", with " + response[1]
+				+ " nominations!");
+		out.line("");
+		out.line("The movies are: ");
 
 		for (String s : movies) {
-			strResponse += s + "\n";
+			out.line(s);
 		}
 
-		return strResponse;
+		out.finish();
+		return strResponse.toString();
 	}
 
 	/**
@@ -195,23 +216,43 @@ public class wikiGUIController {
 	 *         starring given person
 	 */
 	public String nomStarring(String option1, String option2) {
+		StringBuilder strResponse = new StringBuilder();
+		ResultFormatter out = this.formatter(strResponse);
+		this.nomStarring(option1, option2, out);
+		out.finish();
+		return strResponse.toString();
+	}
+
+	/**
+	 * Interprets (category) starring (actor or actress) end point, passing on
+	 * each movie as soon as it is found
+	 * 
+	 * @param option1
+	 *           Category to be searched
+	 * @param option2
+	 *           Actor to be searched for among nominated movies in given
+	 *           category
+	 * @param lines
+	 *           Receiver of one line of text per movie (without line break);
+	 *           returning false stops the search
+	 */
+	public void nomStarring(String option1, String option2,
+			final ResultListener<String> lines) {
 		option1 = option1.trim().replace(' ', '_'); // converts spaces to
 																	// underscores
-		ArrayList<String> response;
 
 		try {
-			response = this.info.getCategoryStarring(option1, option2);
+			this.info.getCategoryStarring(option1, option2,
+					new ResultListener<String>() {
+						public boolean result(String movie) {
+							return lines.result(movie);
+						}
+					});
+		} catch (CancellationException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new BadArgumentException();
 		}
-
-		String strResponse = "";
-
-		for (String s : response) {
-			strResponse += s + "\n";
-		}
-
-		return strResponse;
 	}
 
 	/**
@@ -221,18 +262,28 @@ public class wikiGUIController {
 	 *         Director, Best Actor, and Best Actress along with total win count
 	 */
 	public String quadThreat() {
-		HashMap<String, Integer> response = this.info.getQuadThreat();
-		String strResponse = "", curMovie;
-
-		Iterator<String> movies = response.keySet().iterator();
-
-		while (movies.hasNext()) {
-			curMovie = movies.next();
-			strResponse += curMovie + ", winning ";
-			strResponse += response.get(curMovie) + " awards!\n";
-		}
+		StringBuilder strResponse = new StringBuilder();
+		ResultFormatter out = this.formatter(strResponse);
+		this.quadThreat(out);
+		out.finish();
+		return strResponse.toString();
+	}
 
-		return strResponse;
+	/**
+	 * Interprets "quad threat" end point, passing on each movie as soon as its
+	 * year has been searched
+	 * 
+	 * @param lines
+	 *           Receiver of one line of text per movie (with its total win
+	 *           count, without line break); returning false stops the search
+	 */
+	public void quadThreat(final ResultListener<String> lines) {
+		this.info.getQuadThreat(new ResultListener<Map.Entry<String, Integer>>() {
+			public boolean result(Map.Entry<String, Integer> movie) {
+				return lines.result(movie.getKey() + ", winning " + movie.getValue()
+						+ " awards!");
+			}
+		});
 	}
 
 	/**